@@ -0,0 +1,112 @@
+import com.minecraft.ssoplugin.http.CallbackEngine;
+import com.minecraft.ssoplugin.http.CallbackResponse;
+import com.minecraft.ssoplugin.http.JdkCallbackEngine;
+import com.minecraft.ssoplugin.http.NioCallbackEngine;
+import com.minecraft.ssoplugin.http.RequestHandler;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 回调服务器引擎压测，比较jdk和nio引擎的吞吐量和延迟
+ * <p>
+ * 处理器返回一个约1.5 KB的页面，可以指定延迟模拟令牌交换和绑定的耗时。
+ * 客户端使用JDK HttpClient（HTTP/1.1，keep-alive），每个并发线程顺序发送请求。
+ * <p>
+ * 用法: CallbackEngineBench &lt;jdk|nio&gt; &lt;处理延迟毫秒&gt; &lt;并发数&gt; &lt;每个线程的请求数&gt; &lt;预热请求数&gt; [端口]
+ */
+public class CallbackEngineBench {
+    
+    public static void main(String[] args) throws Exception {
+        String engineName = args[0];
+        int delayMillis = Integer.parseInt(args[1]);
+        int concurrency = Integer.parseInt(args[2]);
+        int perThread = Integer.parseInt(args[3]);
+        int warmup = Integer.parseInt(args[4]);
+        int port = args.length > 5 ? Integer.parseInt(args[5]) : 18089;
+        
+        char[] filler = new char[1500];
+        Arrays.fill(filler, 'x');
+        CallbackResponse page = new CallbackResponse(200, "text/html; charset=UTF-8",
+                new String(filler).getBytes(StandardCharsets.UTF_8));
+        CallbackResponse busy = new CallbackResponse(503, "text/plain; charset=UTF-8",
+                "busy".getBytes(StandardCharsets.UTF_8)).withHeader("Retry-After", "5");
+        
+        ScheduledExecutorService delay = Executors.newScheduledThreadPool(2);
+        RequestHandler handler = request -> {
+            if (delayMillis == 0) {
+                return CompletableFuture.completedFuture(page);
+            }
+            CompletableFuture<CallbackResponse> future = new CompletableFuture<>();
+            delay.schedule(() -> future.complete(page), delayMillis, TimeUnit.MILLISECONDS);
+            return future;
+        };
+        
+        // 上限设得足够大，测量的是引擎本身而不是503
+        // NIO引擎只在出错时使用插件实例记录日志，压测中传入null
+        CallbackEngine engine = engineName.equals("nio")
+                ? new NioCallbackEngine(null, 4 + 1024)
+                : new JdkCallbackEngine(4, 1024, false);
+        engine.start(new InetSocketAddress("127.0.0.1", port),
+                Collections.singletonMap("/oauth/callback", handler), busy);
+        
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + port + "/oauth/callback?code=x&state=y")).build();
+        for (int i = 0; i < warmup; i++) {
+            client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+        
+        long[] latencies = new long[concurrency * perThread];
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            int base = t * perThread;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    long sent = System.nanoTime();
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[base + i] = System.nanoTime() - sent;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        Arrays.sort(latencies);
+        System.out.printf("%s delay=%dms conc=%d: %.0f req/s, p50 %.2f ms, p99 %.2f ms, non-200 %d%n",
+                engineName, delayMillis, concurrency, latencies.length / seconds,
+                latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+                errors.get());
+        
+        engine.stop();
+        pool.shutdown();
+        delay.shutdown();
+    }
+}
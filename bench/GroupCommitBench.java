@@ -0,0 +1,110 @@
+import com.minecraft.ssoplugin.storage.providers.GroupCommitWriter;
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SQLite写入压测，比较每次写入单独提交和组提交的吞吐量
+ * <p>
+ * 多个线程交替执行INSERT OR REPLACE和DELETE，覆盖5000个UUID。
+ * autocommit模式下所有线程在同一把锁上使用同一个写连接，每次写入单独提交（组提交之前的做法）；
+ * group模式下写入交给 {@link GroupCommitWriter}，积压的写入在同一个事务中提交。
+ * <p>
+ * 用法: GroupCommitBench &lt;autocommit|group&gt; &lt;线程数&gt; &lt;写入总数&gt; &lt;FULL|NORMAL&gt; &lt;数据库文件&gt;
+ */
+public class GroupCommitBench {
+    
+    private static final int KEYS = 5000;
+    private static final String UPSERT = "INSERT OR REPLACE INTO bench (uuid, value) VALUES (?, ?)";
+    private static final String DELETE = "DELETE FROM bench WHERE uuid = ?";
+    
+    public static void main(String[] args) throws Exception {
+        boolean group = args[0].equals("group");
+        int threads = Integer.parseInt(args[1]);
+        int operations = Integer.parseInt(args[2]);
+        String synchronous = args[3];
+        File file = new File(args[4]);
+        new File(file.getPath() + "-wal").delete();
+        new File(file.getPath() + "-shm").delete();
+        file.delete();
+        
+        // 与SQLiteProvider的写连接设置相同
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(synchronous));
+        config.setBusyTimeout(5000);
+        Connection connection = config.createConnection("jdbc:sqlite:" + file.getPath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE bench (uuid TEXT PRIMARY KEY, value TEXT)");
+        }
+        
+        UUID[] keys = new UUID[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = UUID.randomUUID();
+        }
+        
+        GroupCommitWriter writer = null;
+        if (group) {
+            writer = new GroupCommitWriter(connection, 256);
+            writer.start();
+        }
+        GroupCommitWriter groupWriter = writer;
+        
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < operations) {
+                    String key = keys[i % KEYS].toString();
+                    boolean upsert = (i / KEYS) % 2 == 0;
+                    GroupCommitWriter.WriteOperation<Integer> operation = c -> write(c, key, upsert);
+                    if (groupWriter != null) {
+                        groupWriter.execute(operation);
+                    } else {
+                        synchronized (connection) {
+                            operation.execute(connection);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        System.out.printf("%s synchronous=%s threads=%d: %.0f ops/s%n",
+                group ? "group" : "autocommit", synchronous, threads, operations / seconds);
+        
+        if (writer != null) {
+            writer.close();
+        }
+        pool.shutdown();
+        connection.close();
+    }
+    
+    private static int write(Connection connection, String key, boolean upsert) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(upsert ? UPSERT : DELETE)) {
+            statement.setString(1, key);
+            if (upsert) {
+                statement.setString(2, "token-" + key);
+            }
+            return statement.executeUpdate();
+        }
+    }
+}
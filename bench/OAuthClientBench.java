@@ -0,0 +1,132 @@
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.FileInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * OAuth令牌请求压测，比较每次请求新建HTTP客户端和共享一个HTTP客户端时的吞吐量和延迟
+ * <p>
+ * 本地启动一个模拟令牌端点（JDK HttpServer），客户端发送授权码换取令牌的POST请求。
+ * 客户端与GenericOAuthProvider相同：一个JDK HttpClient，在两个线程上处理响应，使用sendAsync发送请求。
+ * new-client模式每个请求新建一个客户端，每次都重新进行TCP和TLS握手；shared模式复用keep-alive连接，即插件实际的行为。
+ * 每种方式先完整跑一轮预热，第二轮的结果才输出。
+ * <p>
+ * 用法: OAuthClientBench &lt;http|https&gt; &lt;线程数&gt; &lt;请求数&gt;
+ * <p>
+ * https模式需要在当前目录准备 ks.p12（服务端证书）和 trust.p12（信任该证书），密码都是changeit。
+ */
+public class OAuthClientBench {
+    
+    private static final String PASSWORD = "changeit";
+    private static final String FORM = "grant_type=authorization_code&code=x&client_id=bench&client_secret=bench"
+            + "&redirect_uri=http%3A%2F%2Flocalhost%2Foauth%2Fcallback";
+    
+    public static void main(String[] args) throws Exception {
+        boolean tls = args[0].equals("https");
+        int threads = Integer.parseInt(args[1]);
+        int requests = Integer.parseInt(args[2]);
+        
+        // 模拟端点分两次写出响应头和响应体，不关闭Nagle算法时keep-alive连接上的每个请求都会多等一次延迟确认（约40ms）
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        
+        HttpServer server;
+        if (tls) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            try (FileInputStream in = new FileInputStream("ks.p12")) {
+                keyStore.load(in, PASSWORD.toCharArray());
+            }
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance("SunX509");
+            keyManagers.init(keyStore, PASSWORD.toCharArray());
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), null, null);
+            HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(context));
+            server = httpsServer;
+            System.setProperty("javax.net.ssl.trustStore", "trust.p12");
+            System.setProperty("javax.net.ssl.trustStorePassword", PASSWORD);
+        } else {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        }
+        
+        byte[] body = ("{\"access_token\":\"abc\",\"refresh_token\":\"def\",\"expires_in\":3600,"
+                + "\"token_type\":\"Bearer\"}").getBytes(StandardCharsets.UTF_8);
+        server.createContext("/token", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.start();
+        URI url = URI.create((tls ? "https" : "http") + "://localhost:" + server.getAddress().getPort() + "/token");
+        
+        // 与GenericOAuthProvider的默认设置相同
+        ExecutorService responseExecutor = Executors.newFixedThreadPool(2);
+        HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .executor(responseExecutor)
+                .connectTimeout(Duration.ofMillis(5000));
+        HttpClient shared = clientBuilder.build();
+        
+        for (int round = 0; round < 2; round++) {
+            for (String mode : new String[]{"new-client", "shared"}) {
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                long[] latencies = new long[requests];
+                List<Future<?>> futures = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int i = 0; i < requests; i++) {
+                    int index = i;
+                    futures.add(pool.submit(() -> {
+                        long sent = System.nanoTime();
+                        HttpClient client = mode.equals("shared") ? shared : clientBuilder.build();
+                        HttpRequest request = HttpRequest.newBuilder(url)
+                                .timeout(Duration.ofMillis(10000))
+                                .header("Accept", "application/json")
+                                .header("Content-Type", "application/x-www-form-urlencoded")
+                                .POST(HttpRequest.BodyPublishers.ofString(FORM))
+                                .build();
+                        HttpResponse<String> response = client.sendAsync(request,
+                                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).join();
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("HTTP " + response.statusCode());
+                        }
+                        latencies[index] = System.nanoTime() - sent;
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                long elapsed = System.nanoTime() - start;
+                pool.shutdown();
+                
+                Arrays.sort(latencies);
+                if (round == 1) {
+                    System.out.printf("%s %s threads=%d: %.0f req/s, p50 %.2f ms, p99 %.2f ms%n",
+                            args[0], mode, threads, requests * 1e9 / elapsed,
+                            latencies[requests / 2] / 1e6, latencies[requests * 99 / 100] / 1e6);
+                }
+            }
+        }
+        
+        server.stop(0);
+        System.exit(0);
+    }
+}
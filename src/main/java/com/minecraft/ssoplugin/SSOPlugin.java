@@ -7,10 +7,16 @@ import com.minecraft.ssoplugin.oauth.OAuthManager;
 import com.minecraft.ssoplugin.storage.StorageManager;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 /**
@@ -71,6 +77,11 @@ public class SSOPlugin extends JavaPlugin implements Listener {
             callbackServer.stop();
         }
         
+        // 关闭OAuth管理器
+        if (oauthManager != null) {
+            oauthManager.close();
+        }
+        
         // 关闭存储管理器
         if (storageManager != null) {
             storageManager.close();
@@ -91,6 +102,9 @@ public class SSOPlugin extends JavaPlugin implements Listener {
             return false;
         }
         
+        // 按新配置重建OAuth提供者
+        oauthManager.reload();
+        
         // 重启回调服务器
         if (callbackServer != null) {
             callbackServer.stop();
@@ -114,6 +128,29 @@ public class SSOPlugin extends JavaPlugin implements Listener {
         getLogger().log(level, message);
     }
     
+    /**
+     * 玩家异步预登录事件处理，在登录线程上预取绑定信息
+     * @param event 玩家异步预登录事件
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        
+        // 等待预取完成，使玩家加入时绑定信息已在缓存中
+        try {
+            storageManager.prefetchBinding(event.getUniqueId())
+                    .get(configManager.getPrefetchTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log(Level.WARNING, "预取玩家 " + event.getName() + " 的绑定信息超时");
+        } catch (ExecutionException e) {
+            log(Level.WARNING, "预取玩家 " + event.getName() + " 的绑定信息时出错: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
     /**
      * 玩家加入事件处理
      * @param event 玩家加入事件
@@ -122,10 +159,18 @@ public class SSOPlugin extends JavaPlugin implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         
-        // 更新玩家名称
-        if (storageManager.isPlayerBound(player.getUniqueId())) {
-            storageManager.updatePlayerName(player.getUniqueId(), player.getName());
-        }
+        // 只有预取到绑定信息的玩家才会更新名称，更新只写入缓存和延迟写入队列，名称未变化时直接跳过，不会阻塞主线程
+        storageManager.updatePlayerName(player.getUniqueId(), player.getName());
+    }
+    
+    /**
+     * 玩家退出事件处理
+     * @param event 玩家退出事件
+     */
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // 缓存只保留在线玩家的绑定信息
+        storageManager.evictCachedBinding(event.getPlayer().getUniqueId());
     }
     
     /**
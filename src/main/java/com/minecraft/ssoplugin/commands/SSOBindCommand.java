@@ -1,8 +1,22 @@
 package com.minecraft.ssoplugin.commands;
 
 import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.http.CallbackEngine;
+import com.minecraft.ssoplugin.oauth.AuthStateStore;
+import com.minecraft.ssoplugin.oauth.CallbackDeduplicator;
 import com.minecraft.ssoplugin.oauth.OAuthManager;
+import com.minecraft.ssoplugin.oauth.OAuthProvider;
+import com.minecraft.ssoplugin.oauth.PendingAuthStore;
+import com.minecraft.ssoplugin.oauth.ProviderMetrics;
+import com.minecraft.ssoplugin.oauth.ProviderRegistry;
+import com.minecraft.ssoplugin.oauth.SignedStateStore;
+import com.minecraft.ssoplugin.oauth.TokenRefreshScheduler;
+import com.minecraft.ssoplugin.storage.Binding;
+import com.minecraft.ssoplugin.storage.BindingCache;
+import com.minecraft.ssoplugin.storage.BindingCursor;
+import com.minecraft.ssoplugin.storage.BoundPlayerIndex;
 import com.minecraft.ssoplugin.storage.StorageManager;
+import com.minecraft.ssoplugin.storage.WriteBehindQueue;
 import com.minecraft.ssoplugin.utils.Utils;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -12,10 +26,16 @@ import org.bukkit.entity.Player;
 import org.json.JSONObject;
 
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 
@@ -24,7 +44,12 @@ import java.util.stream.Collectors;
  */
 public class SSOBindCommand implements CommandExecutor, TabCompleter {
     
+    // 每页显示的数量
+    private static final int LIST_PAGE_SIZE = 10;
+    
     private final SSOPlugin plugin;
+    // 每个查看者在绑定列表中已浏览过的页游标
+    private final Map<UUID, List<BindingCursor>> listCursors;
     
     /**
      * 构造函数
@@ -32,6 +57,7 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
      */
     public SSOBindCommand(SSOPlugin plugin) {
         this.plugin = plugin;
+        this.listCursors = new ConcurrentHashMap<>();
     }
     
     @Override
@@ -59,7 +85,7 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                     // 处理解绑命令
                     handleUnbindCommand(player, args);
                     return true;
-                    
+                
                 case "reload":
                     // 检查权限
                     if (!player.hasPermission("ssoplugin.admin")) {
@@ -70,7 +96,7 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                     // 处理重载命令
                     handleReloadCommand(player);
                     return true;
-                    
+                
                 case "status":
                     // 检查权限
                     if (!player.hasPermission("ssoplugin.admin")) {
@@ -81,7 +107,7 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                     // 处理状态命令
                     handleStatusCommand(player);
                     return true;
-                    
+                
                 case "list":
                     // 检查权限
                     if (!player.hasPermission("ssoplugin.admin")) {
@@ -92,7 +118,7 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                     // 处理列表命令
                     handleListCommand(player, args);
                     return true;
-                    
+                
                 case "info":
                     // 检查权限
                     if (!player.hasPermission("ssoplugin.admin")) {
@@ -103,8 +129,19 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                     // 处理信息命令
                     handleInfoCommand(player, args);
                     return true;
-                    
+                
                 default:
+                    // 子命令为提供者名称时，使用该提供者获取绑定地址
+                    if (plugin.getOAuthManager().getProviderRegistry().get(subCommand) != null) {
+                        if (!player.hasPermission("ssoplugin.bind")) {
+                            player.sendMessage(Utils.colorize(plugin.getConfigManager().getMessage("no_permission")));
+                            return true;
+                        }
+                        
+                        handleMainCommand(player, subCommand);
+                        return true;
+                    }
+                    
                     // 未知子命令
                     player.sendMessage("§c未知子命令！使用 /ssobind 查看帮助。");
                     return true;
@@ -117,8 +154,8 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
             return true;
         }
         
-        // 处理主命令（查看绑定状态或获取绑定地址）
-        handleMainCommand(player);
+        // 处理主命令（查看绑定状态或获取默认提供者的绑定地址）
+        handleMainCommand(player, null);
         return true;
     }
     
@@ -135,6 +172,12 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                 subCommands.add("unbind");
             }
             
+            // 配置了多个提供者时，添加可选择的提供者名称
+            ProviderRegistry registry = plugin.getOAuthManager().getProviderRegistry();
+            if (sender.hasPermission("ssoplugin.bind") && registry.names().size() > 1) {
+                subCommands.addAll(registry.names());
+            }
+            
             // 添加管理员子命令
             if (sender.hasPermission("ssoplugin.admin")) {
                 subCommands.add("reload");
@@ -170,18 +213,30 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
     /**
      * 处理主命令
      * @param player 玩家
+     * @param providerName 玩家选择的提供者名称，为null时使用默认提供者
      */
-    private void handleMainCommand(Player player) {
+    private void handleMainCommand(Player player, String providerName) {
         StorageManager storageManager = plugin.getStorageManager();
         UUID playerUuid = player.getUniqueId();
         
-        // 检查玩家是否已绑定
-        if (storageManager.isPlayerBound(playerUuid)) {
-            // 获取绑定信息
-            Map<String, Object> binding = storageManager.getBinding(playerUuid);
+        // 检查玩家是否已绑定，已绑定时一并获取绑定信息
+        CompletableFuture<BindingLookup> lookup = lookupBinding(storageManager, playerUuid);
+        
+        whenComplete(lookup, player, result -> showBindingStatus(player, result, providerName));
+    }
+    
+    /**
+     * 显示玩家的绑定状态或绑定地址
+     * @param player 玩家
+     * @param result 绑定查询结果
+     * @param providerName 玩家选择的提供者名称，为null时使用默认提供者
+     */
+    private void showBindingStatus(Player player, BindingLookup result, String providerName) {
+        if (result.isBound()) {
+            Binding binding = result.getBinding();
             if (binding != null) {
                 // 提取用户数据
-                String userData = (String) binding.get("user_data");
+                String userData = binding.getUserData();
                 JSONObject userDataJson = new JSONObject(userData);
                 
                 // 提取用户名和邮箱
@@ -199,7 +254,7 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
         } else {
             // 玩家未绑定，生成授权URL
             OAuthManager oauthManager = plugin.getOAuthManager();
-            String authUrl = oauthManager.generateAuthUrl(player);
+            String authUrl = oauthManager.generateAuthUrl(player, providerName);
             
             if (authUrl != null) {
                 // 显示未绑定消息
@@ -228,16 +283,16 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
                 // 目标玩家在线
                 UUID targetUuid = targetPlayer.getUniqueId();
                 
-                if (storageManager.isPlayerBound(targetUuid)) {
-                    if (storageManager.deleteBinding(targetUuid)) {
+                whenComplete(unbindIfBound(storageManager, targetUuid), player, deleted -> {
+                    if (deleted == null) {
+                        player.sendMessage("§c玩家 " + targetName + " 尚未绑定SSO账号。");
+                    } else if (deleted) {
                         player.sendMessage("§a成功解除玩家 " + targetName + " 的SSO账号绑定。");
                         targetPlayer.sendMessage(Utils.colorize(plugin.getConfigManager().getMessage("unbind_success")));
                     } else {
                         player.sendMessage("§c解除玩家 " + targetName + " 的SSO账号绑定失败，请检查数据库。");
                     }
-                } else {
-                    player.sendMessage("§c玩家 " + targetName + " 尚未绑定SSO账号。");
-                }
+                });
             } else {
                 // 目标玩家不在线，尝试通过名称查找
                 player.sendMessage("§c玩家 " + targetName + " 不在线，无法解绑。");
@@ -249,15 +304,41 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
         // 玩家解绑自己
         UUID playerUuid = player.getUniqueId();
         
-        if (storageManager.isPlayerBound(playerUuid)) {
-            if (storageManager.deleteBinding(playerUuid)) {
+        whenComplete(unbindIfBound(storageManager, playerUuid), player, deleted -> {
+            if (deleted == null) {
+                player.sendMessage("§c您尚未绑定SSO账号。");
+            } else if (deleted) {
                 player.sendMessage(Utils.colorize(plugin.getConfigManager().getMessage("unbind_success")));
             } else {
                 player.sendMessage("§c解除SSO账号绑定失败，请联系管理员。");
             }
-        } else {
-            player.sendMessage("§c您尚未绑定SSO账号。");
-        }
+        });
+    }
+    
+    /**
+     * 异步查询玩家绑定状态，已绑定时一并获取绑定信息
+     * @param storageManager 存储管理器
+     * @param playerUuid 玩家UUID
+     * @return 绑定查询结果
+     */
+    private CompletableFuture<BindingLookup> lookupBinding(StorageManager storageManager, UUID playerUuid) {
+        return storageManager.isPlayerBoundAsync(playerUuid)
+                .thenCompose(bound -> bound
+                        ? storageManager.getBindingAsync(playerUuid).thenApply(BindingLookup::bound)
+                        : CompletableFuture.completedFuture(BindingLookup.NOT_BOUND));
+    }
+    
+    /**
+     * 如果玩家已绑定则异步解除绑定
+     * @param storageManager 存储管理器
+     * @param playerUuid 玩家UUID
+     * @return 是否删除成功，玩家未绑定时为null
+     */
+    private CompletableFuture<Boolean> unbindIfBound(StorageManager storageManager, UUID playerUuid) {
+        return storageManager.isPlayerBoundAsync(playerUuid)
+                .thenCompose(bound -> bound
+                        ? storageManager.deleteBindingAsync(playerUuid)
+                        : CompletableFuture.completedFuture(null));
     }
     
     /**
@@ -280,11 +361,61 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
         player.sendMessage("§e===== SSO绑定插件状态 =====");
         player.sendMessage("§e插件版本: §f" + plugin.getDescription().getVersion());
         player.sendMessage("§e回调服务器: §f" + (plugin.getCallbackServer() != null ? "运行中" : "未运行"));
+        CallbackEngine callbackEngine = plugin.getCallbackServer() != null
+                ? plugin.getCallbackServer().getEngine() : null;
+        if (callbackEngine != null) {
+            player.sendMessage("§e回调服务器引擎: §f" + callbackEngine.getName() + ", 活动 "
+                    + callbackEngine.getActiveCount() + " 个, 排队 " + callbackEngine.getQueuedCount()
+                    + " 个, 已拒绝 " + callbackEngine.getRejectedCount() + " 次");
+        }
         player.sendMessage("§e回调端口: §f" + plugin.getConfigManager().getCallbackPort());
         player.sendMessage("§e回调路径: §f" + plugin.getConfigManager().getCallbackPath());
         player.sendMessage("§e外部URL: §f" + plugin.getConfigManager().getExternalUrl());
         player.sendMessage("§e数据库类型: §f" + plugin.getConfigManager().getDatabaseType());
-        player.sendMessage("§eOAuth提供者: §f" + plugin.getConfigManager().getOAuthProvider());
+        
+        ProviderRegistry registry = plugin.getOAuthManager().getProviderRegistry();
+        for (OAuthProvider provider : registry.all()) {
+            ProviderMetrics metrics = provider.getMetrics();
+            player.sendMessage("§eOAuth提供者: §f" + provider.getName()
+                    + (provider == registry.getDefault() ? " (默认)" : "") + ", 请求 " + metrics.getRequestCount()
+                    + " 次, 失败 " + metrics.getFailureCount() + " 次, 平均耗时 "
+                    + metrics.getAverageLatencyMillis() + " ms");
+        }
+        
+        BindingCache cache = plugin.getStorageManager().getCache();
+        player.sendMessage("§e绑定缓存: §f" + cache.size() + " 条, 命中 " + cache.getHits()
+                + " 次, 未命中 " + cache.getMisses() + " 次 ("
+                + String.format("%.1f%%", cache.getHitRate() * 100) + ")");
+        
+        WriteBehindQueue writeBehind = plugin.getStorageManager().getWriteBehindQueue();
+        player.sendMessage("§e延迟写入: §f待写入 " + writeBehind.getPendingCount() + " 个玩家, 已合并 "
+                + writeBehind.getCoalescedCount() + " 次, 已写入 " + writeBehind.getWrittenCount() + " 行");
+        
+        AuthStateStore stateStore = plugin.getOAuthManager().getAuthStateStore();
+        if (stateStore instanceof SignedStateStore) {
+            player.sendMessage("§e待处理认证: §f无状态, 重放缓存 " + stateStore.size() + " 个, 已过期 "
+                    + stateStore.getExpiredCount() + " 个, 已拒绝 " + ((SignedStateStore) stateStore).getRejectedCount() + " 个");
+        } else {
+            player.sendMessage("§e待处理认证: §f" + stateStore.size() + " 个, 已过期 " + stateStore.getExpiredCount()
+                    + " 个, 超出上限 " + ((PendingAuthStore) stateStore).getEvictedCount() + " 个");
+        }
+        
+        CallbackDeduplicator deduplicator = plugin.getOAuthManager().getCallbackDeduplicator();
+        player.sendMessage("§e回调去重: §f记录 " + deduplicator.size() + " 个, 已合并重复回调 "
+                + deduplicator.getDuplicateCount() + " 次");
+        
+        TokenRefreshScheduler refreshScheduler = plugin.getOAuthManager().getRefreshScheduler();
+        player.sendMessage("§e令牌刷新: §f" + (refreshScheduler != null
+                ? "队列 " + refreshScheduler.getQueueSize() + " 个, 进行中 " + refreshScheduler.getInFlightCount()
+                        + " 个, 成功 " + refreshScheduler.getRefreshedCount() + " 次, 失败 " + refreshScheduler.getFailedCount()
+                        + " 次, 平均耗时 " + String.format("%.1f", refreshScheduler.getAverageLatencyMillis())
+                        + " ms, 最大耗时 " + String.format("%.1f", refreshScheduler.getMaxLatencyMillis()) + " ms"
+                : "未启用"));
+        
+        BoundPlayerIndex boundIndex = plugin.getStorageManager().getBoundIndex();
+        player.sendMessage("§eUUID索引: §f" + (boundIndex != null
+                ? boundIndex.size() + " 条, 占用 " + (boundIndex.getMemoryUsage() / 1024) + " KB"
+                : "未启用"));
     }
     
     /**
@@ -307,13 +438,63 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
             }
         }
         
-        // 每页显示的数量
-        int pageSize = 10;
+        // 从第一页重新浏览时丢弃旧的游标
+        if (page == 1) {
+            listCursors.remove(player.getUniqueId());
+        }
+        List<BindingCursor> cursors = listCursors.computeIfAbsent(player.getUniqueId(),
+                uuid -> Collections.synchronizedList(new ArrayList<>()));
         
         // 获取绑定列表
-        StorageManager storageManager = plugin.getStorageManager();
-        List<Map<String, Object>> bindings = storageManager.getAllBindings(page, pageSize);
+        int currentPage = page;
+        whenComplete(loadListPage(cursors, page), player,
+                bindings -> showBindingList(player, currentPage, bindings));
+    }
+    
+    /**
+     * 加载绑定列表的一页
+     * <p>
+     * 从最近一个已知的页游标开始按索引向后读取；跳过未浏览过的页时逐页前进并记录游标，
+     * 之后再次翻到这些页时不需要重新读取前面的页。
+     * @param cursors 查看者已知的页游标，第i个元素指向第i+1页的末尾
+     * @param page 页码
+     * @return 绑定信息列表，页码超出范围时为空
+     */
+    private CompletableFuture<List<Binding>> loadListPage(List<BindingCursor> cursors, int page) {
+        int known;
+        BindingCursor after;
+        synchronized (cursors) {
+            known = Math.min(page - 1, cursors.size());
+            after = known == 0 ? null : cursors.get(known - 1);
+        }
         
+        return plugin.getStorageManager().getBindingsAfterAsync(after, LIST_PAGE_SIZE).thenCompose(bindings -> {
+            boolean full = bindings.size() == LIST_PAGE_SIZE;
+            if (full) {
+                synchronized (cursors) {
+                    if (cursors.size() == known) {
+                        cursors.add(BindingCursor.after(bindings.get(bindings.size() - 1)));
+                    }
+                }
+            }
+            
+            if (known + 1 == page) {
+                return CompletableFuture.completedFuture(bindings);
+            }
+            if (!full) {
+                return CompletableFuture.completedFuture(Collections.emptyList());
+            }
+            return loadListPage(cursors, page);
+        });
+    }
+    
+    /**
+     * 显示绑定列表
+     * @param player 玩家
+     * @param page 页码
+     * @param bindings 绑定信息列表
+     */
+    private void showBindingList(Player player, int page, List<Binding> bindings) {
         if (bindings.isEmpty()) {
             player.sendMessage("§c没有找到绑定记录。");
             return;
@@ -321,10 +502,10 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
         
         player.sendMessage("§e===== SSO绑定列表 (第 " + page + " 页) =====");
         
-        for (Map<String, Object> binding : bindings) {
-            String playerName = (String) binding.get("player_name");
-            String ssoId = (String) binding.get("sso_id");
-            String userData = (String) binding.get("user_data");
+        for (Binding binding : bindings) {
+            String playerName = binding.getPlayerName();
+            String ssoId = binding.getSsoId();
+            String userData = binding.getUserData();
             
             // 提取用户名
             String username = "未知用户";
@@ -365,23 +546,39 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
         UUID targetUuid = targetPlayer.getUniqueId();
         StorageManager storageManager = plugin.getStorageManager();
         
-        if (!storageManager.isPlayerBound(targetUuid)) {
+        CompletableFuture<BindingLookup> lookup = lookupBinding(storageManager, targetUuid);
+        
+        whenComplete(lookup, player, result -> showBindingInfo(player, targetName, result));
+    }
+    
+    /**
+     * 显示玩家的绑定信息
+     * @param player 查看信息的玩家
+     * @param targetName 目标玩家名称
+     * @param result 绑定查询结果
+     */
+    private void showBindingInfo(Player player, String targetName, BindingLookup result) {
+        if (!result.isBound()) {
             player.sendMessage("§c玩家 " + targetName + " 尚未绑定SSO账号。");
             return;
         }
         
-        Map<String, Object> binding = storageManager.getBinding(targetUuid);
+        Binding binding = result.getBinding();
         if (binding == null) {
             player.sendMessage("§c无法获取玩家 " + targetName + " 的绑定信息。");
             return;
         }
         
-        String ssoId = (String) binding.get("sso_id");
-        String userData = (String) binding.get("user_data");
-        Timestamp createdAt = (Timestamp) binding.get("created_at");
+        String ssoId = binding.getSsoId();
+        String userData = binding.getUserData();
+        Instant createdAt = binding.getCreatedAt();
         
         player.sendMessage("§e===== 玩家 " + targetName + " 的绑定信息 =====");
         player.sendMessage("§eSSO ID: §f" + ssoId);
+        OAuthProvider provider = plugin.getOAuthManager().getProviderRegistry().forSsoId(ssoId);
+        if (provider != null) {
+            player.sendMessage("§eSSO提供者: §f" + provider.getName());
+        }
         
         // 提取用户数据
         if (userData != null && !userData.isEmpty()) {
@@ -410,7 +607,53 @@ public class SSOBindCommand implements CommandExecutor, TabCompleter {
         }
         
         if (createdAt != null) {
-            player.sendMessage("§e绑定时间: §f" + createdAt);
+            player.sendMessage("§e绑定时间: §f" + Timestamp.from(createdAt));
+        }
+    }
+    
+    /**
+     * 在异步数据库操作完成后回到主线程处理结果
+     * @param future 异步操作
+     * @param player 发起操作的玩家
+     * @param action 结果处理
+     * @param <T> 结果类型
+     */
+    private <T> void whenComplete(CompletableFuture<T> future, Player player, Consumer<T> action) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                plugin.log(Level.SEVERE, "执行数据库操作时出错: " + error.getMessage());
+                player.sendMessage("§c数据库繁忙，请稍后重试。");
+                return;
+            }
+            
+            action.accept(result);
+        }, plugin.getStorageManager().getMainThreadExecutor());
+    }
+    
+    /**
+     * 绑定查询结果
+     */
+    private static class BindingLookup {
+        private static final BindingLookup NOT_BOUND = new BindingLookup(false, null);
+        
+        private final boolean bound;
+        private final Binding binding;
+        
+        private BindingLookup(boolean bound, Binding binding) {
+            this.bound = bound;
+            this.binding = binding;
+        }
+        
+        public static BindingLookup bound(Binding binding) {
+            return new BindingLookup(true, binding);
+        }
+        
+        public boolean isBound() {
+            return bound;
+        }
+        
+        public Binding getBinding() {
+            return binding;
         }
     }
 }
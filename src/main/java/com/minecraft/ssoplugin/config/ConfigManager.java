@@ -5,16 +5,29 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 
 /**
  * 配置管理器类，负责管理插件配置
  */
 public class ConfigManager {
     
+    // 未配置oauth.providers时唯一提供者的名称
+    public static final String DEFAULT_PROVIDER_NAME = "default";
+    private static final Pattern PROVIDER_NAME_PATTERN = Pattern.compile("[a-z0-9_-]{1,32}");
+    // 提供者名称会作为子命令使用，不能与已有的子命令重名
+    private static final Set<String> RESERVED_PROVIDER_NAMES = new HashSet<>(
+            Arrays.asList("unbind", "reload", "status", "list", "info"));
+    
     private final SSOPlugin plugin;
     private FileConfiguration config;
     
@@ -23,15 +36,33 @@ public class ConfigManager {
     private String callbackPath;
     private String externalUrl;
     private String redirectUri;
+    private int callbackDedupTtl;
+    private int callbackDedupMaxSize;
+    private String callbackEngine;
+    private int callbackThreads;
+    private int callbackQueueSize;
+    private int callbackRetryAfter;
+    private boolean callbackVirtualThreads;
+    private boolean callbackGzip;
+    private boolean callbackAsync;
+    private boolean metricsEnabled;
+    private String metricsPath;
+    private int metricsPort;
+    private String metricsBindAddress;
     
     // OAuth2设置
-    private String oauthProvider;
-    private String authUrl;
-    private String tokenUrl;
-    private String userInfoUrl;
-    private String clientId;
-    private String clientSecret;
-    private String scope;
+    private Map<String, ProviderSettings> providers;
+    private String defaultProvider;
+    private int pendingAuthTtl;
+    private int pendingAuthMaxPerPlayer;
+    private boolean pendingAuthStateless;
+    private String pendingAuthSecret;
+    private boolean tokenRefreshEnabled;
+    private int tokenRefreshBefore;
+    private int tokenRefreshJitter;
+    private int tokenRefreshMaxConcurrent;
+    private int tokenRefreshMaxFailures;
+    private int tokenRefreshRetryInterval;
     
     // 用户数据字段
     private String idField;
@@ -42,6 +73,12 @@ public class ConfigManager {
     // 数据库设置
     private String databaseType;
     private String sqliteFile;
+    private int sqliteReadPoolSize;
+    private String sqliteSynchronous;
+    private int sqliteCacheSize;
+    private long sqliteMmapSize;
+    private int sqliteBusyTimeout;
+    private int sqliteGroupCommitMaxBatch;
     private String mysqlHost;
     private int mysqlPort;
     private String mysqlDatabase;
@@ -50,6 +87,16 @@ public class ConfigManager {
     private int mysqlMaxPoolSize;
     private int mysqlMinIdle;
     private int mysqlIdleTimeout;
+    private int databaseExecutorThreads;
+    private int databaseExecutorQueueSize;
+    private int cacheMaxSize;
+    private int cacheTtl;
+    private boolean uuidIndexEnabled;
+    private int prefetchWindow;
+    private int prefetchMaxBatch;
+    private int prefetchTimeout;
+    private int writeBehindInterval;
+    private int writeBehindBatchSize;
     
     // 消息设置
     private Map<String, String> messages;
@@ -104,12 +151,47 @@ public class ConfigManager {
             callbackPath = settings.getString("callback_path", "/oauth/callback");
             externalUrl = settings.getString("external_url", "http://localhost:" + callbackPort);
             redirectUri = externalUrl + callbackPath;
+            callbackDedupTtl = Math.max(1, settings.getInt("callback_dedup_ttl", 300));
+            callbackDedupMaxSize = Math.max(1, settings.getInt("callback_dedup_max_size", 1024));
+            callbackEngine = settings.getString("callback_engine", "jdk");
+            callbackThreads = Math.max(1, settings.getInt("callback_threads", 4));
+            callbackQueueSize = Math.max(1, settings.getInt("callback_queue_size", 64));
+            callbackRetryAfter = Math.max(1, settings.getInt("callback_retry_after", 5));
+            callbackVirtualThreads = settings.getBoolean("callback_virtual_threads", false);
+            callbackGzip = settings.getBoolean("callback_gzip", true);
+            callbackAsync = settings.getBoolean("callback_async", true);
+            
+            ConfigurationSection metrics = settings.getConfigurationSection("metrics");
+            if (metrics != null) {
+                metricsEnabled = metrics.getBoolean("enabled", false);
+                metricsPath = metrics.getString("path", "/metrics");
+                metricsPort = metrics.getInt("port", 0);
+                metricsBindAddress = metrics.getString("bind_address", "127.0.0.1");
+            } else {
+                metricsEnabled = false;
+                metricsPath = "/metrics";
+                metricsPort = 0;
+                metricsBindAddress = "127.0.0.1";
+            }
         } else {
             // 使用默认值
             callbackPort = 8080;
             callbackPath = "/oauth/callback";
             externalUrl = "http://localhost:" + callbackPort;
             redirectUri = externalUrl + callbackPath;
+            callbackDedupTtl = 300;
+            callbackDedupMaxSize = 1024;
+            callbackEngine = "jdk";
+            callbackThreads = 4;
+            callbackQueueSize = 64;
+            callbackRetryAfter = 5;
+            callbackVirtualThreads = false;
+            callbackGzip = true;
+            callbackAsync = true;
+            metricsEnabled = false;
+            metricsPath = "/metrics";
+            metricsPort = 0;
+            metricsBindAddress = "127.0.0.1";
         }
     }
     
@@ -119,26 +201,101 @@ public class ConfigManager {
     private void loadOAuth2Settings() {
         ConfigurationSection oauth = config.getConfigurationSection("oauth");
         
+        // 加载SSO提供者
+        loadProviders(oauth);
+        
         if (oauth != null) {
-            oauthProvider = oauth.getString("provider", "generic");
-            authUrl = oauth.getString("auth_url");
-            tokenUrl = oauth.getString("token_url");
-            userInfoUrl = oauth.getString("userinfo_url");
-            clientId = oauth.getString("client_id");
-            clientSecret = oauth.getString("client_secret");
-            scope = oauth.getString("scope");
+            // 绑定链接设置
+            ConfigurationSection pendingAuth = oauth.getConfigurationSection("pending_auth");
+            if (pendingAuth != null) {
+                pendingAuthTtl = Math.max(30, pendingAuth.getInt("ttl", 600));
+                pendingAuthMaxPerPlayer = Math.max(1, pendingAuth.getInt("max_per_player", 3));
+                pendingAuthStateless = pendingAuth.getBoolean("stateless", false);
+                pendingAuthSecret = pendingAuth.getString("secret", "");
+            } else {
+                setDefaultPendingAuthSettings();
+            }
+            
+            // 令牌刷新设置
+            ConfigurationSection refresh = oauth.getConfigurationSection("token_refresh");
+            if (refresh != null) {
+                tokenRefreshEnabled = refresh.getBoolean("enabled", true);
+                tokenRefreshBefore = Math.max(0, refresh.getInt("refresh_before", 300));
+                tokenRefreshJitter = Math.max(0, refresh.getInt("jitter", 60));
+                tokenRefreshMaxConcurrent = Math.max(1, refresh.getInt("max_concurrent", 4));
+                tokenRefreshMaxFailures = Math.max(1, refresh.getInt("max_failures", 5));
+                tokenRefreshRetryInterval = Math.max(1, refresh.getInt("retry_interval", 60));
+            } else {
+                setDefaultTokenRefreshSettings();
+            }
         } else {
             // 使用默认值
-            oauthProvider = "generic";
-            authUrl = "";
-            tokenUrl = "";
-            userInfoUrl = "";
-            clientId = "";
-            clientSecret = "";
-            scope = "";
+            setDefaultPendingAuthSettings();
+            setDefaultTokenRefreshSettings();
+        }
+    }
+    
+    /**
+     * 加载SSO提供者
+     * <p>
+     * 配置了oauth.providers时，其中每个节都是一个提供者，oauth.default_provider指定默认提供者；
+     * 否则oauth节本身就是名为default的唯一提供者，oauth.provider为其类型。
+     * @param oauth OAuth2配置节
+     */
+    private void loadProviders(ConfigurationSection oauth) {
+        providers = new LinkedHashMap<>();
+        ConfigurationSection section = oauth != null ? oauth.getConfigurationSection("providers") : null;
+        
+        if (section != null) {
+            for (String name : section.getKeys(false)) {
+                ConfigurationSection providerSection = section.getConfigurationSection(name);
+                String key = name.toLowerCase(Locale.ROOT);
+                if (providerSection == null || !PROVIDER_NAME_PATTERN.matcher(key).matches()
+                        || RESERVED_PROVIDER_NAMES.contains(key)) {
+                    plugin.log(Level.WARNING, "忽略无效的SSO提供者名称: " + name);
+                    continue;
+                }
+                providers.put(key, ProviderSettings.load(key, providerSection, "type"));
+            }
+        }
+        
+        if (providers.isEmpty()) {
+            providers.put(DEFAULT_PROVIDER_NAME, ProviderSettings.load(DEFAULT_PROVIDER_NAME, oauth, "provider"));
+            defaultProvider = DEFAULT_PROVIDER_NAME;
+            return;
+        }
+        
+        defaultProvider = oauth.getString("default_provider", "").toLowerCase(Locale.ROOT);
+        if (!providers.containsKey(defaultProvider)) {
+            if (!defaultProvider.isEmpty()) {
+                plugin.log(Level.WARNING, "默认SSO提供者不存在: " + defaultProvider);
+            }
+            defaultProvider = providers.keySet().iterator().next();
         }
     }
     
+    /**
+     * 使用默认的绑定链接设置
+     */
+    private void setDefaultPendingAuthSettings() {
+        pendingAuthTtl = 600;
+        pendingAuthMaxPerPlayer = 3;
+        pendingAuthStateless = false;
+        pendingAuthSecret = "";
+    }
+    
+    /**
+     * 使用默认的令牌刷新设置
+     */
+    private void setDefaultTokenRefreshSettings() {
+        tokenRefreshEnabled = true;
+        tokenRefreshBefore = 300;
+        tokenRefreshJitter = 60;
+        tokenRefreshMaxConcurrent = 4;
+        tokenRefreshMaxFailures = 5;
+        tokenRefreshRetryInterval = 60;
+    }
+    
     /**
      * 加载用户数据字段
      */
@@ -189,8 +346,15 @@ public class ConfigManager {
             ConfigurationSection sqlite = database.getConfigurationSection("sqlite");
             if (sqlite != null) {
                 sqliteFile = sqlite.getString("file", plugin.getDataFolder().getAbsolutePath() + "/database.db");
+                sqliteReadPoolSize = Math.max(1, sqlite.getInt("read_pool_size", 4));
+                sqliteSynchronous = sqlite.getString("synchronous", "NORMAL");
+                sqliteCacheSize = sqlite.getInt("cache_size", 8192);
+                sqliteMmapSize = sqlite.getLong("mmap_size", 64L * 1024 * 1024);
+                sqliteBusyTimeout = Math.max(0, sqlite.getInt("busy_timeout", 5000));
+                sqliteGroupCommitMaxBatch = Math.max(1, sqlite.getInt("group_commit_max_batch", 256));
             } else {
                 sqliteFile = plugin.getDataFolder().getAbsolutePath() + "/database.db";
+                setDefaultSqliteTuning();
             }
             
             // MySQL设置
@@ -214,10 +378,50 @@ public class ConfigManager {
                 mysqlMinIdle = 5;
                 mysqlIdleTimeout = 30000;
             }
+            
+            // 数据库异步执行器设置
+            databaseExecutorThreads = Math.max(1, database.getInt("executor_threads", 4));
+            databaseExecutorQueueSize = Math.max(1, database.getInt("executor_queue_size", 1000));
+            
+            // 已绑定玩家UUID索引设置，MySQL可能被多个服务器共用，其他服务器上的绑定不会出现在索引中，不使用索引
+            uuidIndexEnabled = !databaseType.equalsIgnoreCase("mysql") && database.getBoolean("uuid_index", true);
+            
+            // 登录预取设置
+            ConfigurationSection prefetch = database.getConfigurationSection("prefetch");
+            if (prefetch != null) {
+                prefetchWindow = Math.max(0, prefetch.getInt("window", 50));
+                prefetchMaxBatch = Math.max(1, prefetch.getInt("max_batch", 100));
+                prefetchTimeout = Math.max(0, prefetch.getInt("timeout", 3000));
+            } else {
+                prefetchWindow = 50;
+                prefetchMaxBatch = 100;
+                prefetchTimeout = 3000;
+            }
+            
+            // 延迟写入设置
+            ConfigurationSection writeBehind = database.getConfigurationSection("write_behind");
+            if (writeBehind != null) {
+                writeBehindInterval = Math.max(100, writeBehind.getInt("flush_interval", 5000));
+                writeBehindBatchSize = Math.max(1, writeBehind.getInt("batch_size", 500));
+            } else {
+                writeBehindInterval = 5000;
+                writeBehindBatchSize = 500;
+            }
+            
+            // 绑定缓存设置
+            ConfigurationSection cache = database.getConfigurationSection("cache");
+            if (cache != null) {
+                cacheMaxSize = Math.max(1, cache.getInt("max_size", 1000));
+                cacheTtl = Math.max(1, cache.getInt("ttl", 1800));
+            } else {
+                cacheMaxSize = 1000;
+                cacheTtl = 1800;
+            }
         } else {
             // 使用默认值
             databaseType = "sqlite";
             sqliteFile = plugin.getDataFolder().getAbsolutePath() + "/database.db";
+            setDefaultSqliteTuning();
             mysqlHost = "localhost";
             mysqlPort = 3306;
             mysqlDatabase = "minecraft_sso";
@@ -226,9 +430,31 @@ public class ConfigManager {
             mysqlMaxPoolSize = 10;
             mysqlMinIdle = 5;
             mysqlIdleTimeout = 30000;
+            databaseExecutorThreads = 4;
+            databaseExecutorQueueSize = 1000;
+            cacheMaxSize = 1000;
+            cacheTtl = 1800;
+            uuidIndexEnabled = true;
+            prefetchWindow = 50;
+            prefetchMaxBatch = 100;
+            prefetchTimeout = 3000;
+            writeBehindInterval = 5000;
+            writeBehindBatchSize = 500;
         }
     }
     
+    /**
+     * 使用默认的SQLite调优设置
+     */
+    private void setDefaultSqliteTuning() {
+        sqliteReadPoolSize = 4;
+        sqliteSynchronous = "NORMAL";
+        sqliteCacheSize = 8192;
+        sqliteMmapSize = 64L * 1024 * 1024;
+        sqliteBusyTimeout = 5000;
+        sqliteGroupCommitMaxBatch = 256;
+    }
+    
     /**
      * 加载消息设置
      */
@@ -301,59 +527,203 @@ public class ConfigManager {
     }
     
     /**
-     * 获取OAuth提供者
-     * @return OAuth提供者
+     * 获取重复回调记录的有效期（秒）
+     * @return 重复回调记录的有效期（秒）
+     */
+    public int getCallbackDedupTtl() {
+        return callbackDedupTtl;
+    }
+    
+    /**
+     * 获取最多保存的回调记录数
+     * @return 最多保存的回调记录数
+     */
+    public int getCallbackDedupMaxSize() {
+        return callbackDedupMaxSize;
+    }
+    
+    /**
+     * 获取回调服务器引擎
+     * @return 回调服务器引擎（jdk或nio）
+     */
+    public String getCallbackEngine() {
+        return callbackEngine;
+    }
+    
+    /**
+     * 获取回调服务器的最大线程数
+     * @return 最大线程数
+     */
+    public int getCallbackThreads() {
+        return callbackThreads;
+    }
+    
+    /**
+     * 获取回调服务器的等待队列长度
+     * @return 等待队列长度
+     */
+    public int getCallbackQueueSize() {
+        return callbackQueueSize;
+    }
+    
+    /**
+     * 获取回调服务器繁忙时建议客户端重试的等待时间（秒）
+     * @return 重试等待时间（秒）
+     */
+    public int getCallbackRetryAfter() {
+        return callbackRetryAfter;
+    }
+    
+    /**
+     * 是否在Java 21及以上版本使用虚拟线程处理回调
+     * @return 是否使用虚拟线程
+     */
+    public boolean isCallbackVirtualThreads() {
+        return callbackVirtualThreads;
+    }
+    
+    /**
+     * 是否向支持gzip的浏览器返回压缩后的回调页面
+     * @return 是否启用gzip
+     */
+    public boolean isCallbackGzip() {
+        return callbackGzip;
+    }
+    
+    /**
+     * 是否在后台完成绑定，回调请求立即返回处理中页面
+     * @return 是否后台绑定
+     */
+    public boolean isCallbackAsync() {
+        return callbackAsync;
+    }
+    
+    /**
+     * 是否启用Prometheus指标接口
+     * @return 是否启用指标接口
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    
+    /**
+     * 获取指标接口路径
+     * @return 指标接口路径
+     */
+    public String getMetricsPath() {
+        return metricsPath;
+    }
+    
+    /**
+     * 获取指标接口单独监听的端口
+     * @return 端口，0表示与回调服务器共用端口
+     */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+    
+    /**
+     * 获取指标接口单独监听时绑定的地址
+     * @return 绑定地址，空字符串表示所有地址
+     */
+    public String getMetricsBindAddress() {
+        return metricsBindAddress;
+    }
+    
+    /**
+     * 获取所有SSO提供者设置，按配置顺序排列
+     * @return 提供者名称到设置的映射
+     */
+    public Map<String, ProviderSettings> getProviders() {
+        return providers;
+    }
+    
+    /**
+     * 获取默认SSO提供者名称
+     * @return 默认提供者名称
+     */
+    public String getDefaultProviderName() {
+        return defaultProvider;
+    }
+    
+    /**
+     * 获取绑定链接的有效期（秒）
+     * @return 绑定链接的有效期（秒）
+     */
+    public int getPendingAuthTtl() {
+        return pendingAuthTtl;
+    }
+    
+    /**
+     * 获取每个玩家同时有效的绑定链接数上限
+     * @return 每个玩家同时有效的绑定链接数上限
+     */
+    public int getPendingAuthMaxPerPlayer() {
+        return pendingAuthMaxPerPlayer;
+    }
+    
+    /**
+     * 是否使用带签名的无状态状态参数
+     * @return 是否使用无状态状态参数
      */
-    public String getOAuthProvider() {
-        return oauthProvider;
+    public boolean isPendingAuthStateless() {
+        return pendingAuthStateless;
     }
     
     /**
-     * 获取授权URL
-     * @return 授权URL
+     * 获取无状态状态参数的签名密钥
+     * @return 签名密钥，为空时每次启动随机生成
      */
-    public String getAuthUrl() {
-        return authUrl;
+    public String getPendingAuthSecret() {
+        return pendingAuthSecret;
     }
     
     /**
-     * 获取令牌URL
-     * @return 令牌URL
+     * 检查是否启用后台令牌刷新
+     * @return 是否启用
      */
-    public String getTokenUrl() {
-        return tokenUrl;
+    public boolean isTokenRefreshEnabled() {
+        return tokenRefreshEnabled;
     }
     
     /**
-     * 获取用户信息URL
-     * @return 用户信息URL
+     * 获取令牌过期前多久开始刷新（秒）
+     * @return 令牌过期前多久开始刷新（秒）
      */
-    public String getUserInfoUrl() {
-        return userInfoUrl;
+    public int getTokenRefreshBefore() {
+        return tokenRefreshBefore;
     }
     
     /**
-     * 获取客户端ID
-     * @return 客户端ID
+     * 获取令牌刷新时间的随机抖动范围（秒）
+     * @return 令牌刷新时间的随机抖动范围（秒）
      */
-    public String getClientId() {
-        return clientId;
+    public int getTokenRefreshJitter() {
+        return tokenRefreshJitter;
     }
     
     /**
-     * 获取客户端密钥
-     * @return 客户端密钥
+     * 获取同时进行的令牌刷新请求数上限
+     * @return 同时进行的令牌刷新请求数上限
      */
-    public String getClientSecret() {
-        return clientSecret;
+    public int getTokenRefreshMaxConcurrent() {
+        return tokenRefreshMaxConcurrent;
     }
     
     /**
-     * 获取作用域
-     * @return 作用域
+     * 获取令牌连续刷新失败多少次后停止重试
+     * @return 最大连续失败次数
      */
-    public String getScope() {
-        return scope;
+    public int getTokenRefreshMaxFailures() {
+        return tokenRefreshMaxFailures;
+    }
+    
+    /**
+     * 获取令牌刷新失败后首次重试的间隔（秒）
+     * @return 令牌刷新失败后首次重试的间隔（秒）
+     */
+    public int getTokenRefreshRetryInterval() {
+        return tokenRefreshRetryInterval;
     }
     
     /**
@@ -404,6 +774,54 @@ public class ConfigManager {
         return sqliteFile;
     }
     
+    /**
+     * 获取SQLite只读连接池大小
+     * @return SQLite只读连接池大小
+     */
+    public int getSqliteReadPoolSize() {
+        return sqliteReadPoolSize;
+    }
+    
+    /**
+     * 获取SQLite同步模式
+     * @return SQLite同步模式
+     */
+    public String getSqliteSynchronous() {
+        return sqliteSynchronous;
+    }
+    
+    /**
+     * 获取SQLite每个连接的页缓存大小（KB）
+     * @return SQLite页缓存大小
+     */
+    public int getSqliteCacheSize() {
+        return sqliteCacheSize;
+    }
+    
+    /**
+     * 获取SQLite内存映射大小（字节）
+     * @return SQLite内存映射大小
+     */
+    public long getSqliteMmapSize() {
+        return sqliteMmapSize;
+    }
+    
+    /**
+     * 获取SQLite忙等待超时时间（毫秒）
+     * @return SQLite忙等待超时时间
+     */
+    public int getSqliteBusyTimeout() {
+        return sqliteBusyTimeout;
+    }
+    
+    /**
+     * 获取SQLite单个事务最多合并的写操作数
+     * @return SQLite单个事务最多合并的写操作数
+     */
+    public int getSqliteGroupCommitMaxBatch() {
+        return sqliteGroupCommitMaxBatch;
+    }
+    
     /**
      * 获取MySQL主机
      * @return MySQL主机
@@ -468,6 +886,86 @@ public class ConfigManager {
         return mysqlIdleTimeout;
     }
     
+    /**
+     * 获取数据库异步执行器线程数
+     * @return 数据库异步执行器线程数
+     */
+    public int getDatabaseExecutorThreads() {
+        return databaseExecutorThreads;
+    }
+    
+    /**
+     * 获取数据库异步执行器队列长度
+     * @return 数据库异步执行器队列长度
+     */
+    public int getDatabaseExecutorQueueSize() {
+        return databaseExecutorQueueSize;
+    }
+    
+    /**
+     * 获取绑定缓存最大条目数
+     * @return 绑定缓存最大条目数
+     */
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+    
+    /**
+     * 获取绑定缓存存活时间（秒）
+     * @return 绑定缓存存活时间
+     */
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+    
+    /**
+     * 是否启用已绑定玩家UUID索引，使用MySQL时始终不启用
+     * @return 是否启用已绑定玩家UUID索引
+     */
+    public boolean isUuidIndexEnabled() {
+        return uuidIndexEnabled;
+    }
+    
+    /**
+     * 获取登录预取合并窗口（毫秒）
+     * @return 登录预取合并窗口
+     */
+    public int getPrefetchWindow() {
+        return prefetchWindow;
+    }
+    
+    /**
+     * 获取登录预取单次批量查询的最大玩家数
+     * @return 登录预取单次批量查询的最大玩家数
+     */
+    public int getPrefetchMaxBatch() {
+        return prefetchMaxBatch;
+    }
+    
+    /**
+     * 获取登录预取等待超时时间（毫秒）
+     * @return 登录预取等待超时时间
+     */
+    public int getPrefetchTimeout() {
+        return prefetchTimeout;
+    }
+    
+    /**
+     * 获取延迟写入间隔（毫秒）
+     * @return 延迟写入间隔
+     */
+    public int getWriteBehindInterval() {
+        return writeBehindInterval;
+    }
+    
+    /**
+     * 获取触发立即写入的待写入玩家数
+     * @return 触发立即写入的待写入玩家数
+     */
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+    
     /**
      * 获取消息
      * @param key 消息键
@@ -0,0 +1,232 @@
+package com.minecraft.ssoplugin.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * OAuth提供者设置类，保存单个SSO提供者的端点、客户端凭据、HTTP客户端和OIDC设置
+ */
+public class ProviderSettings {
+    
+    private final String name;
+    private String type;
+    private String authUrl;
+    private String tokenUrl;
+    private String userInfoUrl;
+    private String clientId;
+    private String clientSecret;
+    private String scope;
+    private int httpConnectTimeout;
+    private int httpReadTimeout;
+    private boolean oidcEnabled;
+    private String oidcIssuer;
+    private int oidcDiscoveryRefreshInterval;
+    private String oidcJwksUrl;
+    private int oidcJwksRefreshInterval;
+    private int oidcClockSkew;
+    
+    /**
+     * 构造函数，使用默认设置
+     * @param name 提供者名称
+     */
+    private ProviderSettings(String name) {
+        this.name = name;
+        this.type = "generic";
+        this.authUrl = "";
+        this.tokenUrl = "";
+        this.userInfoUrl = "";
+        this.clientId = "";
+        this.clientSecret = "";
+        this.scope = "";
+        setDefaultHttpSettings();
+        setDefaultOidcSettings();
+    }
+    
+    /**
+     * 从配置节加载提供者设置
+     * @param name 提供者名称
+     * @param section 配置节，为null时使用默认值
+     * @param typeKey 提供者类型的配置项名称
+     * @return 提供者设置
+     */
+    static ProviderSettings load(String name, ConfigurationSection section, String typeKey) {
+        ProviderSettings settings = new ProviderSettings(name);
+        if (section == null) {
+            return settings;
+        }
+        
+        settings.type = section.getString(typeKey, "generic");
+        settings.authUrl = section.getString("auth_url", "");
+        settings.tokenUrl = section.getString("token_url", "");
+        settings.userInfoUrl = section.getString("userinfo_url", "");
+        settings.clientId = section.getString("client_id", "");
+        settings.clientSecret = section.getString("client_secret", "");
+        settings.scope = section.getString("scope", "");
+        
+        // HTTP客户端设置
+        ConfigurationSection http = section.getConfigurationSection("http");
+        if (http != null) {
+            settings.httpConnectTimeout = Math.max(0, http.getInt("connect_timeout", 5000));
+            settings.httpReadTimeout = Math.max(0, http.getInt("read_timeout", 10000));
+        }
+        
+        // OIDC设置
+        ConfigurationSection oidc = section.getConfigurationSection("oidc");
+        if (oidc != null) {
+            settings.oidcEnabled = oidc.getBoolean("enabled", false);
+            settings.oidcIssuer = oidc.getString("issuer", "");
+            settings.oidcDiscoveryRefreshInterval = Math.max(60, oidc.getInt("discovery_refresh_interval", 86400));
+            settings.oidcJwksUrl = oidc.getString("jwks_url", "");
+            settings.oidcJwksRefreshInterval = Math.max(60, oidc.getInt("jwks_refresh_interval", 3600));
+            settings.oidcClockSkew = Math.max(0, oidc.getInt("clock_skew", 60));
+        }
+        return settings;
+    }
+    
+    /**
+     * 使用默认的HTTP客户端设置
+     */
+    private void setDefaultHttpSettings() {
+        httpConnectTimeout = 5000;
+        httpReadTimeout = 10000;
+    }
+    
+    /**
+     * 使用默认的OIDC身份令牌设置
+     */
+    private void setDefaultOidcSettings() {
+        oidcEnabled = false;
+        oidcIssuer = "";
+        oidcDiscoveryRefreshInterval = 86400;
+        oidcJwksUrl = "";
+        oidcJwksRefreshInterval = 3600;
+        oidcClockSkew = 60;
+    }
+    
+    /**
+     * 获取提供者名称
+     * @return 提供者名称
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * 获取提供者类型
+     * @return 提供者类型
+     */
+    public String getType() {
+        return type;
+    }
+    
+    /**
+     * 获取授权URL
+     * @return 授权URL
+     */
+    public String getAuthUrl() {
+        return authUrl;
+    }
+    
+    /**
+     * 获取令牌URL
+     * @return 令牌URL
+     */
+    public String getTokenUrl() {
+        return tokenUrl;
+    }
+    
+    /**
+     * 获取用户信息URL
+     * @return 用户信息URL
+     */
+    public String getUserInfoUrl() {
+        return userInfoUrl;
+    }
+    
+    /**
+     * 获取客户端ID
+     * @return 客户端ID
+     */
+    public String getClientId() {
+        return clientId;
+    }
+    
+    /**
+     * 获取客户端密钥
+     * @return 客户端密钥
+     */
+    public String getClientSecret() {
+        return clientSecret;
+    }
+    
+    /**
+     * 获取授权作用域
+     * @return 授权作用域
+     */
+    public String getScope() {
+        return scope;
+    }
+    
+    /**
+     * 获取HTTP连接超时时间（毫秒）
+     * @return HTTP连接超时时间（毫秒）
+     */
+    public int getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+    
+    /**
+     * 获取HTTP读取超时时间（毫秒）
+     * @return HTTP读取超时时间（毫秒）
+     */
+    public int getHttpReadTimeout() {
+        return httpReadTimeout;
+    }
+    
+    /**
+     * 是否在本地验证OIDC身份令牌代替请求用户信息端点
+     * @return 是否启用OIDC身份令牌验证
+     */
+    public boolean isOidcEnabled() {
+        return oidcEnabled;
+    }
+    
+    /**
+     * 获取OIDC签发者
+     * @return OIDC签发者，为空时不在本地验证身份令牌
+     */
+    public String getOidcIssuer() {
+        return oidcIssuer;
+    }
+    
+    /**
+     * 获取OIDC发现文档后台刷新间隔（秒）
+     * @return OIDC发现文档后台刷新间隔（秒）
+     */
+    public int getOidcDiscoveryRefreshInterval() {
+        return oidcDiscoveryRefreshInterval;
+    }
+    
+    /**
+     * 获取JWKS公钥集URL
+     * @return JWKS公钥集URL
+     */
+    public String getOidcJwksUrl() {
+        return oidcJwksUrl;
+    }
+    
+    /**
+     * 获取JWKS公钥集后台刷新间隔（秒）
+     * @return JWKS公钥集后台刷新间隔（秒）
+     */
+    public int getOidcJwksRefreshInterval() {
+        return oidcJwksRefreshInterval;
+    }
+    
+    /**
+     * 获取验证身份令牌时允许的时钟偏差（秒）
+     * @return 允许的时钟偏差（秒）
+     */
+    public int getOidcClockSkew() {
+        return oidcClockSkew;
+    }
+}
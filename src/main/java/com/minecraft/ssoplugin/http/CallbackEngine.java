@@ -0,0 +1,52 @@
+package com.minecraft.ssoplugin.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * 回调服务器引擎接口，负责监听端口、解析HTTP请求并发送处理器返回的响应
+ * <p>
+ * 同时进行中的请求数有上限，超出时引擎不调用处理器，直接发送繁忙响应。
+ */
+public interface CallbackEngine {
+    
+    /**
+     * 启动引擎
+     * @param address 监听地址
+     * @param handlers 路径前缀到请求处理器的映射，请求交给前缀最长的处理器
+     * @param busyResponse 繁忙时发送的响应
+     * @throws IOException 如果无法监听端口
+     */
+    void start(InetSocketAddress address, Map<String, RequestHandler> handlers,
+               CallbackResponse busyResponse) throws IOException;
+    
+    /**
+     * 停止引擎
+     */
+    void stop();
+    
+    /**
+     * 获取引擎名称
+     * @return 引擎名称
+     */
+    String getName();
+    
+    /**
+     * 获取正在处理的请求数
+     * @return 正在处理的请求数
+     */
+    int getActiveCount();
+    
+    /**
+     * 获取排队等待处理的请求数
+     * @return 排队请求数
+     */
+    int getQueuedCount();
+    
+    /**
+     * 获取因繁忙而拒绝的请求数
+     * @return 拒绝请求数
+     */
+    long getRejectedCount();
+}
@@ -0,0 +1,144 @@
+package com.minecraft.ssoplugin.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 回调线程池类，为回调服务器提供线程数和队列长度都有上限的执行器
+ * <p>
+ * 线程和队列都已占满时，请求不再排队，而是标记为拒绝后直接在服务器的分发线程上执行，
+ * 处理器检查 {@link #isShedding()} 后立即返回503，不做任何其他处理。
+ * 这样突发的回调或端口扫描不会在服务器进程中创建无限多的线程，客户端也能立即得到响应。
+ * <p>
+ * 运行在Java 21及以上版本时可以使用虚拟线程执行请求，数量上限不变。
+ */
+public class CallbackExecutor implements Executor {
+    
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+    
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected;
+    private final boolean virtualThreads;
+    
+    /**
+     * 构造函数
+     * @param threads 最大线程数
+     * @param queueSize 等待队列长度
+     * @param useVirtualThreads 是否尝试使用虚拟线程
+     */
+    public CallbackExecutor(int threads, int queueSize, boolean useVirtualThreads) {
+        ThreadFactory virtualFactory = useVirtualThreads ? createVirtualThreadFactory() : null;
+        this.virtualThreads = virtualFactory != null;
+        this.rejected = new LongAdder();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                virtualFactory != null ? virtualFactory : createPlatformThreadFactory(),
+                (task, pool) -> shed(task));
+        // 空闲时不保留线程
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+    
+    /**
+     * 当前线程上执行的请求是否因线程池已满而被拒绝
+     * @return 是否应当直接返回503
+     */
+    public static boolean isShedding() {
+        return SHEDDING.get() != null;
+    }
+    
+    /**
+     * 停止接受新请求
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * 是否使用了虚拟线程
+     * @return 是否使用了虚拟线程
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /**
+     * 获取正在执行请求的线程数
+     * @return 活动线程数
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+    
+    /**
+     * 获取排队等待的请求数
+     * @return 排队请求数
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+    
+    /**
+     * 获取因线程池已满而拒绝的请求数
+     * @return 拒绝请求数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    /**
+     * 在调用线程上以拒绝模式执行请求，只用于返回503
+     * @param task 请求
+     */
+    private void shed(Runnable task) {
+        rejected.increment();
+        if (executor.isShutdown()) {
+            return;
+        }
+        SHEDDING.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            SHEDDING.remove();
+        }
+    }
+    
+    /**
+     * 创建普通的守护线程工厂
+     * @return 线程工厂
+     */
+    private static ThreadFactory createPlatformThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "SSOPlugin-Callback-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * 通过反射创建虚拟线程工厂，插件以Java 11为目标编译，不能直接调用Java 21的API
+     * @return 虚拟线程工厂，当前Java版本不支持时返回null
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, "SSOPlugin-Callback-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
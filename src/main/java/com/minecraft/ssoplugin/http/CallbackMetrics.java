@@ -0,0 +1,89 @@
+package com.minecraft.ssoplugin.http;
+
+import com.minecraft.ssoplugin.http.ResponsePages.Page;
+import com.minecraft.ssoplugin.oauth.CallbackResult;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 回调统计类，按结果统计回调请求的次数
+ * <p>
+ * 每种结果对应一个 {@link LongAdder}，在构造时创建，记录时不加锁也不分配对象。
+ */
+public class CallbackMetrics {
+    
+    private final Map<CallbackResult, LongAdder> results;
+    private final Map<Page, LongAdder> pages;
+    private final LongAdder providerErrors;
+    
+    /**
+     * 构造函数
+     */
+    public CallbackMetrics() {
+        this.results = new EnumMap<>(CallbackResult.class);
+        for (CallbackResult result : CallbackResult.values()) {
+            results.put(result, new LongAdder());
+        }
+        this.pages = new EnumMap<>(Page.class);
+        for (Page page : Page.values()) {
+            pages.put(page, new LongAdder());
+        }
+        this.providerErrors = new LongAdder();
+    }
+    
+    /**
+     * 记录一次完成处理的回调
+     * @param result 回调处理结果
+     */
+    public void record(CallbackResult result) {
+        results.get(result).increment();
+    }
+    
+    /**
+     * 记录一次未进入绑定流程就返回的回调
+     * @param page 返回的页面
+     */
+    public void record(Page page) {
+        pages.get(page).increment();
+    }
+    
+    /**
+     * 记录一次SSO服务器返回错误的回调
+     */
+    public void recordProviderError() {
+        providerErrors.increment();
+    }
+    
+    /**
+     * 按Prometheus文本格式输出各个结果的次数
+     * @param out 输出
+     * @param name 指标名称
+     */
+    public void writeTo(StringBuilder out, String name) {
+        for (Map.Entry<CallbackResult, LongAdder> entry : results.entrySet()) {
+            writeOutcome(out, name, entry.getKey().name(), entry.getValue().sum());
+        }
+        for (Map.Entry<Page, LongAdder> entry : pages.entrySet()) {
+            // 繁忙响应由服务器引擎直接发送，另有单独的指标
+            if (entry.getKey() != Page.BUSY) {
+                writeOutcome(out, name, entry.getKey().name(), entry.getValue().sum());
+            }
+        }
+        writeOutcome(out, name, "PROVIDER_ERROR", providerErrors.sum());
+    }
+    
+    /**
+     * 输出一个结果的次数
+     * @param out 输出
+     * @param name 指标名称
+     * @param outcome 结果名称
+     * @param count 次数
+     */
+    private static void writeOutcome(StringBuilder out, String name, String outcome, long count) {
+        out.append(name).append("{outcome=\"").append(outcome.toLowerCase(Locale.ROOT)).append("\"} ")
+                .append(count).append('\n');
+    }
+}
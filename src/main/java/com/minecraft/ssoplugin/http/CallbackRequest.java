@@ -0,0 +1,62 @@
+package com.minecraft.ssoplugin.http;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 回调请求类，与具体的HTTP服务器引擎无关
+ */
+public class CallbackRequest {
+    
+    private final String method;
+    private final String path;
+    private final String query;
+    private final Map<String, String> headers;
+    
+    /**
+     * 构造函数
+     * @param method 请求方法
+     * @param path 请求路径
+     * @param query 未解码的查询字符串，没有时为null
+     * @param headers 请求头，名称为小写
+     */
+    public CallbackRequest(String method, String path, String query, Map<String, String> headers) {
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.headers = headers;
+    }
+    
+    /**
+     * 获取请求方法
+     * @return 请求方法
+     */
+    public String getMethod() {
+        return method;
+    }
+    
+    /**
+     * 获取请求路径
+     * @return 请求路径
+     */
+    public String getPath() {
+        return path;
+    }
+    
+    /**
+     * 获取未解码的查询字符串
+     * @return 查询字符串，没有时为null
+     */
+    public String getQuery() {
+        return query;
+    }
+    
+    /**
+     * 获取请求头
+     * @param name 请求头名称，不区分大小写
+     * @return 请求头的值，没有时为null
+     */
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+}
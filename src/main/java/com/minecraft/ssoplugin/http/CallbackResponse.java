@@ -0,0 +1,75 @@
+package com.minecraft.ssoplugin.http;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 回调响应类，与具体的HTTP服务器引擎无关
+ * <p>
+ * 响应对象不可变，可以缓存后在多个请求之间共享。
+ */
+public class CallbackResponse {
+    
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    
+    /**
+     * 构造函数
+     * @param statusCode 状态码
+     * @param contentType 内容类型
+     * @param body 响应内容
+     */
+    public CallbackResponse(int statusCode, String contentType, byte[] body) {
+        this(statusCode, Collections.singletonMap("Content-Type", contentType), body);
+    }
+    
+    /**
+     * 构造函数
+     * @param statusCode 状态码
+     * @param headers 响应头
+     * @param body 响应内容
+     */
+    private CallbackResponse(int statusCode, Map<String, String> headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+    
+    /**
+     * 返回增加了一个响应头的新响应
+     * @param name 响应头名称
+     * @param value 响应头的值
+     * @return 新响应
+     */
+    public CallbackResponse withHeader(String name, String value) {
+        Map<String, String> headers = new LinkedHashMap<>(this.headers);
+        headers.put(name, value);
+        return new CallbackResponse(statusCode, Collections.unmodifiableMap(headers), body);
+    }
+    
+    /**
+     * 获取状态码
+     * @return 状态码
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * 获取响应头
+     * @return 响应头
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+    
+    /**
+     * 获取响应内容，调用者不能修改
+     * @return 响应内容
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
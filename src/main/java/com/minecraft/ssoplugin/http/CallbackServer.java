@@ -1,30 +1,41 @@
 package com.minecraft.ssoplugin.http;
 
 import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.http.ResponsePages.Page;
+import com.minecraft.ssoplugin.oauth.CallbackResult;
 import com.minecraft.ssoplugin.oauth.OAuthManager;
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
-import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 /**
  * 回调服务器类，负责监听OAuth回调
+ * <p>
+ * 端口监听和HTTP解析由可替换的 {@link CallbackEngine} 完成，按配置使用JDK内置的HttpServer或NIO事件循环。
+ * 响应页面由 {@link ResponsePages} 在启动时预先渲染。
+ * <p>
+ * 启用后台绑定时，回调请求在验证状态参数后立即返回处理中页面，令牌交换和绑定写入在后台进行，
+ * 页面通过状态接口（回调路径/status）轮询结果，浏览器连接只占用几毫秒。
+ * <p>
+ * 启用指标接口时，Prometheus格式的指标与回调共用端口，或按配置在单独的端口和地址上监听。
  */
 public class CallbackServer {
     
     private final SSOPlugin plugin;
-    private HttpServer server;
+    private CallbackEngine engine;
     private final int port;
     private final String callbackPath;
+    private CallbackStatusTracker statusTracker;
+    private final CallbackMetrics metrics;
+    private CallbackEngine metricsEngine;
     
     /**
      * 构造函数
@@ -34,6 +45,7 @@ public class CallbackServer {
         this.plugin = plugin;
         this.port = plugin.getConfigManager().getCallbackPort();
         this.callbackPath = plugin.getConfigManager().getCallbackPath();
+        this.metrics = new CallbackMetrics();
     }
     
     /**
@@ -42,19 +54,41 @@ public class CallbackServer {
      */
     public boolean start() {
         try {
-            // 创建HTTP服务器
-            server = HttpServer.create(new InetSocketAddress(port), 0);
+            // 加载模板并预先渲染响应页面
+            String statusPath = callbackPath + "/status";
+            ResponsePages pages = new ResponsePages(plugin, statusPath);
             
-            // 设置回调处理器
-            server.createContext(callbackPath, new CallbackHandler(plugin));
+            // 后台绑定的结果与重复回调的记录保留相同的时间
+            statusTracker = new CallbackStatusTracker(plugin.getConfigManager().getCallbackDedupTtl() * 1000L,
+                    plugin.getConfigManager().getCallbackDedupMaxSize());
             
-            // 设置线程池
-            server.setExecutor(Executors.newCachedThreadPool());
+            // 按配置创建服务器引擎
+            engine = createEngine();
             
-            // 启动服务器
-            server.start();
+            // 设置回调处理器，繁忙时直接返回503
+            CallbackResponse busyResponse = pages.get(Page.BUSY)
+                    .withHeader("Retry-After", String.valueOf(plugin.getConfigManager().getCallbackRetryAfter()));
+            Map<String, RequestHandler> handlers = new LinkedHashMap<>();
+            handlers.put(callbackPath, new CallbackHandler(plugin, pages, statusTracker, metrics));
+            handlers.put(statusPath, new StatusHandler(pages, statusTracker));
             
-            plugin.log(Level.INFO, "回调服务器已启动，监听端口: " + port);
+            // 指标接口未单独设置端口时与回调共用端口
+            int metricsPort = plugin.getConfigManager().getMetricsPort();
+            boolean sharedMetrics = metricsPort == 0 || metricsPort == port;
+            if (plugin.getConfigManager().isMetricsEnabled() && sharedMetrics) {
+                handlers.put(plugin.getConfigManager().getMetricsPath(), new MetricsHandler(plugin, this));
+            }
+            engine.start(new InetSocketAddress(port), handlers, busyResponse);
+            
+            if (plugin.getConfigManager().isMetricsEnabled() && !sharedMetrics) {
+                startMetricsServer(metricsPort);
+            }
+            
+            if (plugin.getConfigManager().isCallbackVirtualThreads() && engine instanceof JdkCallbackEngine
+                    && !((JdkCallbackEngine) engine).isVirtualThreads()) {
+                plugin.log(Level.WARNING, "当前Java版本不支持虚拟线程，回调服务器将使用普通线程");
+            }
+            plugin.log(Level.INFO, "回调服务器已启动，监听端口: " + port + "，引擎: " + engine.getName());
             return true;
         } catch (IOException e) {
             plugin.log(Level.SEVERE, "无法启动回调服务器: " + e.getMessage());
@@ -62,180 +96,259 @@ public class CallbackServer {
         }
     }
     
+    /**
+     * 在单独的端口上启动指标接口，启动失败时不影响回调服务器
+     * @param metricsPort 指标接口端口
+     */
+    private void startMetricsServer(int metricsPort) {
+        String bindAddress = plugin.getConfigManager().getMetricsBindAddress();
+        InetSocketAddress address = bindAddress.isEmpty()
+                ? new InetSocketAddress(metricsPort) : new InetSocketAddress(bindAddress, metricsPort);
+        CallbackResponse busyResponse = new CallbackResponse(503, "text/plain; charset=UTF-8",
+                "Service Unavailable".getBytes(StandardCharsets.UTF_8));
+        
+        // 抓取请求很少，一个线程即可
+        CallbackEngine server = new JdkCallbackEngine(1, 4, false);
+        try {
+            server.start(address, Collections.singletonMap(plugin.getConfigManager().getMetricsPath(),
+                    new MetricsHandler(plugin, this)), busyResponse);
+            metricsEngine = server;
+            plugin.log(Level.INFO, "指标接口已启动，监听地址: " + address);
+        } catch (IOException e) {
+            plugin.log(Level.WARNING, "无法启动指标接口: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 按配置创建服务器引擎
+     * @return 服务器引擎
+     */
+    private CallbackEngine createEngine() {
+        int threads = plugin.getConfigManager().getCallbackThreads();
+        int queueSize = plugin.getConfigManager().getCallbackQueueSize();
+        
+        // 两种引擎同时等待处理器的请求数上限都取线程数与队列长度之和
+        if ("nio".equalsIgnoreCase(plugin.getConfigManager().getCallbackEngine())) {
+            return new NioCallbackEngine(plugin, threads + queueSize);
+        }
+        
+        return new JdkCallbackEngine(threads, queueSize, plugin.getConfigManager().isCallbackVirtualThreads());
+    }
+    
     /**
      * 停止回调服务器
      */
     public void stop() {
-        if (server != null) {
-            server.stop(0);
+        if (metricsEngine != null) {
+            metricsEngine.stop();
+        }
+        if (engine != null) {
+            engine.stop();
             plugin.log(Level.INFO, "回调服务器已停止");
         }
     }
     
+    /**
+     * 获取回调服务器引擎
+     * @return 服务器引擎，服务器未启动时返回null
+     */
+    public CallbackEngine getEngine() {
+        return engine;
+    }
+    
+    /**
+     * 获取后台绑定的状态跟踪器
+     * @return 状态跟踪器，服务器未启动时返回null
+     */
+    public CallbackStatusTracker getStatusTracker() {
+        return statusTracker;
+    }
+    
+    /**
+     * 获取回调统计
+     * @return 回调统计
+     */
+    public CallbackMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * 解析查询参数
+     * @param query 查询字符串
+     * @return 参数映射
+     * @throws IllegalArgumentException 如果参数编码无效
+     */
+    private static Map<String, String> parseQueryParams(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        
+        String[] pairs = query.split("&");
+        for (String pair : pairs) {
+            int idx = pair.indexOf("=");
+            if (idx > 0) {
+                String key = URLDecoder.decode(pair.substring(0, idx), StandardCharsets.UTF_8);
+                String value = URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8);
+                params.put(key, value);
+            }
+        }
+        
+        return params;
+    }
+    
     /**
      * 回调处理器类
      */
-    private static class CallbackHandler implements HttpHandler {
+    private static class CallbackHandler implements RequestHandler {
         
         private final SSOPlugin plugin;
+        private final ResponsePages pages;
+        private final CallbackStatusTracker statusTracker;
+        private final CallbackMetrics metrics;
         
         /**
          * 构造函数
          * @param plugin 插件实例
+         * @param pages 响应页面
+         * @param statusTracker 后台绑定的状态跟踪器
+         * @param metrics 回调统计
          */
-        public CallbackHandler(SSOPlugin plugin) {
+        public CallbackHandler(SSOPlugin plugin, ResponsePages pages, CallbackStatusTracker statusTracker,
+                               CallbackMetrics metrics) {
             this.plugin = plugin;
+            this.pages = pages;
+            this.statusTracker = statusTracker;
+            this.metrics = metrics;
         }
         
         @Override
-        public void handle(HttpExchange exchange) throws IOException {
+        public CompletableFuture<CallbackResponse> handle(CallbackRequest request) {
             // 获取请求方法
-            String requestMethod = exchange.getRequestMethod();
+            String requestMethod = request.getMethod();
             
             // 只处理GET请求
             if (!requestMethod.equalsIgnoreCase("GET")) {
-                sendResponse(exchange, 405, "Method Not Allowed");
-                return;
+                return respond(Page.METHOD_NOT_ALLOWED, request);
             }
             
             // 解析查询参数
-            String query = exchange.getRequestURI().getQuery();
-            Map<String, String> params = parseQueryParams(query);
+            Map<String, String> params;
+            try {
+                params = parseQueryParams(request.getQuery());
+            } catch (IllegalArgumentException e) {
+                return respond(Page.INVALID_PARAMS, request);
+            }
             
             // 检查是否有错误
             if (params.containsKey("error")) {
                 String error = params.get("error");
                 String errorDescription = params.getOrDefault("error_description", "Unknown error");
                 plugin.log(Level.WARNING, "OAuth回调错误: " + error + " - " + errorDescription);
-                sendResponse(exchange, 400, "认证失败: " + errorDescription);
-                return;
+                metrics.recordProviderError();
+                return CompletableFuture.completedFuture(pages.render(400, "认证失败: " + errorDescription));
             }
             
             // 检查是否有授权码
             if (!params.containsKey("code")) {
                 plugin.log(Level.WARNING, "OAuth回调缺少授权码");
-                sendResponse(exchange, 400, "缺少授权码");
-                return;
+                return respond(Page.MISSING_CODE, request);
             }
             
             // 检查是否有状态参数
             if (!params.containsKey("state")) {
                 plugin.log(Level.WARNING, "OAuth回调缺少状态参数");
-                sendResponse(exchange, 400, "缺少状态参数");
-                return;
+                return respond(Page.MISSING_STATE, request);
             }
             
             // 获取授权码和状态
             String code = params.get("code");
             String state = params.get("state");
             
-            // 处理OAuth回调
-            try {
-                OAuthManager oauthManager = plugin.getOAuthManager();
-                boolean success = oauthManager.handleCallback(code, state);
-                
-                if (success) {
-                    sendResponse(exchange, 200, "绑定成功！您现在可以关闭此页面并返回游戏。");
-                } else {
-                    sendResponse(exchange, 400, "绑定失败，请重试。");
-                }
-            } catch (Exception e) {
-                plugin.log(Level.SEVERE, "处理OAuth回调时出错: " + e.getMessage());
-                e.printStackTrace();
-                sendResponse(exchange, 500, "服务器内部错误");
+            // 处理OAuth回调，状态参数在此同步验证，无效时结果已经完成
+            OAuthManager oauthManager = plugin.getOAuthManager();
+            CompletableFuture<CallbackResult> callback = oauthManager.handleCallback(code, state);
+            
+            // 后台绑定时立即返回处理中页面，由页面轮询结果
+            if (plugin.getConfigManager().isCallbackAsync() && !callback.isDone()) {
+                callback.whenComplete((result, error) -> {
+                    if (error != null) {
+                        metrics.record(Page.INTERNAL_ERROR);
+                    } else {
+                        metrics.record(result);
+                    }
+                });
+                return CompletableFuture.completedFuture(pages.processing(statusTracker.track(callback)));
             }
+            
+            // 结果就绪后再发送响应，处理器线程不等待
+            return callback.handle((result, error) -> {
+                if (error != null) {
+                    plugin.log(Level.SEVERE, "处理OAuth回调时出错: " + error.getMessage());
+                    error.printStackTrace();
+                    metrics.record(Page.INTERNAL_ERROR);
+                    return pages.get(Page.INTERNAL_ERROR, request);
+                }
+                metrics.record(result);
+                return pages.get(result, request);
+            });
         }
         
         /**
-         * 解析查询参数
-         * @param query 查询字符串
-         * @return 参数映射
+         * 创建已完成的固定页面响应
+         * @param page 页面
+         * @param request 请求
+         * @return 响应
          */
-        private Map<String, String> parseQueryParams(String query) {
-            Map<String, String> params = new HashMap<>();
-            if (query == null || query.isEmpty()) {
-                return params;
-            }
-            
-            String[] pairs = query.split("&");
-            for (String pair : pairs) {
-                int idx = pair.indexOf("=");
-                if (idx > 0) {
-                    String key = pair.substring(0, idx);
-                    String value = pair.substring(idx + 1);
-                    params.put(key, value);
-                }
-            }
-            
-            return params;
+        private CompletableFuture<CallbackResponse> respond(Page page, CallbackRequest request) {
+            metrics.record(page);
+            return CompletableFuture.completedFuture(pages.get(page, request));
         }
+    }
+    
+    /**
+     * 后台绑定状态接口处理器类
+     */
+    private static class StatusHandler implements RequestHandler {
+        
+        private final ResponsePages pages;
+        private final CallbackStatusTracker statusTracker;
         
         /**
-         * 发送HTTP响应
-         * @param exchange HTTP交换
-         * @param statusCode 状态码
-         * @param response 响应内容
-         * @throws IOException 如果发送响应时出错
+         * 构造函数
+         * @param pages 响应页面
+         * @param statusTracker 后台绑定的状态跟踪器
          */
-        private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-            // 构建HTML响应
-            String html = "<!DOCTYPE html>\n" +
-                    "<html>\n" +
-                    "<head>\n" +
-                    "    <meta charset=\"UTF-8\">\n" +
-                    "    <title>Minecraft SSO绑定</title>\n" +
-                    "    <style>\n" +
-                    "        body {\n" +
-                    "            font-family: Arial, sans-serif;\n" +
-                    "            background-color: #f0f0f0;\n" +
-                    "            margin: 0;\n" +
-                    "            padding: 0;\n" +
-                    "            display: flex;\n" +
-                    "            justify-content: center;\n" +
-                    "            align-items: center;\n" +
-                    "            height: 100vh;\n" +
-                    "        }\n" +
-                    "        .container {\n" +
-                    "            background-color: white;\n" +
-                    "            border-radius: 8px;\n" +
-                    "            box-shadow: 0 2px 10px rgba(0, 0, 0, 0.1);\n" +
-                    "            padding: 40px;\n" +
-                    "            text-align: center;\n" +
-                    "            max-width: 500px;\n" +
-                    "        }\n" +
-                    "        h1 {\n" +
-                    "            color: #333;\n" +
-                    "            margin-bottom: 20px;\n" +
-                    "        }\n" +
-                    "        p {\n" +
-                    "            color: #666;\n" +
-                    "            line-height: 1.6;\n" +
-                    "        }\n" +
-                    "        .success {\n" +
-                    "            color: #4CAF50;\n" +
-                    "        }\n" +
-                    "        .error {\n" +
-                    "            color: #F44336;\n" +
-                    "        }\n" +
-                    "    </style>\n" +
-                    "</head>\n" +
-                    "<body>\n" +
-                    "    <div class=\"container\">\n" +
-                    "        <h1>Minecraft SSO绑定</h1>\n" +
-                    "        <p class=\"" + (statusCode == 200 ? "success" : "error") + "\">" + response + "</p>\n" +
-                    "    </div>\n" +
-                    "</body>\n" +
-                    "</html>";
-            
-            // 设置响应头
-            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
-            byte[] responseBytes = html.getBytes(StandardCharsets.UTF_8);
-            
-            // 发送响应
-            exchange.sendResponseHeaders(statusCode, responseBytes.length);
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(responseBytes);
+        public StatusHandler(ResponsePages pages, CallbackStatusTracker statusTracker) {
+            this.pages = pages;
+            this.statusTracker = statusTracker;
+        }
+        
+        @Override
+        public CompletableFuture<CallbackResponse> handle(CallbackRequest request) {
+            // 只处理GET请求
+            if (!request.getMethod().equalsIgnoreCase("GET")) {
+                return CompletableFuture.completedFuture(pages.get(Page.METHOD_NOT_ALLOWED, request));
+            }
+            
+            String id;
+            try {
+                id = parseQueryParams(request.getQuery()).get("id");
+            } catch (IllegalArgumentException e) {
+                id = null;
+            }
+            
+            CompletableFuture<CallbackResult> callback = id != null ? statusTracker.get(id) : null;
+            if (callback == null) {
+                return CompletableFuture.completedFuture(pages.unknownStatus());
+            }
+            
+            // 不等待仍在进行的绑定，页面稍后再次轮询
+            CallbackResult result = null;
+            if (callback.isDone()) {
+                result = callback.isCompletedExceptionally() ? CallbackResult.ERROR : callback.join();
             }
+            return CompletableFuture.completedFuture(pages.status(result));
         }
     }
 }
@@ -0,0 +1,107 @@
+package com.minecraft.ssoplugin.http;
+
+import com.minecraft.ssoplugin.oauth.CallbackResult;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 回调状态跟踪类，为在后台进行的绑定分配不透明的ID，供处理中页面轮询结果
+ * <p>
+ * ID是随机生成的，与授权码和状态参数无关，泄露后只能查询绑定结果。
+ * 记录按创建顺序保存，超过有效期或数量上限时从最早的开始移除。
+ */
+public class CallbackStatusTracker {
+    
+    // ID的随机字节数
+    private static final int ID_BYTES = 16;
+    
+    private final long ttlMillis;
+    private final int maxSize;
+    private final SecureRandom random;
+    private final LinkedHashMap<String, Entry> entries;
+    
+    /**
+     * 构造函数
+     * @param ttlMillis 记录的有效期（毫秒）
+     * @param maxSize 最多保存的记录数
+     */
+    public CallbackStatusTracker(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.random = new SecureRandom();
+        this.entries = new LinkedHashMap<>();
+    }
+    
+    /**
+     * 跟踪一个进行中的绑定
+     * @param result 绑定结果
+     * @return 用于查询结果的ID
+     */
+    public String track(CompletableFuture<CallbackResult> result) {
+        byte[] bytes = new byte[ID_BYTES];
+        random.nextBytes(bytes);
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        
+        synchronized (entries) {
+            evict(now);
+            entries.put(id, new Entry(result, now));
+        }
+        return id;
+    }
+    
+    /**
+     * 查询绑定结果
+     * @param id 跟踪ID
+     * @return 绑定结果，ID不存在或已过期时返回null
+     */
+    public CompletableFuture<CallbackResult> get(String id) {
+        synchronized (entries) {
+            evict(System.currentTimeMillis());
+            Entry entry = entries.get(id);
+            return entry != null ? entry.result : null;
+        }
+    }
+    
+    /**
+     * 获取当前保存的记录数
+     * @return 记录数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    /**
+     * 从最早的记录开始移除过期的记录，超过数量上限时移除最早的记录
+     * @param now 当前时间
+     */
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entries.size() < maxSize && now - entry.createdAt <= ttlMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * 跟踪记录类
+     */
+    private static class Entry {
+        private final CompletableFuture<CallbackResult> result;
+        private final long createdAt;
+        
+        public Entry(CompletableFuture<CallbackResult> result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.minecraft.ssoplugin.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于JDK内置HttpServer的回调服务器引擎
+ * <p>
+ * 每个请求在 {@link CallbackExecutor} 的线程上解析和处理，线程池已满时直接发送繁忙响应。
+ * <p>
+ * 处理器返回后线程立即释放，因此另外限制同时等待处理器的请求数（线程数与队列长度之和），
+ * 达到上限时同样直接发送繁忙响应，与NIO引擎的上限含义一致。
+ */
+public class JdkCallbackEngine implements CallbackEngine {
+    
+    private static final CallbackResponse INTERNAL_ERROR = new CallbackResponse(500, "text/plain; charset=UTF-8",
+            "Internal Server Error".getBytes(StandardCharsets.UTF_8));
+    
+    private final int threads;
+    private final int queueSize;
+    private final boolean useVirtualThreads;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight;
+    private final LongAdder rejected;
+    private HttpServer server;
+    private CallbackExecutor executor;
+    
+    /**
+     * 构造函数
+     * @param threads 最大线程数
+     * @param queueSize 等待队列长度
+     * @param useVirtualThreads 是否尝试使用虚拟线程
+     */
+    public JdkCallbackEngine(int threads, int queueSize, boolean useVirtualThreads) {
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.useVirtualThreads = useVirtualThreads;
+        this.maxInFlight = threads + queueSize;
+        this.inFlight = new AtomicInteger();
+        this.rejected = new LongAdder();
+    }
+    
+    @Override
+    public void start(InetSocketAddress address, Map<String, RequestHandler> handlers,
+                      CallbackResponse busyResponse) throws IOException {
+        server = HttpServer.create(address, 0);
+        
+        // HttpServer本身按最长前缀选择上下文
+        for (Map.Entry<String, RequestHandler> entry : handlers.entrySet()) {
+            RequestHandler handler = entry.getValue();
+            server.createContext(entry.getKey(), exchange -> handle(exchange, handler, busyResponse));
+        }
+        
+        // 设置有上限的线程池，线程池已满时直接发送繁忙响应
+        executor = new CallbackExecutor(threads, queueSize, useVirtualThreads);
+        server.setExecutor(executor);
+        server.start();
+    }
+    
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return isVirtualThreads() ? "jdk (虚拟线程)" : "jdk";
+    }
+    
+    /**
+     * 是否在虚拟线程上处理请求
+     * @return 是否使用虚拟线程
+     */
+    public boolean isVirtualThreads() {
+        return executor != null && executor.isVirtualThreads();
+    }
+    
+    @Override
+    public int getActiveCount() {
+        return inFlight.get();
+    }
+    
+    @Override
+    public int getQueuedCount() {
+        return executor != null ? executor.getQueuedCount() : 0;
+    }
+    
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum() + (executor != null ? executor.getRejectedCount() : 0);
+    }
+    
+    /**
+     * 处理一个请求
+     * @param exchange HTTP交换
+     * @param handler 请求处理器
+     * @param busyResponse 繁忙时发送的响应
+     * @throws IOException 如果发送响应时出错
+     */
+    private void handle(HttpExchange exchange, RequestHandler handler, CallbackResponse busyResponse) throws IOException {
+        // 线程池已满时不做任何处理，让客户端稍后重试
+        if (CallbackExecutor.isShedding()) {
+            send(exchange, busyResponse);
+            return;
+        }
+        
+        // 等待处理器的请求数已达上限
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            send(exchange, busyResponse);
+            return;
+        }
+        
+        URI uri = exchange.getRequestURI();
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : exchange.getRequestHeaders().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                headers.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue().get(0));
+            }
+        }
+        CallbackRequest request = new CallbackRequest(exchange.getRequestMethod(), uri.getRawPath(),
+                uri.getRawQuery(), headers);
+        
+        // 响应就绪后再发送，处理器线程不等待
+        CompletableFuture<CallbackResponse> future;
+        try {
+            future = handler.handle(request);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete(sendWhenReady(exchange));
+    }
+    
+    /**
+     * 创建在响应就绪后结束等待并发送响应的回调
+     * @param exchange HTTP交换
+     * @return 回调
+     */
+    private BiConsumer<CallbackResponse, Throwable> sendWhenReady(HttpExchange exchange) {
+        return (response, error) -> {
+            inFlight.decrementAndGet();
+            try {
+                send(exchange, error != null || response == null ? INTERNAL_ERROR : response);
+            } catch (IOException e) {
+                exchange.close();
+            }
+        };
+    }
+    
+    /**
+     * 发送响应
+     * @param exchange HTTP交换
+     * @param response 响应
+     * @throws IOException 如果发送响应时出错
+     */
+    private static void send(HttpExchange exchange, CallbackResponse response) throws IOException {
+        Headers responseHeaders = exchange.getResponseHeaders();
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            responseHeaders.set(header.getKey(), header.getValue());
+        }
+        
+        byte[] body = response.getBody();
+        boolean head = "HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(response.getStatusCode(), head || body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (!head) {
+                os.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.minecraft.ssoplugin.http;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.oauth.AuthStateStore;
+import com.minecraft.ssoplugin.oauth.CallbackDeduplicator;
+import com.minecraft.ssoplugin.oauth.OAuthProvider;
+import com.minecraft.ssoplugin.oauth.ProviderMetrics;
+import com.minecraft.ssoplugin.oauth.ProviderMetrics.Endpoint;
+import com.minecraft.ssoplugin.oauth.TokenRefreshScheduler;
+import com.minecraft.ssoplugin.storage.BindingCache;
+import com.minecraft.ssoplugin.storage.MeteredStorageProvider;
+import com.minecraft.ssoplugin.storage.StorageManager;
+import com.minecraft.ssoplugin.storage.WriteBehindQueue;
+import com.minecraft.ssoplugin.utils.LatencyHistogram;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 指标接口处理器类，按Prometheus文本格式输出插件的运行指标
+ * <p>
+ * 各项指标在记录时只累加 {@link java.util.concurrent.atomic.LongAdder}，
+ * 抓取时才汇总和格式化，抓取频率不影响回调和数据库操作。
+ */
+public class MetricsHandler implements RequestHandler {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+    
+    private final SSOPlugin plugin;
+    private final CallbackServer callbackServer;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param callbackServer 回调服务器
+     */
+    public MetricsHandler(SSOPlugin plugin, CallbackServer callbackServer) {
+        this.plugin = plugin;
+        this.callbackServer = callbackServer;
+    }
+    
+    @Override
+    public CompletableFuture<CallbackResponse> handle(CallbackRequest request) {
+        // 只处理GET请求
+        if (!request.getMethod().equalsIgnoreCase("GET") && !request.getMethod().equalsIgnoreCase("HEAD")) {
+            return CompletableFuture.completedFuture(new CallbackResponse(405, "text/plain; charset=UTF-8",
+                    "Method Not Allowed".getBytes(StandardCharsets.UTF_8)));
+        }
+        
+        StringBuilder out = new StringBuilder(16384);
+        writeCallbackMetrics(out);
+        writeOAuthMetrics(out);
+        writeStorageMetrics(out);
+        return CompletableFuture.completedFuture(new CallbackResponse(200, CONTENT_TYPE,
+                out.toString().getBytes(StandardCharsets.UTF_8)).withHeader("Cache-Control", "no-store"));
+    }
+    
+    /**
+     * 输出回调服务器的指标
+     * @param out 输出
+     */
+    private void writeCallbackMetrics(StringBuilder out) {
+        header(out, "ssobind_callbacks_total", "counter", "按结果分类的回调请求数");
+        callbackServer.getMetrics().writeTo(out, "ssobind_callbacks_total");
+        
+        CallbackEngine engine = callbackServer.getEngine();
+        if (engine != null) {
+            gauge(out, "ssobind_callback_active_requests", "正在处理的回调请求数", engine.getActiveCount());
+            gauge(out, "ssobind_callback_queued_requests", "排队等待处理的回调请求数", engine.getQueuedCount());
+            counter(out, "ssobind_callback_rejected_total", "因服务器繁忙返回503的回调请求数", engine.getRejectedCount());
+        }
+        
+        CallbackStatusTracker statusTracker = callbackServer.getStatusTracker();
+        if (statusTracker != null) {
+            gauge(out, "ssobind_callback_status_entries", "可供轮询的后台绑定记录数", statusTracker.size());
+        }
+        
+        CallbackDeduplicator deduplicator = plugin.getOAuthManager().getCallbackDeduplicator();
+        gauge(out, "ssobind_callback_dedup_entries", "回调去重记录数", deduplicator.size());
+        counter(out, "ssobind_callback_duplicates_total", "合并的重复回调数", deduplicator.getDuplicateCount());
+    }
+    
+    /**
+     * 输出OAuth相关的指标
+     * @param out 输出
+     */
+    private void writeOAuthMetrics(StringBuilder out) {
+        Iterable<OAuthProvider> providers = plugin.getOAuthManager().getProviderRegistry().all();
+        
+        header(out, "ssobind_oauth_request_duration_seconds", "histogram", "向SSO服务器发送请求的耗时");
+        for (OAuthProvider provider : providers) {
+            for (Endpoint endpoint : Endpoint.values()) {
+                provider.getMetrics().getLatency(endpoint).writeTo(out, "ssobind_oauth_request_duration_seconds",
+                        oauthLabels(provider, endpoint));
+            }
+        }
+        
+        header(out, "ssobind_oauth_request_failures_total", "counter", "未收到SSO服务器响应的请求数");
+        for (OAuthProvider provider : providers) {
+            ProviderMetrics metrics = provider.getMetrics();
+            for (Endpoint endpoint : Endpoint.values()) {
+                out.append("ssobind_oauth_request_failures_total{").append(oauthLabels(provider, endpoint)).append("} ")
+                        .append(metrics.getFailureCount(endpoint)).append('\n');
+            }
+        }
+        
+        AuthStateStore stateStore = plugin.getOAuthManager().getAuthStateStore();
+        gauge(out, "ssobind_pending_auth_states", "待处理的认证数（无状态链接时为重放缓存的记录数）", stateStore.size());
+        counter(out, "ssobind_pending_auth_expired_total", "过期的认证数", stateStore.getExpiredCount());
+        
+        TokenRefreshScheduler refreshScheduler = plugin.getOAuthManager().getRefreshScheduler();
+        if (refreshScheduler != null) {
+            gauge(out, "ssobind_token_refresh_queued", "等待后台刷新的令牌数", refreshScheduler.getQueueSize());
+            gauge(out, "ssobind_token_refresh_in_flight", "正在刷新的令牌数", refreshScheduler.getInFlightCount());
+            counter(out, "ssobind_token_refresh_success_total", "后台刷新成功的次数", refreshScheduler.getRefreshedCount());
+            counter(out, "ssobind_token_refresh_failures_total", "后台刷新失败的次数", refreshScheduler.getFailedCount());
+        }
+    }
+    
+    /**
+     * 输出存储相关的指标
+     * @param out 输出
+     */
+    private void writeStorageMetrics(StringBuilder out) {
+        StorageManager storageManager = plugin.getStorageManager();
+        
+        MeteredStorageProvider provider = storageManager.getMeteredProvider();
+        if (provider != null) {
+            header(out, "ssobind_storage_operation_duration_seconds", "histogram", "每种数据库操作的耗时");
+            for (Map.Entry<String, LatencyHistogram> entry : provider.getLatencies().entrySet()) {
+                entry.getValue().writeTo(out, "ssobind_storage_operation_duration_seconds",
+                        "operation=\"" + entry.getKey() + "\"");
+            }
+        }
+        
+        HikariPoolMXBean pool = storageManager.getConnectionPoolStats();
+        if (pool != null) {
+            header(out, "ssobind_db_pool_connections", "gauge", "MySQL连接池中按状态分类的连接数");
+            out.append("ssobind_db_pool_connections{state=\"active\"} ").append(pool.getActiveConnections()).append('\n');
+            out.append("ssobind_db_pool_connections{state=\"idle\"} ").append(pool.getIdleConnections()).append('\n');
+            out.append("ssobind_db_pool_connections{state=\"total\"} ").append(pool.getTotalConnections()).append('\n');
+            gauge(out, "ssobind_db_pool_pending_threads", "等待MySQL连接的线程数", pool.getThreadsAwaitingConnection());
+        }
+        
+        BindingCache cache = storageManager.getCache();
+        if (cache != null) {
+            gauge(out, "ssobind_binding_cache_entries", "绑定缓存的条数", cache.size());
+            counter(out, "ssobind_binding_cache_hits_total", "绑定缓存命中次数", cache.getHits());
+            counter(out, "ssobind_binding_cache_misses_total", "绑定缓存未命中次数", cache.getMisses());
+            header(out, "ssobind_binding_cache_hit_ratio", "gauge", "绑定缓存命中率");
+            out.append("ssobind_binding_cache_hit_ratio ").append(String.format(Locale.ROOT, "%.4f", cache.getHitRate()))
+                    .append('\n');
+        }
+        
+        WriteBehindQueue writeBehind = storageManager.getWriteBehindQueue();
+        if (writeBehind != null) {
+            gauge(out, "ssobind_write_behind_pending", "等待延迟写入的玩家数", writeBehind.getPendingCount());
+            counter(out, "ssobind_write_behind_coalesced_total", "延迟写入合并的更新数", writeBehind.getCoalescedCount());
+            counter(out, "ssobind_write_behind_written_total", "延迟写入写入的行数", writeBehind.getWrittenCount());
+        }
+    }
+    
+    /**
+     * 构建OAuth请求指标的标签
+     * @param provider 提供者
+     * @param endpoint 端点
+     * @return 标签
+     */
+    private static String oauthLabels(OAuthProvider provider, Endpoint endpoint) {
+        // 提供者名称只能包含小写字母、数字、_和-，不需要转义
+        return "provider=\"" + provider.getName() + "\",endpoint=\"" + endpoint.name().toLowerCase(Locale.ROOT) + "\"";
+    }
+    
+    /**
+     * 输出指标的说明和类型
+     * @param out 输出
+     * @param name 指标名称
+     * @param type 指标类型
+     * @param help 说明
+     */
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    /**
+     * 输出没有标签的计数器
+     * @param out 输出
+     * @param name 指标名称
+     * @param help 说明
+     * @param value 值
+     */
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+    
+    /**
+     * 输出没有标签的仪表
+     * @param out 输出
+     * @param name 指标名称
+     * @param help 说明
+     * @param value 值
+     */
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+}
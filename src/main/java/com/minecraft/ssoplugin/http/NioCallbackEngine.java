@@ -0,0 +1,693 @@
+package com.minecraft.ssoplugin.http;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * 基于NIO事件循环的回调服务器引擎
+ * <p>
+ * 所有连接由一个线程通过选择器处理：读取和解析请求、调用处理器、写出响应都不阻塞。
+ * 处理器返回的响应就绪后，由完成它的线程把发送任务交回事件循环。
+ * 读写使用池化的直接缓冲区，连接在请求之间保持（keep-alive），空闲超时后关闭。
+ * <p>
+ * 同时等待处理器的请求数达到上限时，直接发送繁忙响应，不调用处理器。
+ * 单个连接出错只关闭该连接，只有选择器本身出错时事件循环才会退出。
+ */
+public class NioCallbackEngine implements CallbackEngine {
+    
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final int MAX_CONNECTIONS = 1024;
+    private static final int MAX_REQUESTS_PER_CONNECTION = 100;
+    // 请求头未读完或连接空闲超过该时间后关闭连接
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long SELECT_TIMEOUT_MILLIS = 1000;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.RFC_1123_DATE_TIME;
+    
+    private final SSOPlugin plugin;
+    private final int maxInFlight;
+    private final Queue<Runnable> tasks;
+    private final ArrayDeque<ByteBuffer> bufferPool;
+    private final AtomicInteger inFlight;
+    private final LongAdder rejected;
+    private List<Map.Entry<String, RequestHandler>> handlers;
+    private CallbackResponse busyResponse;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private SelectionKey serverKey;
+    private Thread thread;
+    private volatile boolean running;
+    private int connections;
+    private boolean acceptPaused;
+    private long lastSweep;
+    private long dateSecond;
+    private String date;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param maxInFlight 同时等待处理器的请求数上限
+     */
+    public NioCallbackEngine(SSOPlugin plugin, int maxInFlight) {
+        this.plugin = plugin;
+        this.maxInFlight = maxInFlight;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.bufferPool = new ArrayDeque<>();
+        this.inFlight = new AtomicInteger();
+        this.rejected = new LongAdder();
+    }
+    
+    @Override
+    public void start(InetSocketAddress address, Map<String, RequestHandler> handlers,
+                      CallbackResponse busyResponse) throws IOException {
+        // 按前缀从长到短排列，取第一个匹配的处理器
+        List<Map.Entry<String, RequestHandler>> sorted = new ArrayList<>(handlers.entrySet());
+        sorted.sort((a, b) -> b.getKey().length() - a.getKey().length());
+        this.handlers = sorted;
+        this.busyResponse = busyResponse;
+        
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        
+        running = true;
+        thread = new Thread(this::run, "SSOPlugin-Callback-NIO");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @Override
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        
+        // 立即释放端口，重载时新的服务器可以马上绑定同一端口
+        closeQuietly(serverChannel);
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "nio";
+    }
+    
+    @Override
+    public int getActiveCount() {
+        return inFlight.get();
+    }
+    
+    @Override
+    public int getQueuedCount() {
+        // 事件循环不排队，请求要么交给处理器，要么直接拒绝
+        return 0;
+    }
+    
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    /**
+     * 事件循环
+     */
+    private void run() {
+        try {
+            while (running) {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                runTasks();
+                
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(connection);
+                        }
+                    } catch (CancelledKeyException e) {
+                        close(connection);
+                    } catch (RuntimeException e) {
+                        plugin.log(Level.WARNING, "处理回调连接时出错，已关闭该连接: " + e);
+                        close(connection);
+                    }
+                }
+                selector.selectedKeys().clear();
+                
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= SELECT_TIMEOUT_MILLIS) {
+                    lastSweep = now;
+                    closeIdle(now);
+                    resumeAccept();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                running = false;
+                plugin.log(Level.SEVERE, "回调服务器事件循环出错，已停止接受回调: " + e);
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // 忽略关闭时的错误
+            }
+        }
+    }
+    
+    /**
+     * 执行其他线程交给事件循环的任务
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                plugin.log(Level.WARNING, "发送回调响应时出错: " + e);
+            }
+        }
+    }
+    
+    /**
+     * 接受新连接，连接数达到上限时直接关闭
+     * <p>
+     * 单个连接设置失败时只关闭该连接；接受本身失败（例如文件描述符耗尽）时暂停接受，
+     * 避免选择器反复报告同一个无法接受的连接，下一次清理时恢复。
+     */
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                if (running) {
+                    plugin.log(Level.WARNING, "接受回调连接失败，暂停接受新连接: " + e);
+                    acceptPaused = true;
+                    serverKey.interestOps(0);
+                }
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            
+            if (connections >= MAX_CONNECTIONS) {
+                closeQuietly(channel);
+                rejected.increment();
+                continue;
+            }
+            
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections++;
+            } catch (IOException e) {
+                // 对端已经重置连接等，只影响这一个连接
+                closeQuietly(channel);
+            }
+        }
+    }
+    
+    /**
+     * 恢复因接受失败而暂停的新连接接受
+     */
+    private void resumeAccept() {
+        if (acceptPaused && serverKey.isValid()) {
+            acceptPaused = false;
+            serverKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+    
+    /**
+     * 从连接读取数据并尝试解析请求
+     * @param connection 连接
+     */
+    private void read(Connection connection) {
+        if (connection.readBuffer == null) {
+            connection.readBuffer = acquireBuffer();
+        }
+        
+        int read;
+        try {
+            read = connection.channel.read(connection.readBuffer);
+        } catch (IOException e) {
+            close(connection);
+            return;
+        }
+        if (read < 0) {
+            close(connection);
+            return;
+        }
+        
+        connection.lastActive = System.currentTimeMillis();
+        parse(connection);
+    }
+    
+    /**
+     * 从连接已读取的数据中解析一个完整的请求并交给处理器
+     * @param connection 连接
+     */
+    private void parse(Connection connection) {
+        ByteBuffer buffer = connection.readBuffer;
+        int headEnd = findHeadEnd(buffer);
+        if (headEnd < 0) {
+            if (!buffer.hasRemaining()) {
+                // 请求头超过缓冲区大小
+                respondAndClose(connection, 431);
+            }
+            return;
+        }
+        
+        byte[] head = new byte[headEnd];
+        for (int i = 0; i < headEnd; i++) {
+            head[i] = buffer.get(i);
+        }
+        String[] lines = new String(head, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            respondAndClose(connection, 400);
+            return;
+        }
+        
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                respondAndClose(connection, 400);
+                return;
+            }
+            headers.putIfAbsent(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                    lines[i].substring(colon + 1).trim());
+        }
+        
+        // 回调请求没有请求体，只接受能放入缓冲区的定长请求体并丢弃
+        if (headers.containsKey("transfer-encoding")) {
+            respondAndClose(connection, 411);
+            return;
+        }
+        int contentLength;
+        try {
+            contentLength = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+        } catch (NumberFormatException e) {
+            respondAndClose(connection, 400);
+            return;
+        }
+        if (contentLength < 0 || headEnd + contentLength > buffer.capacity()) {
+            respondAndClose(connection, 413);
+            return;
+        }
+        if (buffer.position() < headEnd + contentLength) {
+            return;
+        }
+        
+        // 保留已经读到的下一个请求
+        buffer.flip();
+        buffer.position(headEnd + contentLength);
+        buffer.compact();
+        if (buffer.position() == 0) {
+            releaseBuffer(buffer);
+            connection.readBuffer = null;
+        }
+        
+        String version = requestLine[2];
+        String connectionHeader = headers.getOrDefault("connection", "");
+        connection.requests++;
+        connection.keepAlive = connection.requests < MAX_REQUESTS_PER_CONNECTION
+                && ("HTTP/1.1".equals(version) ? !"close".equalsIgnoreCase(connectionHeader)
+                        : "keep-alive".equalsIgnoreCase(connectionHeader));
+        connection.head = "HEAD".equals(requestLine[0]);
+        
+        String target = requestLine[1];
+        int question = target.indexOf('?');
+        CallbackRequest request = new CallbackRequest(requestLine[0],
+                question >= 0 ? target.substring(0, question) : target,
+                question >= 0 ? target.substring(question + 1) : null, headers);
+        dispatch(connection, request);
+    }
+    
+    /**
+     * 把请求交给匹配的处理器，响应就绪后在事件循环上发送
+     * @param connection 连接
+     * @param request 请求
+     */
+    private void dispatch(Connection connection, CallbackRequest request) {
+        // 处理请求期间不再读取，后续请求留在套接字缓冲区中
+        connection.processing = true;
+        connection.key.interestOps(0);
+        
+        RequestHandler handler = findHandler(request.getPath());
+        if (handler == null) {
+            respond(connection, status(404));
+            return;
+        }
+        if (inFlight.get() >= maxInFlight) {
+            rejected.increment();
+            respond(connection, busyResponse);
+            return;
+        }
+        
+        inFlight.incrementAndGet();
+        CompletableFuture<CallbackResponse> future;
+        try {
+            future = handler.handle(request);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((response, error) -> {
+            inFlight.decrementAndGet();
+            CallbackResponse result = error != null || response == null ? status(500) : response;
+            tasks.add(() -> respond(connection, result));
+            selector.wakeup();
+        });
+    }
+    
+    /**
+     * 按最长前缀查找请求处理器
+     * @param path 请求路径
+     * @return 请求处理器，没有匹配时返回null
+     */
+    private RequestHandler findHandler(String path) {
+        for (Map.Entry<String, RequestHandler> entry : handlers) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 发送响应，发送完成后按keep-alive决定继续读取还是关闭连接
+     * @param connection 连接
+     * @param response 响应
+     */
+    private void respond(Connection connection, CallbackResponse response) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        
+        byte[] body = connection.head ? new byte[0] : response.getBody();
+        StringBuilder head = new StringBuilder(256);
+        head.append("HTTP/1.1 ").append(response.getStatusCode()).append(' ')
+                .append(reasonPhrase(response.getStatusCode())).append("\r\n");
+        head.append("Date: ").append(date()).append("\r\n");
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        head.append("Content-Length: ").append(response.getBody().length).append("\r\n");
+        head.append("Connection: ").append(connection.keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        
+        // 小响应放入池化的直接缓冲区，过大的响应直接包装
+        if (headBytes.length + body.length <= BUFFER_SIZE) {
+            connection.writeBuffer = acquireBuffer();
+            connection.writeBuffer.put(headBytes).put(body).flip();
+            connection.writePooled = true;
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + body.length);
+            buffer.put(headBytes).put(body).flip();
+            connection.writeBuffer = buffer;
+            connection.writePooled = false;
+        }
+        write(connection);
+    }
+    
+    /**
+     * 发送错误状态并在发送后关闭连接
+     * @param connection 连接
+     * @param statusCode 状态码
+     */
+    private void respondAndClose(Connection connection, int statusCode) {
+        connection.keepAlive = false;
+        connection.processing = true;
+        connection.key.interestOps(0);
+        respond(connection, status(statusCode));
+    }
+    
+    /**
+     * 写出待发送的响应，未写完时等待连接可写
+     * @param connection 连接
+     */
+    private void write(Connection connection) {
+        ByteBuffer buffer = connection.writeBuffer;
+        if (buffer == null) {
+            return;
+        }
+        
+        try {
+            connection.channel.write(buffer);
+        } catch (IOException e) {
+            close(connection);
+            return;
+        }
+        if (buffer.hasRemaining()) {
+            connection.key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        
+        if (connection.writePooled) {
+            releaseBuffer(buffer);
+        }
+        connection.writeBuffer = null;
+        connection.processing = false;
+        if (!connection.keepAlive) {
+            close(connection);
+            return;
+        }
+        
+        connection.lastActive = System.currentTimeMillis();
+        connection.key.interestOps(SelectionKey.OP_READ);
+        if (connection.readBuffer != null) {
+            // 客户端已经发来了下一个请求
+            parse(connection);
+        }
+    }
+    
+    /**
+     * 关闭请求头未读完或空闲超时的连接，等待处理器的连接不受影响
+     * @param now 当前时间
+     */
+    private void closeIdle(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection connection = (Connection) attachment;
+                if (!connection.processing && now - connection.lastActive > IDLE_TIMEOUT_MILLIS) {
+                    close(connection);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 关闭连接并归还其缓冲区
+     * @param connection 连接
+     */
+    private void close(Connection connection) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        closeQuietly(connection.key);
+        connections--;
+        if (connection.readBuffer != null) {
+            releaseBuffer(connection.readBuffer);
+            connection.readBuffer = null;
+        }
+        if (connection.writeBuffer != null && connection.writePooled) {
+            releaseBuffer(connection.writeBuffer);
+        }
+        connection.writeBuffer = null;
+    }
+    
+    /**
+     * 取消选择键并关闭其通道
+     * @param key 选择键
+     */
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+    
+    /**
+     * 关闭通道
+     * @param channel 通道
+     */
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // 忽略关闭时的错误
+        }
+    }
+    
+    /**
+     * 从缓冲区池取出一个已清空的直接缓冲区，只在事件循环上调用
+     * @return 缓冲区
+     */
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+    
+    /**
+     * 把缓冲区归还缓冲区池，池已满时丢弃，只在事件循环上调用
+     * @param buffer 缓冲区
+     */
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+            bufferPool.push(buffer);
+        }
+    }
+    
+    /**
+     * 查找请求头的结束位置
+     * @param buffer 处于写入模式的读缓冲区
+     * @return 请求头结束（空行之后）的位置，请求头不完整时返回-1
+     */
+    private static int findHeadEnd(ByteBuffer buffer) {
+        for (int i = 3; i < buffer.position(); i++) {
+            if (buffer.get(i) == '\n' && buffer.get(i - 1) == '\r'
+                    && buffer.get(i - 2) == '\n' && buffer.get(i - 3) == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 获取当前时间的Date响应头，每秒格式化一次
+     * @return Date响应头的值
+     */
+    private String date() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != dateSecond || date == null) {
+            dateSecond = second;
+            date = DATE_FORMAT.format(ZonedDateTime.now(ZoneOffset.UTC));
+        }
+        return date;
+    }
+    
+    /**
+     * 创建只有状态行的纯文本响应
+     * @param statusCode 状态码
+     * @return 响应
+     */
+    private static CallbackResponse status(int statusCode) {
+        return new CallbackResponse(statusCode, "text/plain; charset=UTF-8",
+                reasonPhrase(statusCode).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 获取状态码的原因短语
+     * @param statusCode 状态码
+     * @return 原因短语
+     */
+    private static String reasonPhrase(int statusCode) {
+        switch (statusCode) {
+            case 200:
+                return "OK";
+            case 202:
+                return "Accepted";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 411:
+                return "Length Required";
+            case 413:
+                return "Payload Too Large";
+            case 431:
+                return "Request Header Fields Too Large";
+            case 500:
+                return "Internal Server Error";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return "";
+        }
+    }
+    
+    /**
+     * 连接状态类，只在事件循环上访问
+     */
+    private static class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer readBuffer;
+        private ByteBuffer writeBuffer;
+        private boolean writePooled;
+        private boolean keepAlive;
+        private boolean head;
+        private boolean processing;
+        private int requests;
+        private long lastActive;
+        
+        public Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.lastActive = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.minecraft.ssoplugin.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 请求处理器接口，处理回调服务器上一个路径的请求
+ */
+public interface RequestHandler {
+    
+    /**
+     * 处理请求，处理器不应阻塞调用线程
+     * @param request 请求
+     * @return 响应
+     */
+    CompletableFuture<CallbackResponse> handle(CallbackRequest request);
+}
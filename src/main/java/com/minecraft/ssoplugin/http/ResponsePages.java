@@ -0,0 +1,480 @@
+package com.minecraft.ssoplugin.http;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.oauth.CallbackResult;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 回调响应页面类，负责加载页面模板并缓存预先渲染的响应
+ * <p>
+ * 模板从插件目录下的callback.html读取，不存在时从插件JAR中释放默认模板。
+ * 结果固定的页面（绑定成功、各种失败原因、405等）在创建时渲染并编码为字节数组，
+ * 启用gzip时同时缓存压缩后的版本，客户端发送 {@code Accept-Encoding: gzip} 时直接返回压缩版本。
+ * 回调服务器在重新加载时重建，模板也随之重新渲染。
+ * <p>
+ * 在后台绑定时返回的处理中页面包含轮询状态接口的脚本，页面除跟踪ID外的部分同样预先编码。
+ * 状态接口返回的JSON也按结果预先编码。
+ */
+public class ResponsePages {
+    
+    // 模板文件名
+    private static final String TEMPLATE_FILE = "callback.html";
+    
+    // 模板占位符
+    private static final String CLASS_PLACEHOLDER = "{{class}}";
+    private static final String MESSAGE_PLACEHOLDER = "{{message}}";
+    private static final String SCRIPT_PLACEHOLDER = "{{script}}";
+    
+    // 处理中页面中跟踪ID的位置
+    private static final String ID_MARKER = "{{id}}";
+    
+    private static final String CONTENT_TYPE = "text/html; charset=UTF-8";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+    
+    // 处理中页面轮询状态接口的脚本，{{url}}替换为状态接口的地址
+    private static final String POLL_SCRIPT = "<script>\n" +
+            "(function () {\n" +
+            "    var url = {{url}};\n" +
+            "    var message = document.getElementById(\"message\") || document.querySelector(\"p\");\n" +
+            "    function poll() {\n" +
+            "        fetch(url, {cache: \"no-store\"}).then(function (response) {\n" +
+            "            return response.json();\n" +
+            "        }).then(function (status) {\n" +
+            "            if (status.status === \"processing\") {\n" +
+            "                setTimeout(poll, 1000);\n" +
+            "                return;\n" +
+            "            }\n" +
+            "            message.className = status.success ? \"success\" : \"error\";\n" +
+            "            message.textContent = status.message;\n" +
+            "        }).catch(function () {\n" +
+            "            setTimeout(poll, 3000);\n" +
+            "        });\n" +
+            "    }\n" +
+            "    setTimeout(poll, 500);\n" +
+            "})();\n" +
+            "</script>";
+    
+    // 处理中页面的提示信息
+    private static final String PROCESSING_MESSAGE = "正在绑定，请稍候……";
+    
+    // 跟踪ID不存在或已过期时的提示信息
+    private static final String UNKNOWN_MESSAGE = "绑定状态已过期，请查看游戏内消息或执行 /ssobind 查看绑定状态。";
+    
+    /**
+     * 结果固定的页面
+     */
+    public enum Page {
+        
+        /**
+         * 请求方法不是GET
+         */
+        METHOD_NOT_ALLOWED(405, "Method Not Allowed"),
+        
+        /**
+         * 查询参数编码无效
+         */
+        INVALID_PARAMS(400, "无效的请求参数"),
+        
+        /**
+         * 缺少授权码
+         */
+        MISSING_CODE(400, "缺少授权码"),
+        
+        /**
+         * 缺少状态参数
+         */
+        MISSING_STATE(400, "缺少状态参数"),
+        
+        /**
+         * 服务器内部错误
+         */
+        INTERNAL_ERROR(500, "服务器内部错误"),
+        
+        /**
+         * 服务器繁忙
+         */
+        BUSY(503, "服务器繁忙，请稍后刷新此页面。");
+        
+        private final int statusCode;
+        private final String message;
+        
+        Page(int statusCode, String message) {
+            this.statusCode = statusCode;
+            this.message = message;
+        }
+    }
+    
+    private final SSOPlugin plugin;
+    private final boolean gzip;
+    private final String template;
+    private final Map<Page, Variants> pages;
+    private final Map<CallbackResult, Variants> results;
+    private final byte[] processingPrefix;
+    private final byte[] processingSuffix;
+    private final Map<CallbackResult, CallbackResponse> statuses;
+    private final CallbackResponse processingStatus;
+    private final CallbackResponse unknownStatus;
+    
+    /**
+     * 构造函数，加载模板并渲染所有固定页面
+     * @param plugin 插件实例
+     * @param statusPath 状态接口的路径
+     */
+    public ResponsePages(SSOPlugin plugin, String statusPath) {
+        this.plugin = plugin;
+        this.gzip = plugin.getConfigManager().isCallbackGzip();
+        this.template = loadTemplate();
+        
+        this.pages = new EnumMap<>(Page.class);
+        for (Page page : Page.values()) {
+            pages.put(page, prerender(page.statusCode, page.message));
+        }
+        
+        this.results = new EnumMap<>(CallbackResult.class);
+        for (CallbackResult result : CallbackResult.values()) {
+            results.put(result, prerender(result.isSuccess() ? 200 : 400, resultMessage(result)));
+        }
+        
+        // 处理中页面只有跟踪ID随请求变化，以ID为界预先编码前后两部分
+        String script = POLL_SCRIPT.replace("{{url}}", JSONObject.quote(statusPath + "?id=" + ID_MARKER));
+        String processing = renderHtml("processing", PROCESSING_MESSAGE, script);
+        int marker = processing.indexOf(ID_MARKER);
+        this.processingPrefix = processing.substring(0, marker).getBytes(StandardCharsets.UTF_8);
+        this.processingSuffix = processing.substring(marker + ID_MARKER.length()).getBytes(StandardCharsets.UTF_8);
+        
+        this.statuses = new EnumMap<>(CallbackResult.class);
+        for (CallbackResult result : CallbackResult.values()) {
+            statuses.put(result, status(200, "done", result.isSuccess(), resultMessage(result)));
+        }
+        this.processingStatus = status(200, "processing", false, PROCESSING_MESSAGE);
+        this.unknownStatus = status(404, "unknown", false, UNKNOWN_MESSAGE);
+    }
+    
+    /**
+     * 获取固定页面
+     * @param page 页面
+     * @param request 请求，用于选择是否返回压缩版本
+     * @return 响应
+     */
+    public CallbackResponse get(Page page, CallbackRequest request) {
+        return pages.get(page).select(request);
+    }
+    
+    /**
+     * 获取回调处理结果对应的页面
+     * @param result 回调处理结果
+     * @param request 请求，用于选择是否返回压缩版本
+     * @return 响应
+     */
+    public CallbackResponse get(CallbackResult result, CallbackRequest request) {
+        return results.get(result).select(request);
+    }
+    
+    /**
+     * 获取未压缩的固定页面，用于不区分请求的场合
+     * @param page 页面
+     * @return 响应
+     */
+    public CallbackResponse get(Page page) {
+        return pages.get(page).plain;
+    }
+    
+    /**
+     * 获取在后台绑定时返回的处理中页面
+     * @param id 跟踪ID，只能包含URL安全的字符
+     * @return 响应
+     */
+    public CallbackResponse processing(String id) {
+        byte[] idBytes = id.getBytes(StandardCharsets.US_ASCII);
+        byte[] body = new byte[processingPrefix.length + idBytes.length + processingSuffix.length];
+        System.arraycopy(processingPrefix, 0, body, 0, processingPrefix.length);
+        System.arraycopy(idBytes, 0, body, processingPrefix.length, idBytes.length);
+        System.arraycopy(processingSuffix, 0, body, processingPrefix.length + idBytes.length, processingSuffix.length);
+        return new CallbackResponse(200, CONTENT_TYPE, body).withHeader("Cache-Control", "no-store");
+    }
+    
+    /**
+     * 获取状态接口的响应
+     * @param result 绑定结果，仍在处理时为null
+     * @return 响应
+     */
+    public CallbackResponse status(CallbackResult result) {
+        return result != null ? statuses.get(result) : processingStatus;
+    }
+    
+    /**
+     * 获取跟踪ID不存在或已过期时状态接口的响应
+     * @return 响应
+     */
+    public CallbackResponse unknownStatus() {
+        return unknownStatus;
+    }
+    
+    /**
+     * 渲染内容不固定的页面，不缓存也不压缩
+     * @param statusCode 状态码
+     * @param message 页面消息，会进行HTML转义
+     * @return 响应
+     */
+    public CallbackResponse render(int statusCode, String message) {
+        return new CallbackResponse(statusCode, CONTENT_TYPE, renderHtml(statusCode, message));
+    }
+    
+    /**
+     * 编码状态接口的响应
+     * @param statusCode 状态码
+     * @param status 处理状态（processing、done或unknown）
+     * @param success 是否绑定成功
+     * @param message 提示信息
+     * @return 响应
+     */
+    private static CallbackResponse status(int statusCode, String status, boolean success, String message) {
+        JSONObject json = new JSONObject();
+        json.put("status", status);
+        json.put("success", success);
+        json.put("message", message);
+        return new CallbackResponse(statusCode, JSON_CONTENT_TYPE, json.toString().getBytes(StandardCharsets.UTF_8))
+                .withHeader("Cache-Control", "no-store");
+    }
+    
+    /**
+     * 渲染页面并缓存未压缩和压缩的版本
+     * @param statusCode 状态码
+     * @param message 页面消息
+     * @return 页面的各个版本
+     */
+    private Variants prerender(int statusCode, String message) {
+        byte[] body = renderHtml(statusCode, message);
+        byte[] compressed = gzip ? compress(body) : null;
+        
+        // 压缩后没有变小时只保留未压缩版本
+        if (compressed == null || compressed.length >= body.length) {
+            return new Variants(new CallbackResponse(statusCode, CONTENT_TYPE, body), null);
+        }
+        
+        CallbackResponse plain = new CallbackResponse(statusCode, CONTENT_TYPE, body)
+                .withHeader("Vary", "Accept-Encoding");
+        CallbackResponse gzipped = new CallbackResponse(statusCode, CONTENT_TYPE, compressed)
+                .withHeader("Vary", "Accept-Encoding")
+                .withHeader("Content-Encoding", "gzip");
+        return new Variants(plain, gzipped);
+    }
+    
+    /**
+     * 将消息填入模板
+     * @param statusCode 状态码
+     * @param message 页面消息
+     * @return UTF-8编码的页面
+     */
+    private byte[] renderHtml(int statusCode, String message) {
+        return renderHtml(statusCode == 200 ? "success" : "error", message, "").getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 将样式、消息和脚本填入模板
+     * @param cssClass 消息的样式
+     * @param message 页面消息
+     * @param script 脚本，没有时为空字符串
+     * @return 页面
+     */
+    private String renderHtml(String cssClass, String message, String script) {
+        String html = template;
+        
+        // 旧模板没有脚本占位符时把脚本放在</body>之前
+        if (!script.isEmpty() && !html.contains(SCRIPT_PLACEHOLDER)) {
+            int body = html.lastIndexOf("</body>");
+            html = body >= 0 ? html.substring(0, body) + script + "\n" + html.substring(body) : html + script;
+        }
+        
+        return html
+                .replace(CLASS_PLACEHOLDER, cssClass)
+                .replace(MESSAGE_PLACEHOLDER, escapeHtml(message))
+                .replace(SCRIPT_PLACEHOLDER, script);
+    }
+    
+    /**
+     * 加载页面模板，插件目录下没有模板时先释放默认模板
+     * @return 模板内容
+     */
+    private String loadTemplate() {
+        File file = new File(plugin.getDataFolder(), TEMPLATE_FILE);
+        if (!file.exists() && hasBundledTemplate()) {
+            plugin.saveResource(TEMPLATE_FILE, false);
+        }
+        
+        if (file.exists()) {
+            try {
+                return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                plugin.log(Level.WARNING, "无法读取回调页面模板 " + file.getName() + "，使用默认模板: " + e.getMessage());
+            }
+        }
+        
+        try (InputStream in = plugin.getResource(TEMPLATE_FILE)) {
+            if (in != null) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            plugin.log(Level.WARNING, "无法读取默认回调页面模板: " + e.getMessage());
+        }
+        
+        return "<!DOCTYPE html>\n<html>\n<head><meta charset=\"UTF-8\"><title>Minecraft SSO绑定</title></head>\n"
+                + "<body><p id=\"message\" class=\"" + CLASS_PLACEHOLDER + "\">" + MESSAGE_PLACEHOLDER + "</p>"
+                + SCRIPT_PLACEHOLDER + "</body>\n</html>";
+    }
+    
+    /**
+     * 检查插件包中是否带有默认模板
+     * @return 是否带有默认模板
+     */
+    private boolean hasBundledTemplate() {
+        try (InputStream in = plugin.getResource(TEMPLATE_FILE)) {
+            return in != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * 获取回调处理结果对应的页面消息
+     * @param result 回调处理结果
+     * @return 页面消息
+     */
+    private static String resultMessage(CallbackResult result) {
+        switch (result) {
+            case SUCCESS:
+                return "绑定成功！您现在可以关闭此页面并返回游戏。";
+            case INVALID_STATE:
+                return "绑定链接无效或已过期，请在游戏中重新获取绑定链接。";
+            case TOKEN_FAILED:
+                return "无法从SSO服务器获取访问令牌，请重试。";
+            case USER_INFO_FAILED:
+                return "无法获取SSO账号信息，请重试。";
+            case PLAYER_OFFLINE:
+                return "发起绑定的玩家已离线，请进入游戏后重新获取绑定链接。";
+            case PLAYER_ALREADY_BOUND:
+                return "您的游戏账号已经绑定了SSO账号。";
+            case SSO_ID_ALREADY_BOUND:
+                return "该SSO账号已被其他玩家绑定。";
+            default:
+                return "绑定失败，请重试。";
+        }
+    }
+    
+    /**
+     * 压缩页面
+     * @param body 未压缩的页面
+     * @return 压缩后的页面，压缩失败时返回null
+     */
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(body);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * 检查客户端是否接受gzip压缩
+     * @param request 请求
+     * @return 是否接受gzip
+     */
+    private static boolean acceptsGzip(CallbackRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            
+            // q=0表示明确不接受
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * HTML转义
+     * @param text 文本
+     * @return 转义后的文本
+     */
+    private static String escapeHtml(String text) {
+        StringBuilder builder = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                case '\'':
+                    builder.append("&#39;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 同一页面的未压缩和压缩版本
+     */
+    private static class Variants {
+        
+        private final CallbackResponse plain;
+        private final CallbackResponse gzipped;
+        
+        Variants(CallbackResponse plain, CallbackResponse gzipped) {
+            this.plain = plain;
+            this.gzipped = gzipped;
+        }
+        
+        /**
+         * 按请求选择版本
+         * @param request 请求
+         * @return 响应
+         */
+        CallbackResponse select(CallbackRequest request) {
+            return gzipped != null && acceptsGzip(request) ? gzipped : plain;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.minecraft.ssoplugin.oauth;
+
+import java.util.UUID;
+
+/**
+ * 认证状态类，记录发起绑定的玩家和选择的SSO提供者
+ */
+public class AuthState {
+    
+    private final UUID playerUuid;
+    private final String playerName;
+    private final String providerName;
+    
+    /**
+     * 构造函数
+     * @param playerUuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param providerName 提供者名称
+     */
+    public AuthState(UUID playerUuid, String playerName, String providerName) {
+        this.playerUuid = playerUuid;
+        this.playerName = playerName;
+        this.providerName = providerName;
+    }
+    
+    /**
+     * 获取玩家UUID
+     * @return 玩家UUID
+     */
+    public UUID getPlayerUuid() {
+        return playerUuid;
+    }
+    
+    /**
+     * 获取发起绑定时的玩家名称
+     * @return 玩家名称
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+    
+    /**
+     * 获取发起绑定时选择的提供者名称
+     * @return 提供者名称
+     */
+    public String getProviderName() {
+        return providerName;
+    }
+}
@@ -0,0 +1,47 @@
+package com.minecraft.ssoplugin.oauth;
+
+import java.util.UUID;
+
+/**
+ * 认证状态存储接口，负责签发绑定链接的状态参数并在回调时取回发起认证的玩家和提供者
+ */
+public interface AuthStateStore {
+    
+    /**
+     * 开始后台维护
+     */
+    void start();
+    
+    /**
+     * 停止后台维护
+     */
+    void close();
+    
+    /**
+     * 为玩家签发新的状态参数
+     * @param playerUuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param providerName 提供者名称
+     * @return 状态参数
+     */
+    String issue(UUID playerUuid, String playerName, String providerName);
+    
+    /**
+     * 取出状态参数对应的玩家，每个状态参数只能使用一次
+     * @param state 状态参数
+     * @return 发起认证的玩家，状态参数无效、已过期或已使用时返回null
+     */
+    AuthState take(String state);
+    
+    /**
+     * 获取当前在内存中保存的条目数量
+     * @return 条目数量
+     */
+    int size();
+    
+    /**
+     * 获取因过期而失效的状态参数数量
+     * @return 过期数量
+     */
+    long getExpiredCount();
+}
@@ -0,0 +1,119 @@
+package com.minecraft.ssoplugin.oauth;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 回调去重器类，合并同一授权码和状态参数的重复回调
+ * <p>
+ * 浏览器刷新或重复点击会让同一个回调请求到达多次。第一次请求正常处理，
+ * 之后的重复请求直接共享第一次请求的处理结果（包括仍在进行中的结果），
+ * 不会再次请求SSO服务器或写入数据库。记录按到达顺序保存，超过有效期或数量上限时从最早的开始移除。
+ */
+public class CallbackDeduplicator {
+    
+    private final long ttlMillis;
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries;
+    private final LongAdder duplicates;
+    
+    /**
+     * 构造函数
+     * @param ttlMillis 记录的有效期（毫秒）
+     * @param maxSize 最多保存的记录数
+     */
+    public CallbackDeduplicator(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>();
+        this.duplicates = new LongAdder();
+    }
+    
+    /**
+     * 处理回调，重复的回调返回第一次处理的结果
+     * @param code 授权码
+     * @param state 状态参数
+     * @param handler 第一次到达时执行的处理
+     * @return 处理结果
+     */
+    public CompletableFuture<CallbackResult> handle(String code, String state,
+                                                    Supplier<CompletableFuture<CallbackResult>> handler) {
+        String key = code + ' ' + state;
+        CompletableFuture<CallbackResult> future = new CompletableFuture<>();
+        long now = System.currentTimeMillis();
+        
+        synchronized (entries) {
+            evict(now);
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                duplicates.increment();
+                return existing.result;
+            }
+            entries.put(key, new Entry(future, now));
+        }
+        
+        // 在锁外执行处理，处理器可能同步完成并触发回调
+        try {
+            handler.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * 获取当前保存的记录数
+     * @return 记录数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    /**
+     * 获取合并的重复回调次数
+     * @return 重复回调次数
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+    
+    /**
+     * 从最早的记录开始移除过期的记录，超过数量上限时移除最早的记录
+     * @param now 当前时间
+     */
+    private void evict(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entries.size() < maxSize && now - entry.createdAt <= ttlMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * 回调记录类
+     */
+    private static class Entry {
+        private final CompletableFuture<CallbackResult> result;
+        private final long createdAt;
+        
+        public Entry(CompletableFuture<CallbackResult> result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+}
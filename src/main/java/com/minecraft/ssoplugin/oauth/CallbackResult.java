@@ -0,0 +1,55 @@
+package com.minecraft.ssoplugin.oauth;
+
+/**
+ * OAuth回调处理结果枚举
+ */
+public enum CallbackResult {
+    
+    /**
+     * 绑定成功
+     */
+    SUCCESS,
+    
+    /**
+     * 状态参数无效或已过期
+     */
+    INVALID_STATE,
+    
+    /**
+     * 无法获取访问令牌
+     */
+    TOKEN_FAILED,
+    
+    /**
+     * 无法获取用户信息或用户信息不完整
+     */
+    USER_INFO_FAILED,
+    
+    /**
+     * 发起绑定的玩家已离线
+     */
+    PLAYER_OFFLINE,
+    
+    /**
+     * 玩家已经绑定了SSO账号
+     */
+    PLAYER_ALREADY_BOUND,
+    
+    /**
+     * SSO账号已被其他玩家绑定
+     */
+    SSO_ID_ALREADY_BOUND,
+    
+    /**
+     * 数据库错误
+     */
+    ERROR;
+    
+    /**
+     * 检查是否绑定成功
+     * @return 是否绑定成功
+     */
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
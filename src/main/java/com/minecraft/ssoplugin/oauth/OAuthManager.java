@@ -1,15 +1,17 @@
 package com.minecraft.ssoplugin.oauth;
 
 import com.minecraft.ssoplugin.SSOPlugin;
-import com.minecraft.ssoplugin.oauth.providers.GenericOAuthProvider;
+import com.minecraft.ssoplugin.storage.BindResult;
 import com.minecraft.ssoplugin.storage.StorageManager;
 import org.bukkit.entity.Player;
 import org.json.JSONObject;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 
 /**
@@ -18,8 +20,11 @@ import java.util.logging.Level;
 public class OAuthManager {
     
     private final SSOPlugin plugin;
-    private final Map<String, PendingAuth> pendingAuths;
-    private OAuthProvider provider;
+    private final AuthStateStore stateStore;
+    private final CallbackDeduplicator callbackDeduplicator;
+    private volatile ProviderRegistry registry;
+    private final TokenRefreshCoordinator refreshCoordinator;
+    private volatile TokenRefreshScheduler refreshScheduler;
     
     /**
      * 构造函数
@@ -27,35 +32,156 @@ public class OAuthManager {
      */
     public OAuthManager(SSOPlugin plugin) {
         this.plugin = plugin;
-        this.pendingAuths = new ConcurrentHashMap<>();
-        initProvider();
+        this.stateStore = createStateStore();
+        this.stateStore.start();
+        this.callbackDeduplicator = new CallbackDeduplicator(plugin.getConfigManager().getCallbackDedupTtl() * 1000L,
+                plugin.getConfigManager().getCallbackDedupMaxSize());
+        this.registry = new ProviderRegistry(plugin);
+        this.refreshCoordinator = new TokenRefreshCoordinator(plugin, this::retainRegistry, this::onTokenRotated);
+        startRefreshScheduler();
     }
     
     /**
-     * 初始化OAuth提供者
+     * 按配置创建认证状态存储
+     * @return 认证状态存储
      */
-    private void initProvider() {
-        String providerType = plugin.getConfigManager().getOAuthProvider();
+    private AuthStateStore createStateStore() {
+        long ttlMillis = plugin.getConfigManager().getPendingAuthTtl() * 1000L;
+        if (!plugin.getConfigManager().isPendingAuthStateless()) {
+            return new PendingAuthStore(ttlMillis, plugin.getConfigManager().getPendingAuthMaxPerPlayer());
+        }
         
-        // 目前只支持通用OAuth提供者
-        // 未来可以根据providerType创建不同的提供者实现
-        provider = new GenericOAuthProvider(plugin);
+        String secret = plugin.getConfigManager().getPendingAuthSecret();
+        if (secret.isEmpty()) {
+            plugin.log(Level.WARNING, "未配置pending_auth.secret，已随机生成签名密钥，绑定回调只能由本服务器处理");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return new SignedStateStore(random, ttlMillis);
+        }
+        if (secret.length() < 16) {
+            plugin.log(Level.WARNING, "pending_auth.secret过短，建议至少使用32个随机字符");
+        }
+        return new SignedStateStore(secret.getBytes(StandardCharsets.UTF_8), ttlMillis);
+    }
+    
+    /**
+     * 按配置启动后台令牌刷新调度器
+     */
+    private void startRefreshScheduler() {
+        if (plugin.getConfigManager().isTokenRefreshEnabled()) {
+            refreshScheduler = new TokenRefreshScheduler(plugin, refreshCoordinator);
+            refreshScheduler.start();
+        }
+    }
+    
+    /**
+     * 重新加载OAuth提供者，按新配置创建提供者并停用旧提供者
+     * <p>
+     * 令牌刷新调度器继续运行，之后的回调和刷新自动使用新的提供者；
+     * 旧提供者上进行中的回调和刷新结束后才关闭其HTTP客户端。
+     */
+    public void reload() {
+        ProviderRegistry oldRegistry = registry;
+        registry = new ProviderRegistry(plugin);
+        oldRegistry.retire();
+    }
+    
+    /**
+     * 取得当前提供者注册表并登记一个进行中的请求，请求结束后必须调用 {@link ProviderRegistry#release()}
+     * @return 当前提供者注册表
+     */
+    private ProviderRegistry retainRegistry() {
+        while (true) {
+            // 读取后注册表可能恰好被重新加载停用，此时改用新的注册表
+            ProviderRegistry current = registry;
+            if (current.retain()) {
+                return current;
+            }
+        }
+    }
+    
+    /**
+     * 关闭OAuth管理器
+     */
+    public void close() {
+        stateStore.close();
+        if (refreshScheduler != null) {
+            refreshScheduler.close();
+        }
+        registry.close();
+    }
+    
+    /**
+     * 刷新玩家的访问令牌
+     * <p>
+     * 同一玩家的并发刷新共享同一个请求，令牌刚刚刷新过时直接返回新令牌，
+     * 其他插件也应通过此方法刷新令牌。
+     * @param playerUuid 玩家UUID
+     * @return 新的令牌响应，玩家未绑定、没有刷新令牌或刷新期间绑定已改变时为null；刷新失败时异常完成
+     */
+    public CompletableFuture<OAuthTokenResponse> refreshToken(UUID playerUuid) {
+        return refreshCoordinator.refresh(playerUuid);
+    }
+    
+    /**
+     * 令牌刷新成功后按新令牌的过期时间重新安排后台刷新
+     * @param playerUuid 玩家UUID
+     * @param tokenResponse 新的令牌响应
+     */
+    private void onTokenRotated(UUID playerUuid, OAuthTokenResponse tokenResponse) {
+        TokenRefreshScheduler scheduler = refreshScheduler;
+        if (scheduler != null) {
+            scheduler.schedule(playerUuid, tokenResponse.getRefreshToken(), tokenResponse.getExpiresIn());
+        }
+    }
+    
+    /**
+     * 获取提供者注册表
+     * @return 提供者注册表
+     */
+    public ProviderRegistry getProviderRegistry() {
+        return registry;
+    }
+    
+    /**
+     * 获取认证状态存储
+     * @return 认证状态存储
+     */
+    public AuthStateStore getAuthStateStore() {
+        return stateStore;
+    }
+    
+    /**
+     * 获取回调去重器
+     * @return 回调去重器
+     */
+    public CallbackDeduplicator getCallbackDeduplicator() {
+        return callbackDeduplicator;
+    }
+    
+    /**
+     * 获取后台令牌刷新调度器
+     * @return 令牌刷新调度器，未启用时返回null
+     */
+    public TokenRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
     }
     
     /**
      * 生成授权URL
      * @param player 玩家
-     * @return 授权URL
+     * @param providerName 提供者名称，为null时使用默认提供者
+     * @return 授权URL，提供者不存在时返回null
      */
-    public String generateAuthUrl(Player player) {
-        // 生成状态参数，用于防止CSRF攻击
-        String state = generateState(player.getUniqueId());
-        
-        // 将状态参数与玩家UUID关联，存储在待处理认证映射中
-        pendingAuths.put(state, new PendingAuth(player.getUniqueId(), System.currentTimeMillis()));
+    public String generateAuthUrl(Player player, String providerName) {
+        ProviderRegistry registry = this.registry;
+        OAuthProvider provider = providerName != null ? registry.get(providerName) : registry.getDefault();
+        if (provider == null) {
+            return null;
+        }
         
-        // 清理过期的待处理认证
-        cleanupPendingAuths();
+        // 生成与玩家和提供者关联的状态参数，用于防止CSRF攻击，回调时按其中的名称直接取出提供者
+        String state = stateStore.issue(player.getUniqueId(), player.getName(), provider.getName());
         
         // 生成授权URL
         return provider.generateAuthUrl(state);
@@ -63,73 +189,129 @@ public class OAuthManager {
     
     /**
      * 处理OAuth回调
+     * <p>
+     * 同一授权码和状态参数的重复回调共享第一次回调的处理结果，不会再次交换令牌或写入数据库。
      * @param code 授权码
      * @param state 状态参数
-     * @return 是否处理成功
+     * @return 处理结果
      */
-    public boolean handleCallback(String code, String state) {
-        // 检查状态参数是否有效
-        PendingAuth pendingAuth = pendingAuths.get(state);
-        if (pendingAuth == null) {
+    public CompletableFuture<CallbackResult> handleCallback(String code, String state) {
+        return callbackDeduplicator.handle(code, state, () -> processCallback(code, state));
+    }
+    
+    /**
+     * 处理首次到达的OAuth回调
+     * <p>
+     * 令牌交换、用户信息获取（或身份令牌验证）和绑定写入依次异步串联，任何一步等待期间都不占用线程。
+     * @param code 授权码
+     * @param state 状态参数
+     * @return 处理结果
+     */
+    private CompletableFuture<CallbackResult> processCallback(String code, String state) {
+        // 检查状态参数是否有效，并移除待处理认证
+        AuthState authState = stateStore.take(state);
+        if (authState == null) {
             plugin.log(Level.WARNING, "无效的状态参数: " + state);
-            return false;
+            return CompletableFuture.completedFuture(CallbackResult.INVALID_STATE);
         }
         
-        // 移除待处理认证
-        pendingAuths.remove(state);
-        
-        // 获取玩家UUID
-        UUID playerUuid = pendingAuth.getPlayerUuid();
+        ProviderRegistry registry = retainRegistry();
+        OAuthProvider provider = registry.get(authState.getProviderName());
+        if (provider == null) {
+            registry.release();
+            plugin.log(Level.WARNING, "状态参数中的提供者已不存在: " + authState.getProviderName());
+            return CompletableFuture.completedFuture(CallbackResult.INVALID_STATE);
+        }
         
-        try {
-            // 使用授权码获取访问令牌
-            OAuthTokenResponse tokenResponse = provider.getAccessToken(code);
-            if (tokenResponse == null || tokenResponse.getAccessToken() == null) {
-                plugin.log(Level.WARNING, "无法获取访问令牌");
-                return false;
-            }
-            
-            // 使用访问令牌获取用户信息
-            JSONObject userInfo = provider.getUserInfo(tokenResponse.getAccessToken());
-            if (userInfo == null) {
-                plugin.log(Level.WARNING, "无法获取用户信息");
-                return false;
-            }
-            
-            // 提取用户ID
-            String idField = plugin.getConfigManager().getIdField();
-            if (!userInfo.has(idField)) {
-                plugin.log(Level.WARNING, "用户信息中缺少ID字段: " + idField);
-                return false;
-            }
-            
-            String ssoId = userInfo.getString(idField);
-            
-            // 存储绑定信息
-            StorageManager storageManager = plugin.getStorageManager();
-            Player player = plugin.getServer().getPlayer(playerUuid);
-            
-            if (player != null) {
-                // 检查该SSO ID是否已被其他玩家绑定
-                if (storageManager.isSSoIdBound(ssoId) && !storageManager.isPlayerBound(playerUuid)) {
-                    plugin.log(Level.WARNING, "SSO ID已被其他玩家绑定: " + ssoId);
-                    
-                    // 通知玩家
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        player.sendMessage(colorize(plugin.getConfigManager().getMessage("bind_fail")
-                                .replace("%reason%", "此SSO账号已被其他玩家绑定")));
-                    });
+        // 使用授权码获取访问令牌
+        return provider.getAccessTokenAsync(code)
+                .thenCompose(tokenResponse -> {
+                    if (tokenResponse == null || tokenResponse.getAccessToken() == null) {
+                        plugin.log(Level.WARNING, "无法从提供者 " + provider.getName() + " 获取访问令牌");
+                        return CompletableFuture.completedFuture(CallbackResult.TOKEN_FAILED);
+                    }
                     
-                    return false;
-                }
-                
-                // 存储绑定信息
-                boolean success = storageManager.saveBinding(playerUuid, player.getName(), ssoId, 
-                        tokenResponse.getAccessToken(), tokenResponse.getRefreshToken(), 
-                        tokenResponse.getExpiresIn(), userInfo.toString());
+                    // 验证身份令牌或使用访问令牌获取用户信息
+                    return provider.resolveUserInfoAsync(tokenResponse, state)
+                            .thenCompose(userInfo -> bind(authState, registry, provider, tokenResponse, userInfo));
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    plugin.log(Level.SEVERE, "处理OAuth回调时出错: " + cause.getMessage());
+                    cause.printStackTrace();
+                    return CallbackResult.ERROR;
+                })
+                .whenComplete((result, error) -> registry.release());
+    }
+    
+    /**
+     * 根据用户信息存储绑定，并通知玩家结果
+     * <p>
+     * 使用无状态状态参数时，玩家可能在负载均衡后的另一台服务器上，此时使用状态参数中的玩家名称完成绑定，
+     * 不发送游戏内消息。
+     * @param authState 发起认证的玩家
+     * @param registry 处理回调时的提供者注册表
+     * @param provider 签发令牌的提供者
+     * @param tokenResponse 令牌响应
+     * @param userInfo 用户信息，获取失败时为null
+     * @return 处理结果
+     */
+    private CompletableFuture<CallbackResult> bind(AuthState authState, ProviderRegistry registry, OAuthProvider provider,
+                                                   OAuthTokenResponse tokenResponse, JSONObject userInfo) {
+        if (userInfo == null) {
+            plugin.log(Level.WARNING, "无法获取用户信息");
+            return CompletableFuture.completedFuture(CallbackResult.USER_INFO_FAILED);
+        }
+        
+        // 提取用户ID
+        String idField = plugin.getConfigManager().getIdField();
+        if (!userInfo.has(idField)) {
+            plugin.log(Level.WARNING, "用户信息中缺少ID字段: " + idField);
+            return CompletableFuture.completedFuture(CallbackResult.USER_INFO_FAILED);
+        }
+        
+        // 非默认提供者的ID带上提供者名称，不同提供者的相同ID不会冲突
+        String id = userInfo.getString(idField);
+        String ssoId = registry.namespacedSsoId(provider, id);
+        String legacySsoId = registry.legacySsoId(provider, id);
+        if (legacySsoId != null) {
+            // 旧版本按原样保存带冒号的默认提供者ID，已有这样的绑定时沿用原ID，同一账号不会被绑定两次
+            return plugin.getStorageManager().getBindingBySsoIdAsync(legacySsoId).thenCompose(existing ->
+                    store(authState, existing != null ? legacySsoId : ssoId, tokenResponse, userInfo));
+        }
+        return store(authState, ssoId, tokenResponse, userInfo);
+    }
+    
+    /**
+     * 检查冲突并存储绑定信息，并通知玩家结果
+     * @param authState 发起认证的玩家
+     * @param ssoId 保存到数据库的SSO ID
+     * @param tokenResponse 令牌响应
+     * @param userInfo 用户信息
+     * @return 处理结果
+     */
+    private CompletableFuture<CallbackResult> store(AuthState authState, String ssoId,
+                                                    OAuthTokenResponse tokenResponse, JSONObject userInfo) {
+        // 存储绑定信息
+        StorageManager storageManager = plugin.getStorageManager();
+        UUID playerUuid = authState.getPlayerUuid();
+        Player player = plugin.getServer().getPlayer(playerUuid);
+        if (player == null && !(stateStore instanceof SignedStateStore)) {
+            return CompletableFuture.completedFuture(CallbackResult.PLAYER_OFFLINE);
+        }
+        String playerName = player != null ? player.getName() : authState.getPlayerName();
+        
+        // 检查冲突并存储绑定信息，在数据库线程上一次完成
+        return storageManager.bindIfAbsentAsync(playerUuid, playerName, ssoId, 
+                tokenResponse.getAccessToken(), tokenResponse.getRefreshToken(), 
+                tokenResponse.getExpiresIn(), userInfo.toString()).thenApply(result -> {
+            if (result == BindResult.BOUND) {
+                // 新绑定不沿用旧绑定最近刷新得到的令牌，并在令牌过期前自动刷新
+                refreshCoordinator.forget(playerUuid);
+                onTokenRotated(playerUuid, tokenResponse);
                 
-                if (success) {
-                    // 通知玩家绑定成功
+                // 通知玩家绑定成功
+                if (player != null) {
                     plugin.getServer().getScheduler().runTask(plugin, () -> {
                         // 提取用户名和邮箱
                         String username = extractField(userInfo, plugin.getConfigManager().getUsernameField(), "未知用户");
@@ -137,23 +319,39 @@ public class OAuthManager {
                         player.sendMessage(colorize(plugin.getConfigManager().getMessage("bind_success")
                                 .replace("%username%", username)));
                     });
-                    
-                    return true;
-                } else {
-                    // 通知玩家绑定失败
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        player.sendMessage(colorize(plugin.getConfigManager().getMessage("bind_fail")
-                                .replace("%reason%", "数据库错误")));
-                    });
                 }
+                
+                return CallbackResult.SUCCESS;
             }
             
-            return false;
-        } catch (Exception e) {
-            plugin.log(Level.SEVERE, "处理OAuth回调时出错: " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+            String reason;
+            CallbackResult callbackResult;
+            switch (result) {
+                case SSO_ID_ALREADY_BOUND:
+                    plugin.log(Level.WARNING, "SSO ID已被其他玩家绑定: " + ssoId);
+                    reason = "此SSO账号已被其他玩家绑定";
+                    callbackResult = CallbackResult.SSO_ID_ALREADY_BOUND;
+                    break;
+                case PLAYER_ALREADY_BOUND:
+                    reason = "你已经绑定了SSO账号";
+                    callbackResult = CallbackResult.PLAYER_ALREADY_BOUND;
+                    break;
+                default:
+                    reason = "数据库错误";
+                    callbackResult = CallbackResult.ERROR;
+                    break;
+            }
+            
+            // 通知玩家绑定失败
+            if (player != null) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    player.sendMessage(colorize(plugin.getConfigManager().getMessage("bind_fail")
+                            .replace("%reason%", reason)));
+                });
+            }
+            
+            return callbackResult;
+        });
     }
     
     /**
@@ -193,26 +391,6 @@ public class OAuthManager {
         return current.getString(lastPart);
     }
     
-    /**
-     * 生成状态参数
-     * @param playerUuid 玩家UUID
-     * @return 状态参数
-     */
-    private String generateState(UUID playerUuid) {
-        return playerUuid.toString() + "-" + UUID.randomUUID().toString();
-    }
-    
-    /**
-     * 清理过期的待处理认证
-     */
-    private void cleanupPendingAuths() {
-        long now = System.currentTimeMillis();
-        long expirationTime = 10 * 60 * 1000; // 10分钟
-        
-        pendingAuths.entrySet().removeIf(entry -> 
-            (now - entry.getValue().getTimestamp()) > expirationTime);
-    }
-    
     /**
      * 将颜色代码转换为Minecraft颜色
      * @param message 消息
@@ -221,25 +399,4 @@ public class OAuthManager {
     private String colorize(String message) {
         return message.replace("&", "§");
     }
-    
-    /**
-     * 待处理认证类
-     */
-    private static class PendingAuth {
-        private final UUID playerUuid;
-        private final long timestamp;
-        
-        public PendingAuth(UUID playerUuid, long timestamp) {
-            this.playerUuid = playerUuid;
-            this.timestamp = timestamp;
-        }
-        
-        public UUID getPlayerUuid() {
-            return playerUuid;
-        }
-        
-        public long getTimestamp() {
-            return timestamp;
-        }
-    }
 }
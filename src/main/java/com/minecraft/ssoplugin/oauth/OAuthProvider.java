@@ -2,11 +2,25 @@ package com.minecraft.ssoplugin.oauth;
 
 import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * OAuth提供者接口，定义OAuth认证流程的方法
  */
 public interface OAuthProvider {
     
+    /**
+     * 获取提供者名称
+     * @return 提供者名称
+     */
+    String getName();
+    
+    /**
+     * 获取提供者的HTTP请求指标
+     * @return 请求指标
+     */
+    ProviderMetrics getMetrics();
+    
     /**
      * 生成授权URL
      * @param state 状态参数
@@ -21,6 +35,13 @@ public interface OAuthProvider {
      */
     OAuthTokenResponse getAccessToken(String code);
     
+    /**
+     * 异步获取访问令牌，等待响应期间不占用线程
+     * @param code 授权码
+     * @return 令牌响应，失败时为null
+     */
+    CompletableFuture<OAuthTokenResponse> getAccessTokenAsync(String code);
+    
     /**
      * 获取用户信息
      * @param accessToken 访问令牌
@@ -28,10 +49,39 @@ public interface OAuthProvider {
      */
     JSONObject getUserInfo(String accessToken);
     
+    /**
+     * 异步获取用户信息，等待响应期间不占用线程
+     * @param accessToken 访问令牌
+     * @return 用户信息JSON对象，失败时为null
+     */
+    CompletableFuture<JSONObject> getUserInfoAsync(String accessToken);
+    
+    /**
+     * 异步获取绑定所需的用户信息
+     * <p>
+     * 令牌响应带有可验证的身份令牌时直接使用其声明，否则请求用户信息端点。
+     * @param tokenResponse 令牌响应
+     * @param state 授权请求的状态参数
+     * @return 用户信息JSON对象，失败时为null
+     */
+    CompletableFuture<JSONObject> resolveUserInfoAsync(OAuthTokenResponse tokenResponse, String state);
+    
     /**
      * 刷新访问令牌
      * @param refreshToken 刷新令牌
      * @return 新的令牌响应
      */
     OAuthTokenResponse refreshAccessToken(String refreshToken);
+    
+    /**
+     * 异步刷新访问令牌，等待响应期间不占用线程
+     * @param refreshToken 刷新令牌
+     * @return 新的令牌响应，失败时为null
+     */
+    CompletableFuture<OAuthTokenResponse> refreshAccessTokenAsync(String refreshToken);
+    
+    /**
+     * 关闭提供者，释放其持有的HTTP连接
+     */
+    void close();
 }
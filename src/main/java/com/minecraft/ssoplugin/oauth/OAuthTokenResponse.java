@@ -9,6 +9,7 @@ public class OAuthTokenResponse {
     private final String refreshToken;
     private final long expiresIn;
     private final String tokenType;
+    private final String idToken;
     
     /**
      * 构造函数
@@ -18,10 +19,23 @@ public class OAuthTokenResponse {
      * @param tokenType 令牌类型
      */
     public OAuthTokenResponse(String accessToken, String refreshToken, long expiresIn, String tokenType) {
+        this(accessToken, refreshToken, expiresIn, tokenType, null);
+    }
+    
+    /**
+     * 构造函数
+     * @param accessToken 访问令牌
+     * @param refreshToken 刷新令牌
+     * @param expiresIn 过期时间（秒）
+     * @param tokenType 令牌类型
+     * @param idToken OIDC身份令牌，SSO服务器未返回时为null
+     */
+    public OAuthTokenResponse(String accessToken, String refreshToken, long expiresIn, String tokenType, String idToken) {
         this.accessToken = accessToken;
         this.refreshToken = refreshToken;
         this.expiresIn = expiresIn;
         this.tokenType = tokenType;
+        this.idToken = idToken;
     }
     
     /**
@@ -55,4 +69,12 @@ public class OAuthTokenResponse {
     public String getTokenType() {
         return tokenType;
     }
+    
+    /**
+     * 获取OIDC身份令牌
+     * @return 身份令牌，SSO服务器未返回时为null
+     */
+    public String getIdToken() {
+        return idToken;
+    }
 }
@@ -0,0 +1,173 @@
+package com.minecraft.ssoplugin.oauth;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 待处理认证存储类，保存已发出的绑定链接的状态参数
+ * <p>
+ * 所有状态参数的有效期相同，按插入顺序排列即是按过期时间排列。清理时从最早的状态参数开始，
+ * 遇到第一个未过期的就停止，每个状态参数只会被检查和移除一次，生成绑定链接不再需要扫描整个映射。
+ * 每个玩家同时有效的状态参数数量有上限，超出时最早的状态参数失效。
+ */
+public class PendingAuthStore implements AuthStateStore {
+    
+    // 后台清理间隔，取出状态参数时也会检查是否过期，清理只负责释放内存
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    
+    private final long ttlMillis;
+    private final int maxPerPlayer;
+    private final LinkedHashMap<String, PendingAuth> pending;
+    private final Map<UUID, Deque<String>> statesByPlayer;
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder expired;
+    private final LongAdder evicted;
+    
+    /**
+     * 构造函数
+     * @param ttlMillis 状态参数的有效期（毫秒）
+     * @param maxPerPlayer 每个玩家同时有效的状态参数数量上限
+     */
+    public PendingAuthStore(long ttlMillis, int maxPerPlayer) {
+        this.ttlMillis = ttlMillis;
+        this.maxPerPlayer = maxPerPlayer;
+        this.pending = new LinkedHashMap<>();
+        this.statesByPlayer = new HashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSOPlugin-Pending-Auth");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expired = new LongAdder();
+        this.evicted = new LongAdder();
+    }
+    
+    @Override
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+    
+    /**
+     * 生成并保存状态参数，玩家的状态参数数量超过上限时移除其最早的状态参数
+     * @param playerUuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param providerName 提供者名称
+     * @return 状态参数
+     */
+    @Override
+    public synchronized String issue(UUID playerUuid, String playerName, String providerName) {
+        String state = playerUuid.toString() + "-" + UUID.randomUUID().toString();
+        pending.put(state, new PendingAuth(new AuthState(playerUuid, playerName, providerName), System.currentTimeMillis()));
+        
+        Deque<String> states = statesByPlayer.computeIfAbsent(playerUuid, uuid -> new ArrayDeque<>(maxPerPlayer + 1));
+        states.addLast(state);
+        while (states.size() > maxPerPlayer) {
+            pending.remove(states.removeFirst());
+            evicted.increment();
+        }
+        return state;
+    }
+    
+    @Override
+    public synchronized AuthState take(String state) {
+        PendingAuth auth = pending.remove(state);
+        if (auth == null) {
+            return null;
+        }
+        
+        removeFromPlayer(auth.state.getPlayerUuid(), state);
+        if (isExpired(auth, System.currentTimeMillis())) {
+            expired.increment();
+            return null;
+        }
+        return auth.state;
+    }
+    
+    @Override
+    public synchronized int size() {
+        return pending.size();
+    }
+    
+    @Override
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+    
+    /**
+     * 获取因超过玩家上限而移除的状态参数数量
+     * @return 挤出数量
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+    
+    /**
+     * 从最早的状态参数开始移除已过期的状态参数
+     */
+    private synchronized void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, PendingAuth>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, PendingAuth> entry = iterator.next();
+            if (!isExpired(entry.getValue(), now)) {
+                break;
+            }
+            
+            iterator.remove();
+            removeFromPlayer(entry.getValue().state.getPlayerUuid(), entry.getKey());
+            expired.increment();
+        }
+    }
+    
+    /**
+     * 从玩家的状态参数列表中移除状态参数
+     * @param playerUuid 玩家UUID
+     * @param state 状态参数
+     */
+    private void removeFromPlayer(UUID playerUuid, String state) {
+        Deque<String> states = statesByPlayer.get(playerUuid);
+        if (states != null) {
+            states.remove(state);
+            if (states.isEmpty()) {
+                statesByPlayer.remove(playerUuid);
+            }
+        }
+    }
+    
+    /**
+     * 检查状态参数是否已过期
+     * @param auth 待处理认证
+     * @param now 当前时间
+     * @return 是否已过期
+     */
+    private boolean isExpired(PendingAuth auth, long now) {
+        return now - auth.createdAt > ttlMillis;
+    }
+    
+    /**
+     * 待处理认证类
+     */
+    private static class PendingAuth {
+        private final AuthState state;
+        private final long createdAt;
+        
+        public PendingAuth(AuthState state, long createdAt) {
+            this.state = state;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.minecraft.ssoplugin.oauth;
+
+import com.minecraft.ssoplugin.utils.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 提供者指标类，统计单个SSO提供者的HTTP请求次数、失败次数和耗时
+ * <p>
+ * 计数使用 {@link LongAdder}，多个线程同时记录时不会争用同一个变量。
+ * 令牌端点和用户信息端点的耗时另外按端点记录在 {@link LatencyHistogram} 中。
+ */
+public class ProviderMetrics {
+    
+    /**
+     * SSO服务器端点
+     */
+    public enum Endpoint {
+        
+        /**
+         * 令牌端点（授权码交换和刷新令牌）
+         */
+        TOKEN,
+        
+        /**
+         * 用户信息端点
+         */
+        USERINFO
+    }
+    
+    private final LongAdder requests;
+    private final LongAdder failures;
+    private final LongAdder totalNanos;
+    private final Map<Endpoint, LatencyHistogram> latencies;
+    private final Map<Endpoint, LongAdder> endpointFailures;
+    
+    /**
+     * 构造函数
+     */
+    public ProviderMetrics() {
+        this.requests = new LongAdder();
+        this.failures = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.latencies = new EnumMap<>(Endpoint.class);
+        this.endpointFailures = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new LatencyHistogram());
+            endpointFailures.put(endpoint, new LongAdder());
+        }
+    }
+    
+    /**
+     * 记录一次请求
+     * @param endpoint 请求的端点
+     * @param startNanos 请求开始时的 {@link System#nanoTime()}
+     * @param success 是否收到响应
+     */
+    public void record(Endpoint endpoint, long startNanos, boolean success) {
+        long nanos = System.nanoTime() - startNanos;
+        requests.increment();
+        totalNanos.add(nanos);
+        latencies.get(endpoint).record(nanos);
+        if (!success) {
+            failures.increment();
+            endpointFailures.get(endpoint).increment();
+        }
+    }
+    
+    /**
+     * 获取请求次数
+     * @return 请求次数
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+    
+    /**
+     * 获取失败次数
+     * @return 失败次数
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+    
+    /**
+     * 获取端点的耗时直方图
+     * @param endpoint 端点
+     * @return 耗时直方图
+     */
+    public LatencyHistogram getLatency(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+    
+    /**
+     * 获取端点的失败次数
+     * @param endpoint 端点
+     * @return 失败次数
+     */
+    public long getFailureCount(Endpoint endpoint) {
+        return endpointFailures.get(endpoint).sum();
+    }
+    
+    /**
+     * 获取平均请求耗时（毫秒）
+     * @return 平均请求耗时（毫秒），没有请求时为0
+     */
+    public long getAverageLatencyMillis() {
+        long count = requests.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / count);
+    }
+}
@@ -0,0 +1,195 @@
+package com.minecraft.ssoplugin.oauth;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.config.ProviderSettings;
+import com.minecraft.ssoplugin.oauth.providers.GenericOAuthProvider;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * 提供者注册表类，按名称保存所有已配置的SSO提供者
+ * <p>
+ * 每个提供者有自己的HTTP客户端、超时设置和请求指标。状态参数中记录了发起认证时选择的提供者名称，
+ * 回调时直接按名称取出提供者。
+ * <p>
+ * 默认提供者绑定的SSO ID按原样保存，与只支持一个提供者时的数据兼容；
+ * 其他提供者的SSO ID保存为"提供者名称:ID"，不同提供者的相同ID不会冲突。
+ * 默认提供者的ID本身带有冒号时在前面加一个冒号，保存为":ID"，不会被当成其他提供者的ID；
+ * 提供者名称不能包含冒号。
+ * <p>
+ * 重新加载配置时旧注册表先被停用，使用它的回调和令牌刷新全部结束后才关闭其中的提供者。
+ */
+public class ProviderRegistry {
+    
+    private static final char NAMESPACE_SEPARATOR = ':';
+    // 一次回调最多依次发送的HTTP请求数：令牌交换、OIDC发现或公钥集下载、用户信息
+    private static final int MAX_REQUESTS_PER_FLOW = 3;
+    
+    private final Map<String, OAuthProvider> providers;
+    private final OAuthProvider defaultProvider;
+    private final long drainTimeoutMillis;
+    private final AtomicInteger inFlight;
+    private final AtomicBoolean closed;
+    private volatile boolean retired;
+    
+    /**
+     * 构造函数，按配置创建所有提供者
+     * @param plugin 插件实例
+     */
+    public ProviderRegistry(SSOPlugin plugin) {
+        Map<String, OAuthProvider> providers = new LinkedHashMap<>();
+        long slowestRequest = 0;
+        for (ProviderSettings settings : plugin.getConfigManager().getProviders().values()) {
+            // 目前只支持通用OAuth提供者
+            // 未来可以根据settings.getType()创建不同的提供者实现
+            if (!"generic".equalsIgnoreCase(settings.getType())) {
+                plugin.log(Level.WARNING, "提供者 " + settings.getName() + " 的类型 " + settings.getType()
+                        + " 不受支持，按通用OAuth提供者处理");
+            }
+            providers.put(settings.getName(), new GenericOAuthProvider(plugin, settings));
+            slowestRequest = Math.max(slowestRequest,
+                    (long) settings.getHttpConnectTimeout() + settings.getHttpReadTimeout());
+        }
+        this.providers = Collections.unmodifiableMap(providers);
+        this.defaultProvider = providers.get(plugin.getConfigManager().getDefaultProviderName());
+        this.drainTimeoutMillis = slowestRequest * MAX_REQUESTS_PER_FLOW;
+        this.inFlight = new AtomicInteger();
+        this.closed = new AtomicBoolean();
+    }
+    
+    /**
+     * 按名称获取提供者
+     * @param name 提供者名称
+     * @return 提供者，不存在时返回null
+     */
+    public OAuthProvider get(String name) {
+        return name != null ? providers.get(name) : null;
+    }
+    
+    /**
+     * 获取默认提供者
+     * @return 默认提供者
+     */
+    public OAuthProvider getDefault() {
+        return defaultProvider;
+    }
+    
+    /**
+     * 获取所有提供者名称，按配置顺序排列
+     * @return 提供者名称
+     */
+    public Set<String> names() {
+        return providers.keySet();
+    }
+    
+    /**
+     * 获取所有提供者，按配置顺序排列
+     * @return 提供者
+     */
+    public Collection<OAuthProvider> all() {
+        return providers.values();
+    }
+    
+    /**
+     * 获取签发了已保存SSO ID的提供者
+     * @param ssoId 数据库中保存的SSO ID
+     * @return 提供者，ID不带已配置的提供者名称或以冒号开头时返回默认提供者
+     */
+    public OAuthProvider forSsoId(String ssoId) {
+        int separator = ssoId != null ? ssoId.indexOf(NAMESPACE_SEPARATOR) : -1;
+        if (separator > 0) {
+            OAuthProvider provider = providers.get(ssoId.substring(0, separator));
+            if (provider != null && provider != defaultProvider) {
+                return provider;
+            }
+        }
+        return defaultProvider;
+    }
+    
+    /**
+     * 获取保存到数据库的SSO ID
+     * @param provider 签发ID的提供者
+     * @param id 提供者返回的用户ID
+     * @return 默认提供者返回原ID（带冒号时在前面加一个冒号），其他提供者返回带提供者名称的ID
+     */
+    public String namespacedSsoId(OAuthProvider provider, String id) {
+        if (provider != defaultProvider) {
+            return provider.getName() + NAMESPACE_SEPARATOR + id;
+        }
+        return id.indexOf(NAMESPACE_SEPARATOR) >= 0 ? NAMESPACE_SEPARATOR + id : id;
+    }
+    
+    /**
+     * 获取旧版本保存的SSO ID
+     * <p>
+     * 旧版本按原样保存带冒号的默认提供者ID。只有原ID不会被当成其他提供者的ID时才能沿用，
+     * 冒号前恰好是已配置的提供者名称的ID无法与该提供者的ID区分，只能使用新格式。
+     * @param provider 签发ID的提供者
+     * @param id 提供者返回的用户ID
+     * @return 旧版本保存的SSO ID，与 {@link #namespacedSsoId} 相同或无法沿用时返回null
+     */
+    public String legacySsoId(OAuthProvider provider, String id) {
+        if (provider != defaultProvider || id.indexOf(NAMESPACE_SEPARATOR) < 0 || forSsoId(id) != defaultProvider) {
+            return null;
+        }
+        return id;
+    }
+    
+    /**
+     * 登记一个使用此注册表中提供者的异步请求，请求结束后必须调用 {@link #release()}
+     * @return 是否登记成功，注册表已停用时返回false，调用者应改用新的注册表
+     */
+    public boolean retain() {
+        inFlight.incrementAndGet();
+        if (retired) {
+            release();
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 结束一个通过 {@link #retain()} 登记的请求，注册表已停用且没有其他请求时关闭所有提供者
+     */
+    public void release() {
+        if (inFlight.decrementAndGet() == 0 && retired) {
+            close();
+        }
+    }
+    
+    /**
+     * 停用注册表，进行中的请求全部结束后关闭所有提供者
+     * <p>
+     * 每个请求都受超时限制，最多等待所有提供者中最慢的连接加读取超时乘以一次回调的请求数，
+     * 之后即使仍有请求未结束也会关闭。
+     */
+    public void retire() {
+        retired = true;
+        if (inFlight.get() == 0) {
+            close();
+            return;
+        }
+        CompletableFuture.delayedExecutor(drainTimeoutMillis, TimeUnit.MILLISECONDS).execute(this::close);
+    }
+    
+    /**
+     * 关闭所有提供者，释放其持有的HTTP连接，重复调用时不做任何事
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (OAuthProvider provider : providers.values()) {
+            provider.close();
+        }
+    }
+}
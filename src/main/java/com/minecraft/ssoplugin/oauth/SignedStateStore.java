@@ -0,0 +1,205 @@
+package com.minecraft.ssoplugin.oauth;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无状态的认证状态存储类，状态参数本身就是带HMAC签名的令牌
+ * <p>
+ * 令牌中包含玩家UUID、玩家名称、提供者名称、签发时间和随机数，回调时只需验证签名和有效期，
+ * 不需要保存已发出的状态参数，负载均衡后的任意一台服务器都可以处理回调。
+ * 为防止同一个状态参数被重复使用，已使用的令牌在有效期内记录在本机的重放缓存中；
+ * 跨服务器的重放会在令牌端点失败，因为授权码只能使用一次。
+ * <p>
+ * 令牌格式为Base64URL编码的：版本(1) + 玩家UUID(16) + 签发时间秒(4) + 随机数(8) + 名称长度(1) + 名称 +
+ * 提供者名称长度(1) + 提供者名称 + HMAC-SHA256前16字节，玩家名称最长16个字符、提供者名称最长32个字符时不超过128个字符。
+ */
+public class SignedStateStore implements AuthStateStore {
+    
+    private static final byte VERSION = 2;
+    private static final int HEADER_LENGTH = 1 + 16 + 4 + 8 + 1;
+    private static final int MAX_NAME_LENGTH = 64;
+    private static final int MAC_LENGTH = 16;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    // 多台服务器之间允许的时钟偏差
+    private static final long CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final SecureRandom random;
+    private final LinkedHashMap<String, Long> usedTokens;
+    private final LongAdder expired;
+    private final LongAdder rejected;
+    
+    /**
+     * 构造函数
+     * @param secret 签名密钥，多台服务器必须使用相同的密钥
+     * @param ttlMillis 状态参数的有效期（毫秒）
+     */
+    public SignedStateStore(byte[] secret, long ttlMillis) {
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.ttlMillis = ttlMillis;
+        this.random = new SecureRandom();
+        this.usedTokens = new LinkedHashMap<>();
+        this.expired = new LongAdder();
+        this.rejected = new LongAdder();
+    }
+    
+    @Override
+    public void start() {
+        // 重放缓存在每次取出时清理，不需要后台线程
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    @Override
+    public String issue(UUID playerUuid, String playerName, String providerName) {
+        byte[] nonce = new byte[8];
+        random.nextBytes(nonce);
+        byte[] name = truncate(playerName.getBytes(StandardCharsets.UTF_8));
+        byte[] provider = truncate(providerName.getBytes(StandardCharsets.UTF_8));
+        
+        int payloadLength = HEADER_LENGTH + name.length + 1 + provider.length;
+        ByteBuffer buffer = ByteBuffer.allocate(payloadLength + MAC_LENGTH);
+        buffer.put(VERSION);
+        buffer.putLong(playerUuid.getMostSignificantBits());
+        buffer.putLong(playerUuid.getLeastSignificantBits());
+        buffer.putInt((int) TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        buffer.put(nonce);
+        buffer.put((byte) name.length);
+        buffer.put(name);
+        buffer.put((byte) provider.length);
+        buffer.put(provider);
+        buffer.put(sign(buffer.array(), payloadLength), 0, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+    
+    @Override
+    public AuthState take(String state) {
+        byte[] token;
+        try {
+            token = Base64.getUrlDecoder().decode(state.getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            rejected.increment();
+            return null;
+        }
+        
+        // 先验证签名，伪造的令牌不会进入重放缓存
+        if (token.length < HEADER_LENGTH + 1 + MAC_LENGTH || token[0] != VERSION) {
+            rejected.increment();
+            return null;
+        }
+        int nameLength = token[HEADER_LENGTH - 1] & 0xFF;
+        int providerOffset = HEADER_LENGTH + nameLength + 1;
+        if (providerOffset > token.length - MAC_LENGTH
+                || token.length != providerOffset + (token[providerOffset - 1] & 0xFF) + MAC_LENGTH) {
+            rejected.increment();
+            return null;
+        }
+        int payloadLength = token.length - MAC_LENGTH;
+        byte[] expectedMac = Arrays.copyOf(sign(token, payloadLength), MAC_LENGTH);
+        byte[] actualMac = Arrays.copyOfRange(token, payloadLength, token.length);
+        if (!MessageDigest.isEqual(actualMac, expectedMac)) {
+            rejected.increment();
+            return null;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(token, 1, payloadLength - 1);
+        UUID playerUuid = new UUID(buffer.getLong(), buffer.getLong());
+        long issuedAt = TimeUnit.SECONDS.toMillis(Integer.toUnsignedLong(buffer.getInt()));
+        String playerName = new String(token, HEADER_LENGTH, nameLength, StandardCharsets.UTF_8);
+        String providerName = new String(token, providerOffset, payloadLength - providerOffset, StandardCharsets.UTF_8);
+        
+        long now = System.currentTimeMillis();
+        if (now - issuedAt > ttlMillis || issuedAt - now > CLOCK_SKEW_MILLIS) {
+            expired.increment();
+            return null;
+        }
+        
+        // 以签名作为重放记录的键，不受同一令牌不同编码写法的影响
+        String replayKey = Base64.getEncoder().encodeToString(actualMac);
+        synchronized (usedTokens) {
+            evictExpired(now);
+            if (usedTokens.putIfAbsent(replayKey, now + ttlMillis) != null) {
+                rejected.increment();
+                return null;
+            }
+        }
+        return new AuthState(playerUuid, playerName, providerName);
+    }
+    
+    @Override
+    public int size() {
+        synchronized (usedTokens) {
+            return usedTokens.size();
+        }
+    }
+    
+    @Override
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+    
+    /**
+     * 获取因签名无效或重复使用而拒绝的状态参数数量
+     * @return 拒绝数量
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    /**
+     * 从最早记录的令牌开始移除已超过有效期的重放记录
+     * @param now 当前时间
+     */
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Long>> iterator = usedTokens.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() > now) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * 截断过长的名称
+     * @param name 名称的UTF-8字节
+     * @return 不超过最大长度的名称
+     */
+    private static byte[] truncate(byte[] name) {
+        return name.length > MAX_NAME_LENGTH ? Arrays.copyOf(name, MAX_NAME_LENGTH) : name;
+    }
+    
+    /**
+     * 计算令牌载荷的HMAC
+     * @param data 令牌数据
+     * @param length 载荷长度
+     * @return HMAC
+     */
+    private byte[] sign(byte[] data, int length) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            mac.update(data, 0, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.minecraft.ssoplugin.oauth;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.storage.StorageManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 令牌刷新协调器类，保证同一玩家同一时刻只有一个刷新请求
+ * <p>
+ * 同一玩家的并发刷新共享同一个进行中的请求及其结果。刷新成功后的一段时间内，
+ * 新的刷新请求直接返回刚获得的令牌：此时数据库中可能仍是旧的刷新令牌，
+ * 用它再次刷新会被SSO服务器拒绝，或者让旧令牌覆盖新令牌。
+ */
+public class TokenRefreshCoordinator {
+    
+    private static final long MIN_ROTATION_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    
+    private final SSOPlugin plugin;
+    private final Supplier<ProviderRegistry> registries;
+    private final BiConsumer<UUID, OAuthTokenResponse> rotationListener;
+    private final long rotationGraceMillis;
+    private final Map<UUID, CompletableFuture<OAuthTokenResponse>> inFlight;
+    private final Map<UUID, Rotation> rotations;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param registries 取得当前提供者注册表并登记一个进行中的请求，重新加载后会返回新的注册表
+     * @param rotationListener 令牌刷新成功后的回调
+     */
+    public TokenRefreshCoordinator(SSOPlugin plugin, Supplier<ProviderRegistry> registries,
+                                   BiConsumer<UUID, OAuthTokenResponse> rotationListener) {
+        this.plugin = plugin;
+        this.registries = registries;
+        this.rotationListener = rotationListener;
+        // 至少覆盖两个延迟写入周期，保证宽限期结束时新令牌已经写入数据库
+        this.rotationGraceMillis = Math.max(MIN_ROTATION_GRACE_MILLIS,
+                plugin.getConfigManager().getWriteBehindInterval() * 2);
+        this.inFlight = new ConcurrentHashMap<>();
+        this.rotations = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * 刷新玩家的访问令牌
+     * <p>
+     * 玩家已有进行中的刷新时共享其结果；玩家的令牌刚刚刷新过时直接返回新令牌。
+     * @param playerUuid 玩家UUID
+     * @return 新的令牌响应，玩家未绑定、没有刷新令牌或刷新期间绑定已改变时为null；刷新失败时异常完成
+     */
+    public CompletableFuture<OAuthTokenResponse> refresh(UUID playerUuid) {
+        CompletableFuture<OAuthTokenResponse> existing = inFlight.get(playerUuid);
+        if (existing != null) {
+            return existing;
+        }
+        
+        OAuthTokenResponse rotated = getRecentRotation(playerUuid);
+        if (rotated != null) {
+            return CompletableFuture.completedFuture(rotated);
+        }
+        
+        CompletableFuture<OAuthTokenResponse> future = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(playerUuid, future);
+        if (existing != null) {
+            return existing;
+        }
+        
+        // 检查之后、登记之前可能恰好有另一个刷新完成
+        rotated = getRecentRotation(playerUuid);
+        if (rotated != null) {
+            inFlight.remove(playerUuid, future);
+            future.complete(rotated);
+            return future;
+        }
+        
+        start(playerUuid, future);
+        return future;
+    }
+    
+    /**
+     * 丢弃玩家最近一次刷新的结果，在玩家重新绑定后调用
+     * @param playerUuid 玩家UUID
+     */
+    public void forget(UUID playerUuid) {
+        rotations.remove(playerUuid);
+    }
+    
+    /**
+     * 读取当前刷新令牌并发起刷新
+     * @param playerUuid 玩家UUID
+     * @param future 共享给所有调用者的结果
+     */
+    private void start(UUID playerUuid, CompletableFuture<OAuthTokenResponse> future) {
+        StorageManager storageManager = plugin.getStorageManager();
+        // 刷新结束前注册表不会被重新加载关闭
+        ProviderRegistry registry = registries.get();
+        storageManager.getBindingAsync(playerUuid).thenCompose(binding -> {
+            if (binding == null || binding.getRefreshToken() == null || binding.getRefreshToken().isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            
+            OAuthProvider provider = registry.forSsoId(binding.getSsoId());
+            if (provider == null) {
+                throw new IllegalStateException("找不到签发该绑定的SSO提供者");
+            }
+            
+            String ssoId = binding.getSsoId();
+            return provider.refreshAccessTokenAsync(binding.getRefreshToken()).thenCompose(response -> {
+                if (response == null || response.getAccessToken() == null) {
+                    throw new IllegalStateException("令牌端点未返回访问令牌");
+                }
+                
+                // 刷新期间玩家可能解除绑定并重新绑定了其他账号，此时丢弃旧账号的令牌，不覆盖新绑定
+                return storageManager.getBindingAsync(playerUuid).thenApply(current -> {
+                    if (current == null || !ssoId.equals(current.getSsoId())
+                            || !storageManager.updateToken(playerUuid, ssoId, response.getAccessToken(),
+                                    response.getRefreshToken(), response.getExpiresIn())) {
+                        return null;
+                    }
+                    return response;
+                });
+            });
+        }).whenComplete((response, error) -> {
+            registry.release();
+            if (error == null && response != null) {
+                // 先记录新令牌再结束进行中的刷新，之后到达的调用者不会再次刷新
+                rotations.put(playerUuid, new Rotation(response, System.currentTimeMillis()));
+                rotationListener.accept(playerUuid, response);
+            }
+            
+            inFlight.remove(playerUuid, future);
+            pruneRotations();
+            
+            if (error != null) {
+                future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                future.complete(response);
+            }
+        });
+    }
+    
+    /**
+     * 获取玩家在宽限期内刷新得到的令牌
+     * @param playerUuid 玩家UUID
+     * @return 令牌响应，宽限期内没有刷新过时返回null
+     */
+    private OAuthTokenResponse getRecentRotation(UUID playerUuid) {
+        Rotation rotation = rotations.get(playerUuid);
+        if (rotation == null || isExpired(rotation, System.currentTimeMillis())) {
+            return null;
+        }
+        return rotation.response;
+    }
+    
+    /**
+     * 清理超过宽限期的刷新结果，映射中只保留宽限期内刷新过的玩家
+     */
+    private void pruneRotations() {
+        long now = System.currentTimeMillis();
+        rotations.values().removeIf(rotation -> isExpired(rotation, now));
+    }
+    
+    /**
+     * 检查刷新结果是否已超过宽限期
+     * @param rotation 刷新结果
+     * @param now 当前时间
+     * @return 是否已超过宽限期
+     */
+    private boolean isExpired(Rotation rotation, long now) {
+        return now - rotation.rotatedAt > rotationGraceMillis;
+    }
+    
+    /**
+     * 刷新结果类
+     */
+    private static class Rotation {
+        private final OAuthTokenResponse response;
+        private final long rotatedAt;
+        
+        public Rotation(OAuthTokenResponse response, long rotatedAt) {
+            this.response = response;
+            this.rotatedAt = rotatedAt;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.minecraft.ssoplugin.oauth;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.config.ConfigManager;
+import com.minecraft.ssoplugin.storage.Binding;
+import com.minecraft.ssoplugin.storage.StorageManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * 令牌刷新调度器类，在令牌过期前使用刷新令牌自动换取新令牌
+ * <p>
+ * 所有带刷新令牌的绑定按计划刷新时间放入优先队列，调度线程只等待队首到期，
+ * 到期的刷新在并发上限内通过 {@link TokenRefreshCoordinator} 异步执行。刷新时间带有随机抖动，
+ * 同一时刻过期的大量令牌会被分散刷新。无论刷新由谁发起，成功后都会通过 {@link #schedule}
+ * 按新令牌的过期时间重新排队。连续失败次数保存在数据库中，达到上限后不再重试。
+ */
+public class TokenRefreshScheduler {
+    
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+    
+    private final SSOPlugin plugin;
+    private final TokenRefreshCoordinator coordinator;
+    private final long refreshBeforeMillis;
+    private final long jitterMillis;
+    private final int maxConcurrent;
+    private final int maxFailures;
+    private final long retryIntervalMillis;
+    private final Semaphore permits;
+    private final PriorityQueue<RefreshTask> queue;
+    private final Map<UUID, RefreshTask> tasks;
+    private final Set<UUID> persistedFailures;
+    private final Thread thread;
+    private volatile boolean running;
+    
+    private final LongAdder refreshed;
+    private final LongAdder failed;
+    private final LongAdder latencyCount;
+    private final LongAdder latencyTotalNanos;
+    private final AtomicLong latencyMaxNanos;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param coordinator 令牌刷新协调器
+     */
+    public TokenRefreshScheduler(SSOPlugin plugin, TokenRefreshCoordinator coordinator) {
+        ConfigManager config = plugin.getConfigManager();
+        this.plugin = plugin;
+        this.coordinator = coordinator;
+        this.refreshBeforeMillis = TimeUnit.SECONDS.toMillis(config.getTokenRefreshBefore());
+        this.jitterMillis = TimeUnit.SECONDS.toMillis(config.getTokenRefreshJitter());
+        this.maxConcurrent = config.getTokenRefreshMaxConcurrent();
+        this.maxFailures = config.getTokenRefreshMaxFailures();
+        this.retryIntervalMillis = TimeUnit.SECONDS.toMillis(config.getTokenRefreshRetryInterval());
+        this.permits = new Semaphore(maxConcurrent);
+        this.queue = new PriorityQueue<>();
+        this.tasks = new HashMap<>();
+        this.persistedFailures = new HashSet<>();
+        this.thread = new Thread(this::run, "SSOPlugin-Token-Refresh");
+        this.thread.setDaemon(true);
+        this.refreshed = new LongAdder();
+        this.failed = new LongAdder();
+        this.latencyCount = new LongAdder();
+        this.latencyTotalNanos = new LongAdder();
+        this.latencyMaxNanos = new AtomicLong();
+    }
+    
+    /**
+     * 启动调度线程，并从数据库加载所有带刷新令牌的绑定
+     */
+    public void start() {
+        running = true;
+        thread.start();
+        
+        StorageManager storageManager = plugin.getStorageManager();
+        storageManager.getRefreshFailuresAsync()
+                .thenCompose(failures -> {
+                    Map<UUID, Integer> failureCounts = failures != null ? failures : new HashMap<>();
+                    synchronized (this) {
+                        persistedFailures.addAll(failureCounts.keySet());
+                    }
+                    return storageManager.forEachBindingAsync(binding -> load(binding, failureCounts));
+                })
+                .whenComplete((success, error) -> {
+                    if (error != null || !Boolean.TRUE.equals(success)) {
+                        plugin.log(Level.SEVERE, "加载待刷新令牌失败，后台令牌刷新仅对新绑定生效");
+                    } else {
+                        plugin.log(Level.INFO, "已加载 " + getQueueSize() + " 个待刷新令牌");
+                    }
+                });
+    }
+    
+    /**
+     * 停止调度线程，正在进行的刷新不再等待
+     */
+    public void close() {
+        running = false;
+        thread.interrupt();
+        
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 按新获取的令牌重新安排刷新，替换玩家原有的刷新任务并清除失败记录
+     * @param playerUuid 玩家UUID
+     * @param refreshToken 刷新令牌，为空时不再安排刷新
+     * @param expiresIn 过期时间（秒），没有有效期时不再安排刷新
+     */
+    public void schedule(UUID playerUuid, String refreshToken, long expiresIn) {
+        boolean hadFailures;
+        synchronized (this) {
+            hadFailures = persistedFailures.remove(playerUuid);
+            if (refreshToken == null || refreshToken.isEmpty() || expiresIn <= 0) {
+                tasks.remove(playerUuid);
+            } else {
+                long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expiresIn);
+                enqueue(new RefreshTask(playerUuid, computeDueAt(expiresAt), 0), true);
+            }
+        }
+        
+        if (hadFailures) {
+            plugin.getStorageManager().clearRefreshFailureAsync(playerUuid);
+        }
+    }
+    
+    /**
+     * 将数据库中的绑定加入刷新队列
+     * @param binding 绑定信息
+     * @param failureCounts 玩家UUID到连续失败次数的映射
+     */
+    private void load(Binding binding, Map<UUID, Integer> failureCounts) {
+        String refreshToken = binding.getRefreshToken();
+        if (refreshToken == null || refreshToken.isEmpty() || binding.getTokenExpiresAt() == null) {
+            return;
+        }
+        
+        int failures = failureCounts.getOrDefault(binding.getPlayerUuid(), 0);
+        if (failures >= maxFailures) {
+            return;
+        }
+        
+        // 上次运行时刷新失败过的令牌按退避间隔重试，其余按过期时间刷新
+        long dueAt = failures > 0
+                ? System.currentTimeMillis() + computeRetryDelay(failures)
+                : computeDueAt(binding.getTokenExpiresAt().toEpochMilli());
+        enqueue(new RefreshTask(binding.getPlayerUuid(), dueAt, failures), false);
+    }
+    
+    /**
+     * 计算令牌的刷新时间
+     * @param expiresAt 令牌过期时间（毫秒时间戳）
+     * @return 刷新时间（毫秒时间戳）
+     */
+    private long computeDueAt(long expiresAt) {
+        long now = System.currentTimeMillis();
+        long remaining = expiresAt - now;
+        long jitter = randomJitter();
+        if (remaining <= 0) {
+            // 已过期的令牌在抖动范围内分散刷新
+            return now + jitter;
+        }
+        
+        // 有效期很短的令牌最早在有效期过半时刷新，避免刷新后立即再次刷新
+        return now + Math.max(remaining - refreshBeforeMillis - jitter, remaining / 2);
+    }
+    
+    /**
+     * 计算失败后的重试间隔，每次失败翻倍
+     * @param failures 连续失败次数
+     * @return 重试间隔（毫秒）
+     */
+    private long computeRetryDelay(int failures) {
+        long delay = retryIntervalMillis << Math.min(failures - 1, 20);
+        return Math.min(delay, MAX_RETRY_DELAY_MILLIS) + randomJitter();
+    }
+    
+    /**
+     * 生成随机抖动
+     * @return 抖动（毫秒）
+     */
+    private long randomJitter() {
+        return jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+    }
+    
+    /**
+     * 将刷新任务加入队列
+     * @param task 刷新任务
+     * @param replace 是否替换玩家已有的刷新任务
+     */
+    private synchronized void enqueue(RefreshTask task, boolean replace) {
+        if (!replace && tasks.containsKey(task.playerUuid)) {
+            return;
+        }
+        
+        // 被替换的任务留在堆中，出队时发现已不是当前任务便直接丢弃
+        tasks.put(task.playerUuid, task);
+        queue.add(task);
+        if (queue.peek() == task) {
+            notifyAll();
+        }
+    }
+    
+    /**
+     * 等待并取出下一个到期的刷新任务
+     * @return 刷新任务，调度器已停止时返回null
+     * @throws InterruptedException 如果等待时被中断
+     */
+    private synchronized RefreshTask takeDue() throws InterruptedException {
+        while (running) {
+            RefreshTask head = queue.peek();
+            if (head == null) {
+                wait();
+                continue;
+            }
+            
+            if (tasks.get(head.playerUuid) != head) {
+                queue.poll();
+                continue;
+            }
+            
+            long delay = head.dueAt - System.currentTimeMillis();
+            if (delay <= 0) {
+                queue.poll();
+                tasks.remove(head.playerUuid);
+                return head;
+            }
+            
+            wait(delay);
+        }
+        return null;
+    }
+    
+    /**
+     * 调度线程主循环
+     */
+    private void run() {
+        while (running) {
+            try {
+                RefreshTask task = takeDue();
+                if (task == null) {
+                    return;
+                }
+                
+                // 达到并发上限时等待正在进行的刷新完成
+                permits.acquire();
+                refresh(task);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 异步刷新令牌，完成后释放并发许可
+     * <p>
+     * 刷新成功后协调器会调用 {@link #schedule} 重新排队，这里只需要处理失败。
+     * @param task 刷新任务
+     */
+    private void refresh(RefreshTask task) {
+        long start = System.nanoTime();
+        coordinator.refresh(task.playerUuid).whenComplete((response, error) -> {
+            permits.release();
+            recordLatency(System.nanoTime() - start);
+            if (error != null) {
+                onFailure(task, unwrap(error).toString());
+            } else if (response != null) {
+                refreshed.increment();
+            }
+            // 结果为null表示玩家已解除绑定、没有刷新令牌或已重新绑定（新绑定另有刷新计划），不再刷新
+        });
+    }
+    
+    /**
+     * 处理刷新失败，记录失败次数并按退避间隔重试
+     * @param task 刷新任务
+     * @param reason 失败原因
+     */
+    private void onFailure(RefreshTask task, String reason) {
+        failed.increment();
+        
+        int failures = task.failures + 1;
+        synchronized (this) {
+            persistedFailures.add(task.playerUuid);
+        }
+        plugin.getStorageManager().recordRefreshFailureAsync(task.playerUuid, reason);
+        
+        if (failures >= maxFailures) {
+            plugin.log(Level.WARNING, "玩家 " + task.playerUuid + " 的令牌连续刷新失败 " + failures + " 次，已停止重试: " + reason);
+            return;
+        }
+        
+        enqueue(new RefreshTask(task.playerUuid, System.currentTimeMillis() + computeRetryDelay(failures), failures), false);
+    }
+    
+    /**
+     * 记录一次刷新请求的耗时
+     * @param nanos 耗时（纳秒）
+     */
+    private void recordLatency(long nanos) {
+        latencyCount.increment();
+        latencyTotalNanos.add(nanos);
+        latencyMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    /**
+     * 获取异步异常的实际原因
+     * @param error 异常
+     * @return 实际原因
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    /**
+     * 获取等待刷新的令牌数
+     * @return 队列长度
+     */
+    public synchronized int getQueueSize() {
+        return tasks.size();
+    }
+    
+    /**
+     * 获取正在进行的刷新请求数
+     * @return 正在进行的刷新请求数
+     */
+    public int getInFlightCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+    
+    /**
+     * 获取刷新成功的次数
+     * @return 刷新成功的次数
+     */
+    public long getRefreshedCount() {
+        return refreshed.sum();
+    }
+    
+    /**
+     * 获取刷新失败的次数
+     * @return 刷新失败的次数
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+    
+    /**
+     * 获取刷新请求的平均耗时
+     * @return 平均耗时（毫秒），尚无请求时为0
+     */
+    public double getAverageLatencyMillis() {
+        long count = latencyCount.sum();
+        return count > 0 ? latencyTotalNanos.sum() / (double) count / 1_000_000 : 0;
+    }
+    
+    /**
+     * 获取刷新请求的最大耗时
+     * @return 最大耗时（毫秒）
+     */
+    public double getMaxLatencyMillis() {
+        return latencyMaxNanos.get() / 1_000_000.0;
+    }
+    
+    /**
+     * 刷新任务类
+     */
+    private static class RefreshTask implements Comparable<RefreshTask> {
+        private final UUID playerUuid;
+        private final long dueAt;
+        private final int failures;
+        
+        public RefreshTask(UUID playerUuid, long dueAt, int failures) {
+            this.playerUuid = playerUuid;
+            this.dueAt = dueAt;
+            this.failures = failures;
+        }
+        
+        @Override
+        public int compareTo(RefreshTask other) {
+            return Long.compare(dueAt, other.dueAt);
+        }
+    }
+}
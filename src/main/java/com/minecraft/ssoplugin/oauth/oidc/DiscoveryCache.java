@@ -0,0 +1,209 @@
+package com.minecraft.ssoplugin.oauth.oidc;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * OIDC发现文档缓存类，根据签发者获取SSO服务器的各个端点
+ * <p>
+ * 启动时先读取插件数据目录中上次保存的发现文档，随后在后台线程下载最新的文档并写回磁盘，
+ * 之后按固定间隔刷新。读取端点只访问内存中的文档，绑定过程和插件启动都不会等待网络请求。
+ */
+public class DiscoveryCache {
+    
+    private static final String WELL_KNOWN_PATH = "/.well-known/openid-configuration";
+    // 还没有可用的发现文档时使用较短的重试间隔
+    private static final long RETRY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    
+    private final SSOPlugin plugin;
+    private final String issuer;
+    private final URI discoveryUri;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final long refreshIntervalMillis;
+    private final Path cacheFile;
+    private final Consumer<DiscoveryCache> updateListener;
+    private final ScheduledExecutorService scheduler;
+    private volatile JSONObject document;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param issuer 签发者
+     * @param httpClient HTTP客户端
+     * @param requestTimeout 请求超时时间
+     * @param refreshIntervalMillis 后台刷新间隔（毫秒）
+     * @param cacheFile 发现文档的磁盘缓存文件
+     * @param updateListener 发现文档变化后的回调，在后台线程上调用
+     */
+    public DiscoveryCache(SSOPlugin plugin, String issuer, HttpClient httpClient, Duration requestTimeout,
+                          long refreshIntervalMillis, File cacheFile, Consumer<DiscoveryCache> updateListener) {
+        this.plugin = plugin;
+        this.issuer = issuer;
+        this.discoveryUri = URI.create(stripTrailingSlash(issuer) + WELL_KNOWN_PATH);
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.cacheFile = cacheFile.toPath();
+        this.updateListener = updateListener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSOPlugin-OIDC-Discovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 读取磁盘缓存并开始后台刷新
+     */
+    public void start() {
+        loadFromDisk();
+        scheduler.execute(this::refresh);
+    }
+    
+    /**
+     * 停止后台刷新
+     */
+    public void close() {
+        scheduler.shutdownNow();
+    }
+    
+    /**
+     * 获取发现文档中的端点
+     * @param key 元数据名称，例如token_endpoint
+     * @return 端点URL，尚未获取到发现文档或文档中没有该端点时返回null
+     */
+    public String getEndpoint(String key) {
+        JSONObject current = document;
+        if (current == null) {
+            return null;
+        }
+        String value = current.optString(key, null);
+        return value == null || value.isEmpty() ? null : value;
+    }
+    
+    /**
+     * 是否已有可用的发现文档
+     * @return 是否已有可用的发现文档
+     */
+    public boolean isLoaded() {
+        return document != null;
+    }
+    
+    /**
+     * 读取上次保存的发现文档，签发者不一致（例如修改了配置）时忽略
+     */
+    private void loadFromDisk() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        
+        try {
+            JSONObject cached = new JSONObject(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8));
+            if (issuer.equals(cached.optString("issuer"))) {
+                document = cached;
+            }
+        } catch (IOException | JSONException e) {
+            plugin.log(Level.WARNING, "读取OIDC发现文档缓存时出错: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 下载发现文档，完成后安排下一次刷新
+     */
+    private void refresh() {
+        HttpRequest request = HttpRequest.newBuilder(discoveryUri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        plugin.log(Level.WARNING, "下载OIDC发现文档时出错: " + error);
+                    } else if (response.statusCode() != 200) {
+                        plugin.log(Level.WARNING, "下载OIDC发现文档失败，状态码: " + response.statusCode());
+                    } else {
+                        update(response.body());
+                    }
+                    
+                    long delay = document != null ? refreshIntervalMillis : RETRY_INTERVAL_MILLIS;
+                    if (!scheduler.isShutdown()) {
+                        scheduler.schedule(this::refresh, delay, TimeUnit.MILLISECONDS);
+                    }
+                });
+    }
+    
+    /**
+     * 校验并使用新下载的发现文档，内容变化时写回磁盘并通知监听者
+     * @param body 发现文档
+     */
+    private void update(String body) {
+        JSONObject fetched;
+        try {
+            fetched = new JSONObject(body);
+        } catch (JSONException e) {
+            plugin.log(Level.WARNING, "解析OIDC发现文档时出错: " + e.getMessage());
+            return;
+        }
+        
+        // 文档中的签发者必须与配置完全一致，否则其中的端点不可信
+        if (!issuer.equals(fetched.optString("issuer"))) {
+            plugin.log(Level.WARNING, "OIDC发现文档的签发者不匹配: " + fetched.optString("issuer"));
+            return;
+        }
+        
+        JSONObject previous = document;
+        if (previous != null && previous.similar(fetched)) {
+            return;
+        }
+        
+        document = fetched;
+        saveToDisk(body);
+        plugin.log(Level.INFO, "已更新OIDC发现文档: " + issuer);
+        updateListener.accept(this);
+    }
+    
+    /**
+     * 将发现文档写入磁盘缓存，先写临时文件再替换，避免留下不完整的文件
+     * @param body 发现文档
+     */
+    private void saveToDisk(String body) {
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Files.write(temp, body.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.log(Level.WARNING, "保存OIDC发现文档缓存时出错: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 去掉签发者末尾的斜杠
+     * @param issuer 签发者
+     * @return 不以斜杠结尾的签发者
+     */
+    private static String stripTrailingSlash(String issuer) {
+        return issuer.endsWith("/") ? issuer.substring(0, issuer.length() - 1) : issuer;
+    }
+}
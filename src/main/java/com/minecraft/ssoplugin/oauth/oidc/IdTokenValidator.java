@@ -0,0 +1,265 @@
+package com.minecraft.ssoplugin.oauth.oidc;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * OIDC身份令牌验证器类，在本地验证id_token的签名和声明
+ * <p>
+ * 签名公钥来自 {@link JwksCache}，验证过程不需要请求SSO服务器。支持RS256、RS384、RS512、
+ * ES256、ES384和ES512算法，拒绝none和对称签名算法。nonce由授权请求的state派生，
+ * 回调时用同一个state重新计算，不需要额外保存。
+ */
+public class IdTokenValidator {
+    
+    private final JwksCache jwks;
+    private final String issuer;
+    private final String clientId;
+    private final long clockSkewSeconds;
+    
+    /**
+     * 构造函数
+     * @param jwks JWKS公钥集缓存
+     * @param issuer 签发者，令牌的iss必须与其完全一致
+     * @param clientId 客户端ID
+     * @param clockSkewSeconds 允许的时钟偏差（秒）
+     */
+    public IdTokenValidator(JwksCache jwks, String issuer, String clientId, long clockSkewSeconds) {
+        this.jwks = jwks;
+        this.issuer = issuer;
+        this.clientId = clientId;
+        this.clockSkewSeconds = clockSkewSeconds;
+    }
+    
+    /**
+     * 根据state计算授权请求的nonce
+     * @param state 状态参数
+     * @return nonce
+     */
+    public static String nonceFor(String state) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(state.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 验证身份令牌并返回其声明
+     * @param idToken 身份令牌
+     * @param expectedNonce 授权请求中的nonce
+     * @return 令牌声明；验证失败时以 {@link GeneralSecurityException} 异常完成
+     */
+    public CompletableFuture<JSONObject> validateAsync(String idToken, String expectedNonce) {
+        String[] parts = idToken.split("\\.");
+        if (parts.length != 3) {
+            return failed(new GeneralSecurityException("身份令牌格式无效"));
+        }
+        
+        JSONObject header;
+        try {
+            header = new JSONObject(decodeText(parts[0]));
+        } catch (JSONException | IllegalArgumentException e) {
+            return failed(new GeneralSecurityException("身份令牌头部无效", e));
+        }
+        
+        String algorithm = header.optString("alg");
+        String keyId = header.has("kid") ? header.getString("kid") : null;
+        return jwks.getKey(keyId).thenCompose(key -> {
+            try {
+                verifySignature(parts, algorithm, key);
+                JSONObject claims = new JSONObject(decodeText(parts[1]));
+                verifyClaims(claims, expectedNonce);
+                return CompletableFuture.completedFuture(claims);
+            } catch (GeneralSecurityException e) {
+                return failed(e);
+            } catch (JSONException | IllegalArgumentException e) {
+                return failed(new GeneralSecurityException("身份令牌声明无效", e));
+            }
+        });
+    }
+    
+    /**
+     * 验证签名
+     * @param parts 令牌的三个部分
+     * @param algorithm 签名算法
+     * @param key 公钥
+     * @throws GeneralSecurityException 如果签名无效
+     */
+    private static void verifySignature(String[] parts, String algorithm, PublicKey key) throws GeneralSecurityException {
+        if (key == null) {
+            throw new GeneralSecurityException("找不到身份令牌的签名公钥");
+        }
+        
+        String javaAlgorithm;
+        int ecFieldBytes = 0;
+        switch (algorithm) {
+            case "RS256":
+                javaAlgorithm = "SHA256withRSA";
+                break;
+            case "RS384":
+                javaAlgorithm = "SHA384withRSA";
+                break;
+            case "RS512":
+                javaAlgorithm = "SHA512withRSA";
+                break;
+            case "ES256":
+                javaAlgorithm = "SHA256withECDSA";
+                ecFieldBytes = 32;
+                break;
+            case "ES384":
+                javaAlgorithm = "SHA384withECDSA";
+                ecFieldBytes = 48;
+                break;
+            case "ES512":
+                javaAlgorithm = "SHA512withECDSA";
+                ecFieldBytes = 66;
+                break;
+            default:
+                throw new GeneralSecurityException("不支持的身份令牌签名算法: " + algorithm);
+        }
+        
+        // 算法必须与公钥类型一致，防止用一种算法的公钥验证另一种算法的签名
+        if (ecFieldBytes == 0 ? !(key instanceof RSAPublicKey) : !(key instanceof ECPublicKey)) {
+            throw new GeneralSecurityException("身份令牌签名算法与公钥类型不匹配: " + algorithm);
+        }
+        
+        byte[] signature = Base64.getUrlDecoder().decode(parts[2]);
+        if (ecFieldBytes > 0) {
+            signature = toDer(signature, ecFieldBytes);
+        }
+        
+        Signature verifier = Signature.getInstance(javaAlgorithm);
+        verifier.initVerify(key);
+        verifier.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+        if (!verifier.verify(signature)) {
+            throw new SignatureException("身份令牌签名无效");
+        }
+    }
+    
+    /**
+     * 验证声明
+     * @param claims 令牌声明
+     * @param expectedNonce 授权请求中的nonce
+     * @throws GeneralSecurityException 如果声明无效
+     */
+    private void verifyClaims(JSONObject claims, String expectedNonce) throws GeneralSecurityException {
+        if (!issuer.equals(claims.optString("iss"))) {
+            throw new GeneralSecurityException("身份令牌签发者不匹配: " + claims.optString("iss"));
+        }
+        
+        Object audience = claims.opt("aud");
+        boolean audienceMatches;
+        if (audience instanceof JSONArray) {
+            JSONArray audiences = (JSONArray) audience;
+            audienceMatches = audiences.toList().contains(clientId);
+            // 多个受众时授权方必须是本客户端
+            if (audienceMatches && audiences.length() > 1 && !clientId.equals(claims.optString("azp"))) {
+                throw new GeneralSecurityException("身份令牌授权方不匹配: " + claims.optString("azp"));
+            }
+        } else {
+            audienceMatches = clientId.equals(audience);
+        }
+        if (!audienceMatches) {
+            throw new GeneralSecurityException("身份令牌受众不匹配");
+        }
+        
+        long now = System.currentTimeMillis() / 1000;
+        if (!claims.has("exp") || claims.getLong("exp") + clockSkewSeconds < now) {
+            throw new GeneralSecurityException("身份令牌已过期");
+        }
+        if (claims.has("nbf") && claims.getLong("nbf") - clockSkewSeconds > now) {
+            throw new GeneralSecurityException("身份令牌尚未生效");
+        }
+        if (claims.has("iat") && claims.getLong("iat") - clockSkewSeconds > now) {
+            throw new GeneralSecurityException("身份令牌签发时间无效");
+        }
+        
+        if (expectedNonce != null && !MessageDigest.isEqual(
+                expectedNonce.getBytes(StandardCharsets.UTF_8),
+                claims.optString("nonce").getBytes(StandardCharsets.UTF_8))) {
+            throw new GeneralSecurityException("身份令牌nonce不匹配");
+        }
+    }
+    
+    /**
+     * 将JWS的ECDSA签名（r和s直接拼接）转换为Java使用的DER格式
+     * @param signature JWS签名
+     * @param fieldBytes r和s各自的字节数
+     * @return DER格式签名
+     * @throws SignatureException 如果签名长度无效
+     */
+    private static byte[] toDer(byte[] signature, int fieldBytes) throws SignatureException {
+        if (signature.length != fieldBytes * 2) {
+            throw new SignatureException("身份令牌签名长度无效");
+        }
+        
+        byte[] r = toDerInteger(Arrays.copyOfRange(signature, 0, fieldBytes));
+        byte[] s = toDerInteger(Arrays.copyOfRange(signature, fieldBytes, signature.length));
+        int length = r.length + s.length;
+        
+        byte[] lengthBytes = length < 128 ? new byte[]{(byte) length} : new byte[]{(byte) 0x81, (byte) length};
+        byte[] der = new byte[1 + lengthBytes.length + length];
+        der[0] = 0x30;
+        System.arraycopy(lengthBytes, 0, der, 1, lengthBytes.length);
+        System.arraycopy(r, 0, der, 1 + lengthBytes.length, r.length);
+        System.arraycopy(s, 0, der, 1 + lengthBytes.length + r.length, s.length);
+        return der;
+    }
+    
+    /**
+     * 将无符号大端整数编码为DER INTEGER
+     * @param value 整数字节
+     * @return DER INTEGER
+     */
+    private static byte[] toDerInteger(byte[] value) {
+        int start = 0;
+        while (start < value.length - 1 && value[start] == 0) {
+            start++;
+        }
+        
+        // 最高位为1时需要补0，否则会被当作负数
+        boolean pad = (value[start] & 0x80) != 0;
+        int length = value.length - start + (pad ? 1 : 0);
+        byte[] der = new byte[2 + length];
+        der[0] = 0x02;
+        der[1] = (byte) length;
+        System.arraycopy(value, start, der, 2 + (pad ? 1 : 0), value.length - start);
+        return der;
+    }
+    
+    /**
+     * 解码Base64URL编码的UTF-8文本
+     * @param value 编码后的文本
+     * @return 文本
+     */
+    private static String decodeText(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 创建以验证失败完成的结果
+     * @param error 失败原因
+     * @return 异常完成的结果
+     */
+    private static CompletableFuture<JSONObject> failed(GeneralSecurityException error) {
+        CompletableFuture<JSONObject> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+}
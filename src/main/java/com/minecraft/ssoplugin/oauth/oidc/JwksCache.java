@@ -0,0 +1,285 @@
+package com.minecraft.ssoplugin.oauth.oidc;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * JWKS公钥集缓存类，缓存SSO服务器用于签名身份令牌的公钥
+ * <p>
+ * 公钥集在后台按固定间隔刷新，验证身份令牌时直接从内存读取。遇到未知的密钥ID时
+ * 说明服务器可能已轮换密钥，此时立即刷新一次，但两次按需刷新之间至少间隔一分钟，
+ * 伪造的密钥ID不会导致频繁请求。
+ */
+public class JwksCache {
+    
+    private static final long MIN_ON_DEMAND_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    
+    private final SSOPlugin plugin;
+    private final Supplier<String> jwksUrl;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final long refreshIntervalMillis;
+    private final AtomicReference<CompletableFuture<Map<String, PublicKey>>> refreshing;
+    private final ScheduledExecutorService scheduler;
+    private volatile Map<String, PublicKey> keys;
+    private volatile long lastRefreshAt;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param jwksUrl JWKS公钥集URL，使用OIDC发现时可能暂时为null
+     * @param httpClient HTTP客户端
+     * @param requestTimeout 请求超时时间
+     * @param refreshIntervalMillis 后台刷新间隔（毫秒）
+     */
+    public JwksCache(SSOPlugin plugin, Supplier<String> jwksUrl, HttpClient httpClient, Duration requestTimeout,
+                     long refreshIntervalMillis) {
+        this.plugin = plugin;
+        this.jwksUrl = jwksUrl;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.refreshing = new AtomicReference<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSOPlugin-JWKS-Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.keys = Collections.emptyMap();
+    }
+    
+    /**
+     * 立即加载公钥集并开始后台刷新
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refreshInBackground, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 后台定时刷新，任务抛出异常会取消之后的所有定时刷新，因此在这里捕获
+     */
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            plugin.log(Level.WARNING, "刷新JWKS公钥集时出错: " + e);
+        }
+    }
+    
+    /**
+     * 停止后台刷新
+     */
+    public void close() {
+        scheduler.shutdownNow();
+    }
+    
+    /**
+     * 获取签名公钥
+     * @param keyId 密钥ID，令牌未指定时为null
+     * @return 公钥，找不到时为null
+     */
+    public CompletableFuture<PublicKey> getKey(String keyId) {
+        PublicKey key = findKey(keys, keyId);
+        if (key != null) {
+            return CompletableFuture.completedFuture(key);
+        }
+        
+        // 公钥集正在下载（例如启动后的首次加载）时等待下载完成
+        CompletableFuture<Map<String, PublicKey>> pending = refreshing.get();
+        if (pending != null) {
+            return pending.thenApply(refreshed -> findKey(refreshed, keyId));
+        }
+        
+        // 未知的密钥ID，服务器可能已轮换密钥
+        if (System.currentTimeMillis() - lastRefreshAt < MIN_ON_DEMAND_INTERVAL_MILLIS) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return refresh().thenApply(refreshed -> findKey(refreshed, keyId));
+    }
+    
+    /**
+     * 获取已缓存的公钥数量
+     * @return 公钥数量
+     */
+    public int size() {
+        return keys.size();
+    }
+    
+    /**
+     * 从公钥集中查找公钥，令牌未指定密钥ID且公钥集只有一个公钥时使用该公钥
+     * @param keys 公钥集
+     * @param keyId 密钥ID
+     * @return 公钥，找不到时为null
+     */
+    private static PublicKey findKey(Map<String, PublicKey> keys, String keyId) {
+        if (keyId != null) {
+            return keys.get(keyId);
+        }
+        return keys.size() == 1 ? keys.values().iterator().next() : null;
+    }
+    
+    /**
+     * 重新下载公钥集，同一时刻只有一个下载请求
+     * @return 最新的公钥集，下载失败时为之前缓存的公钥集
+     */
+    public CompletableFuture<Map<String, PublicKey>> refresh() {
+        String url = jwksUrl.get();
+        if (url == null || url.isEmpty()) {
+            return CompletableFuture.completedFuture(keys);
+        }
+        
+        // 先构建请求再登记下载，URL无效时直接返回缓存的公钥集，不会留下永远不会完成的下载
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(requestTimeout)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            // 同样受按需刷新间隔限制，每次验证都重试只会重复记录同一条日志
+            lastRefreshAt = System.currentTimeMillis();
+            plugin.log(Level.WARNING, "JWKS公钥集URL无效: " + url + " - " + e.getMessage());
+            return CompletableFuture.completedFuture(keys);
+        }
+        
+        CompletableFuture<Map<String, PublicKey>> future = new CompletableFuture<>();
+        CompletableFuture<Map<String, PublicKey>> existing = refreshing.compareAndExchange(null, future);
+        if (existing != null) {
+            return existing;
+        }
+        
+        lastRefreshAt = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<String>> download;
+        try {
+            download = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            plugin.log(Level.WARNING, "下载JWKS公钥集时出错: " + e);
+            refreshing.set(null);
+            future.complete(keys);
+            return future;
+        }
+        
+        download.whenComplete((response, error) -> {
+            try {
+                if (error != null) {
+                    plugin.log(Level.WARNING, "下载JWKS公钥集时出错: " + error);
+                } else if (response.statusCode() != 200) {
+                    plugin.log(Level.WARNING, "下载JWKS公钥集失败，状态码: " + response.statusCode());
+                } else {
+                    keys = parseKeys(response.body());
+                }
+            } catch (RuntimeException e) {
+                plugin.log(Level.WARNING, "解析JWKS公钥集时出错: " + e.getMessage());
+            } finally {
+                refreshing.set(null);
+                future.complete(keys);
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * 解析JWKS公钥集，跳过不支持或不用于签名的密钥
+     * @param json JWKS文档
+     * @return 密钥ID到公钥的映射，没有密钥ID的公钥使用空字符串
+     */
+    private Map<String, PublicKey> parseKeys(String json) {
+        JSONArray array = new JSONObject(json).getJSONArray("keys");
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject jwk = array.getJSONObject(i);
+            if (!"sig".equals(jwk.optString("use", "sig"))) {
+                continue;
+            }
+            
+            try {
+                PublicKey key = toPublicKey(jwk);
+                if (key != null) {
+                    parsed.put(jwk.optString("kid", ""), key);
+                }
+            } catch (GeneralSecurityException | JSONException | IllegalArgumentException e) {
+                plugin.log(Level.WARNING, "跳过无效的JWKS公钥 " + jwk.optString("kid") + ": " + e.getMessage());
+            }
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+    
+    /**
+     * 将JWK转换为公钥
+     * @param jwk JWK对象
+     * @return 公钥，不支持的密钥类型返回null
+     * @throws GeneralSecurityException 如果密钥参数无效
+     */
+    private static PublicKey toPublicKey(JSONObject jwk) throws GeneralSecurityException {
+        String keyType = jwk.getString("kty");
+        if ("RSA".equals(keyType)) {
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(decodeInteger(jwk.getString("n")), decodeInteger(jwk.getString("e")));
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        }
+        
+        if ("EC".equals(keyType)) {
+            String curve;
+            switch (jwk.getString("crv")) {
+                case "P-256":
+                    curve = "secp256r1";
+                    break;
+                case "P-384":
+                    curve = "secp384r1";
+                    break;
+                case "P-521":
+                    curve = "secp521r1";
+                    break;
+                default:
+                    return null;
+            }
+            
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curve));
+            ECPoint point = new ECPoint(decodeInteger(jwk.getString("x")), decodeInteger(jwk.getString("y")));
+            ECPublicKeySpec spec = new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class));
+            return KeyFactory.getInstance("EC").generatePublic(spec);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * 解码Base64URL编码的无符号大整数
+     * @param value 编码后的值
+     * @return 大整数
+     */
+    private static BigInteger decodeInteger(String value) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+}
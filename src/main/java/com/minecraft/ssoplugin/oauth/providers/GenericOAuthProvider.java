@@ -1,35 +1,58 @@
 package com.minecraft.ssoplugin.oauth.providers;
 
 import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.config.ConfigManager;
+import com.minecraft.ssoplugin.config.ProviderSettings;
 import com.minecraft.ssoplugin.oauth.OAuthProvider;
 import com.minecraft.ssoplugin.oauth.OAuthTokenResponse;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
+import com.minecraft.ssoplugin.oauth.ProviderMetrics;
+import com.minecraft.ssoplugin.oauth.ProviderMetrics.Endpoint;
+import com.minecraft.ssoplugin.oauth.oidc.DiscoveryCache;
+import com.minecraft.ssoplugin.oauth.oidc.IdTokenValidator;
+import com.minecraft.ssoplugin.oauth.oidc.JwksCache;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.IOException;
+import java.io.File;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
  * 通用OAuth提供者实现，适用于大多数标准OAuth2.0服务
+ * <p>
+ * 每个提供者有自己的HTTP客户端和请求指标，多个提供者之间互不影响。所有请求共用一个JDK的 {@link HttpClient}，
+ * 与同一主机的keep-alive连接在请求之间保持复用，不必每次都重新进行TCP和TLS握手；请求在其选择器线程上等待响应，
+ * 等待SSO服务器期间不占用任何线程。JDK客户端没有连接数上限，并发请求数由回调服务器和后台令牌刷新的并发上限约束。
+ * 同步方法只是等待对应的异步方法完成。提供者不再使用时必须调用 {@link #close()}。
+ * <p>
+ * 启用OIDC后，令牌响应中的id_token在本地用缓存的JWKS公钥验证，用户字段直接从其声明中读取，
+ * 绑定时不再请求用户信息端点。
+ * <p>
+ * 配置了OIDC签发者时，未在配置中填写的端点从缓存的发现文档读取，发现文档在后台下载和刷新。
  */
 public class GenericOAuthProvider implements OAuthProvider {
     
+    // 异步客户端只在该线程池上解析响应和执行后续步骤，网络等待都在选择器线程上完成
+    private static final int ASYNC_THREADS = 2;
+    private static final String DISCOVERY_CACHE_FILE = "oidc-discovery.json";
+    
     private final SSOPlugin plugin;
+    private final String name;
+    private final ProviderMetrics metrics;
     private final String authUrl;
     private final String tokenUrl;
     private final String userInfoUrl;
@@ -37,24 +60,183 @@ public class GenericOAuthProvider implements OAuthProvider {
     private final String clientSecret;
     private final String redirectUri;
     private final String scope;
+    private final ExecutorService asyncExecutor;
+    private final HttpClient asyncHttpClient;
+    private final Duration requestTimeout;
+    private final String jwksUrl;
+    private final DiscoveryCache discovery;
+    private final JwksCache jwksCache;
+    private final IdTokenValidator idTokenValidator;
     
     /**
      * 构造函数
      * @param plugin 插件实例
+     * @param config 提供者设置
      */
-    public GenericOAuthProvider(SSOPlugin plugin) {
+    public GenericOAuthProvider(SSOPlugin plugin, ProviderSettings config) {
         this.plugin = plugin;
-        this.authUrl = plugin.getConfigManager().getAuthUrl();
-        this.tokenUrl = plugin.getConfigManager().getTokenUrl();
-        this.userInfoUrl = plugin.getConfigManager().getUserInfoUrl();
-        this.clientId = plugin.getConfigManager().getClientId();
-        this.clientSecret = plugin.getConfigManager().getClientSecret();
+        this.name = config.getName();
+        this.metrics = new ProviderMetrics();
+        this.authUrl = config.getAuthUrl();
+        this.tokenUrl = config.getTokenUrl();
+        this.userInfoUrl = config.getUserInfoUrl();
+        this.clientId = config.getClientId();
+        this.clientSecret = config.getClientSecret();
         this.redirectUri = plugin.getConfigManager().getRedirectUri();
-        this.scope = plugin.getConfigManager().getScope();
+        this.asyncExecutor = Executors.newFixedThreadPool(ASYNC_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "SSOPlugin-OAuth-HTTP-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.asyncHttpClient = HttpClient.newBuilder()
+                .executor(asyncExecutor)
+                .connectTimeout(Duration.ofMillis(Math.max(1, config.getHttpConnectTimeout())))
+                .build();
+        this.requestTimeout = Duration.ofMillis(Math.max(1, config.getHttpReadTimeout()));
+        
+        this.jwksUrl = validUrlOrEmpty(config.getOidcJwksUrl(), "oidc.jwks_url");
+        String issuer = validUrlOrEmpty(config.getOidcIssuer(), "oidc.issuer");
+        if (!issuer.isEmpty()) {
+            this.discovery = new DiscoveryCache(plugin, issuer, asyncHttpClient, requestTimeout,
+                    TimeUnit.SECONDS.toMillis(config.getOidcDiscoveryRefreshInterval()),
+                    new File(plugin.getDataFolder(), discoveryCacheFile(name)), this::onDiscoveryUpdated);
+        } else {
+            this.discovery = null;
+        }
+        
+        // 不检查签发者时，共用签名密钥的SSO服务器上其他租户签发的令牌也能通过验证，因此必须配置签发者
+        if (config.isOidcEnabled() && !issuer.isEmpty()) {
+            this.jwksCache = new JwksCache(plugin, () -> endpoint(jwksUrl, "jwks_uri"), asyncHttpClient,
+                    requestTimeout, TimeUnit.SECONDS.toMillis(config.getOidcJwksRefreshInterval()));
+            this.idTokenValidator = new IdTokenValidator(jwksCache, issuer, clientId,
+                    config.getOidcClockSkew());
+            this.scope = withOpenIdScope(config.getScope());
+        } else {
+            if (config.isOidcEnabled()) {
+                plugin.log(Level.WARNING, "提供者 " + name + " 已启用OIDC但未配置issuer，无法检查身份令牌的签发者，将继续请求用户信息端点");
+            }
+            this.jwksCache = null;
+            this.idTokenValidator = null;
+            this.scope = config.getScope();
+        }
+        
+        // 先读取发现文档的磁盘缓存，JWKS的首次下载可以直接使用其中的jwks_uri
+        if (discovery != null) {
+            discovery.start();
+        }
+        if (jwksCache != null) {
+            jwksCache.start();
+        }
+    }
+    
+    /**
+     * 检查配置的URL是否为http或https绝对地址，无效时记录日志并按未配置处理
+     * @param url 配置的URL
+     * @param key 配置项名称，用于日志
+     * @return 有效的URL，未配置或无效时返回空字符串
+     */
+    private String validUrlOrEmpty(String url, String key) {
+        if (url.isEmpty()) {
+            return url;
+        }
+        try {
+            URI uri = new URI(url);
+            if (("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))
+                    && uri.getHost() != null) {
+                return url;
+            }
+        } catch (URISyntaxException ignored) {
+            // 与缺少协议或主机的URL一样处理
+        }
+        plugin.log(Level.SEVERE, "提供者 " + name + " 的" + key + "不是有效的http或https地址，将按未配置处理: " + url);
+        return "";
+    }
+    
+    /**
+     * 获取发现文档缓存文件名，默认提供者沿用原来的文件名
+     * @param name 提供者名称
+     * @return 缓存文件名
+     */
+    private static String discoveryCacheFile(String name) {
+        if (ConfigManager.DEFAULT_PROVIDER_NAME.equals(name)) {
+            return DISCOVERY_CACHE_FILE;
+        }
+        return "oidc-discovery-" + name + ".json";
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public ProviderMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * 发现文档更新后重新下载JWKS公钥集，jwks_uri可能已经变化
+     * @param updated 更新后的发现文档
+     */
+    private void onDiscoveryUpdated(DiscoveryCache updated) {
+        if (jwksCache != null && jwksUrl.isEmpty()) {
+            jwksCache.refresh();
+        }
+    }
+    
+    /**
+     * 获取端点URL，配置中填写的URL优先，否则从发现文档读取
+     * @param configured 配置中的URL
+     * @param metadataKey 发现文档中的元数据名称
+     * @return 端点URL，都没有时返回null
+     */
+    private String endpoint(String configured, String metadataKey) {
+        if (configured != null && !configured.isEmpty()) {
+            return configured;
+        }
+        return discovery != null ? discovery.getEndpoint(metadataKey) : null;
+    }
+    
+    /**
+     * 获取发起请求所需的端点URL，找不到时记录日志
+     * @param configured 配置中的URL
+     * @param metadataKey 发现文档中的元数据名称
+     * @param name 端点名称，用于日志
+     * @return 端点URL，都没有时返回null
+     */
+    private String requireEndpoint(String configured, String metadataKey, String name) {
+        String url = endpoint(configured, metadataKey);
+        if (url == null) {
+            plugin.log(Level.WARNING, "提供者 " + this.name + " 未配置" + name
+                    + (discovery != null ? "，且尚未获取到OIDC发现文档" : ""));
+        }
+        return url;
+    }
+    
+    /**
+     * 确保授权作用域包含openid，否则SSO服务器不会返回id_token
+     * @param scope 配置的授权作用域
+     * @return 包含openid的授权作用域
+     */
+    private static String withOpenIdScope(String scope) {
+        if (scope == null || scope.trim().isEmpty()) {
+            return "openid";
+        }
+        for (String item : scope.trim().split("\\s+")) {
+            if ("openid".equals(item)) {
+                return scope;
+            }
+        }
+        return "openid " + scope.trim();
     }
     
     @Override
     public String generateAuthUrl(String state) {
+        String authUrl = requireEndpoint(this.authUrl, "authorization_endpoint", "授权URL");
+        if (authUrl == null) {
+            return null;
+        }
+        
         try {
             StringBuilder urlBuilder = new StringBuilder(authUrl);
             urlBuilder.append("?response_type=code");
@@ -67,6 +249,10 @@ public class GenericOAuthProvider implements OAuthProvider {
             
             urlBuilder.append("&state=").append(URLEncoder.encode(state, StandardCharsets.UTF_8.name()));
             
+            if (idTokenValidator != null) {
+                urlBuilder.append("&nonce=").append(IdTokenValidator.nonceFor(state));
+            }
+            
             return urlBuilder.toString();
         } catch (UnsupportedEncodingException e) {
             plugin.log(Level.SEVERE, "生成授权URL时出错: " + e.getMessage());
@@ -76,123 +262,222 @@ public class GenericOAuthProvider implements OAuthProvider {
     
     @Override
     public OAuthTokenResponse getAccessToken(String code) {
-        HttpClient httpClient = HttpClients.createDefault();
-        HttpPost httpPost = new HttpPost(tokenUrl);
-        
-        // 设置请求参数
-        List<NameValuePair> params = new ArrayList<>();
-        params.add(new BasicNameValuePair("grant_type", "authorization_code"));
-        params.add(new BasicNameValuePair("code", code));
-        params.add(new BasicNameValuePair("client_id", clientId));
-        params.add(new BasicNameValuePair("client_secret", clientSecret));
-        params.add(new BasicNameValuePair("redirect_uri", redirectUri));
-        
-        try {
-            httpPost.setEntity(new UrlEncodedFormEntity(params));
-            httpPost.setHeader("Accept", "application/json");
-            httpPost.setHeader("Content-Type", "application/x-www-form-urlencoded");
-            
-            // 发送请求
-            HttpResponse response = httpClient.execute(httpPost);
-            HttpEntity entity = response.getEntity();
-            
-            if (entity != null) {
-                String responseString = EntityUtils.toString(entity);
-                JSONObject jsonResponse = new JSONObject(responseString);
-                
-                // 解析响应
-                if (jsonResponse.has("access_token")) {
-                    String accessToken = jsonResponse.getString("access_token");
-                    String refreshToken = jsonResponse.optString("refresh_token", null);
-                    long expiresIn = jsonResponse.optLong("expires_in", 3600);
-                    String tokenType = jsonResponse.optString("token_type", "Bearer");
-                    
-                    return new OAuthTokenResponse(accessToken, refreshToken, expiresIn, tokenType);
-                } else if (jsonResponse.has("error")) {
-                    String error = jsonResponse.getString("error");
-                    String errorDescription = jsonResponse.optString("error_description", "Unknown error");
-                    plugin.log(Level.WARNING, "获取访问令牌失败: " + error + " - " + errorDescription);
-                }
-            }
-        } catch (IOException | JSONException e) {
-            plugin.log(Level.SEVERE, "获取访问令牌时出错: " + e.getMessage());
-        }
-        
-        return null;
+        return getAccessTokenAsync(code).join();
+    }
+    
+    @Override
+    public CompletableFuture<OAuthTokenResponse> getAccessTokenAsync(String code) {
+        return sendFormAsync(authorizationCodeParams(code), "获取访问令牌时出错: ")
+                .thenApply(responseString -> parseTokenResponse(responseString, null, "获取访问令牌"));
     }
     
     @Override
     public JSONObject getUserInfo(String accessToken) {
-        HttpClient httpClient = HttpClients.createDefault();
-        HttpGet httpGet = new HttpGet(userInfoUrl);
+        return getUserInfoAsync(accessToken).join();
+    }
+    
+    @Override
+    public CompletableFuture<JSONObject> getUserInfoAsync(String accessToken) {
+        String userInfoUrl = requireEndpoint(this.userInfoUrl, "userinfo_endpoint", "用户信息URL");
+        if (userInfoUrl == null) {
+            return CompletableFuture.completedFuture(null);
+        }
         
-        // 设置请求头
-        httpGet.setHeader("Authorization", "Bearer " + accessToken);
-        httpGet.setHeader("Accept", "application/json");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(userInfoUrl))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
         
-        try {
-            // 发送请求
-            HttpResponse response = httpClient.execute(httpGet);
-            HttpEntity entity = response.getEntity();
-            
-            if (entity != null) {
-                String responseString = EntityUtils.toString(entity);
-                return new JSONObject(responseString);
-            }
-        } catch (IOException | JSONException e) {
-            plugin.log(Level.SEVERE, "获取用户信息时出错: " + e.getMessage());
+        return sendAsync(request, Endpoint.USERINFO, "获取用户信息时出错: ").thenApply(this::parseUserInfo);
+    }
+    
+    @Override
+    public CompletableFuture<JSONObject> resolveUserInfoAsync(OAuthTokenResponse tokenResponse, String state) {
+        if (idTokenValidator == null || tokenResponse.getIdToken() == null) {
+            return getUserInfoAsync(tokenResponse.getAccessToken());
         }
         
-        return null;
+        // 验证失败时不回退到用户信息端点，无效的身份令牌说明响应本身不可信
+        return idTokenValidator.validateAsync(tokenResponse.getIdToken(), IdTokenValidator.nonceFor(state))
+                .handle((claims, error) -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        plugin.log(Level.WARNING, "验证身份令牌失败: " + cause.getMessage());
+                        return null;
+                    }
+                    return claims;
+                });
     }
     
     @Override
     public OAuthTokenResponse refreshAccessToken(String refreshToken) {
+        return refreshAccessTokenAsync(refreshToken).join();
+    }
+    
+    @Override
+    public CompletableFuture<OAuthTokenResponse> refreshAccessTokenAsync(String refreshToken) {
         if (refreshToken == null || refreshToken.isEmpty()) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
         
-        HttpClient httpClient = HttpClients.createDefault();
-        HttpPost httpPost = new HttpPost(tokenUrl);
+        return sendFormAsync(refreshTokenParams(refreshToken), "刷新访问令牌时出错: ")
+                .thenApply(responseString -> parseTokenResponse(responseString, refreshToken, "刷新访问令牌"));
+    }
+    
+    /**
+     * 构建授权码换取令牌的请求参数
+     * @param code 授权码
+     * @return 请求参数
+     */
+    private Map<String, String> authorizationCodeParams(String code) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("grant_type", "authorization_code");
+        params.put("code", code);
+        params.put("client_id", clientId);
+        params.put("client_secret", clientSecret);
+        params.put("redirect_uri", redirectUri);
+        return params;
+    }
+    
+    /**
+     * 构建刷新令牌的请求参数
+     * @param refreshToken 刷新令牌
+     * @return 请求参数
+     */
+    private Map<String, String> refreshTokenParams(String refreshToken) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("grant_type", "refresh_token");
+        params.put("refresh_token", refreshToken);
+        params.put("client_id", clientId);
+        params.put("client_secret", clientSecret);
+        return params;
+    }
+    
+    /**
+     * 异步向令牌端点发送表单请求
+     * @param params 请求参数
+     * @param errorMessage 出错时的日志前缀
+     * @return 响应内容，请求失败时为null
+     */
+    private CompletableFuture<String> sendFormAsync(Map<String, String> params, String errorMessage) {
+        String tokenUrl = requireEndpoint(this.tokenUrl, "token_endpoint", "令牌URL");
+        if (tokenUrl == null) {
+            return CompletableFuture.completedFuture(null);
+        }
         
-        // 设置请求参数
-        List<NameValuePair> params = new ArrayList<>();
-        params.add(new BasicNameValuePair("grant_type", "refresh_token"));
-        params.add(new BasicNameValuePair("refresh_token", refreshToken));
-        params.add(new BasicNameValuePair("client_id", clientId));
-        params.add(new BasicNameValuePair("client_secret", clientSecret));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(tokenUrl))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encodeForm(params)))
+                .build();
+        
+        return sendAsync(request, Endpoint.TOKEN, errorMessage);
+    }
+    
+    /**
+     * 异步发送请求，请求失败时记录日志并以null完成
+     * @param request 请求
+     * @param endpoint 请求的端点，用于统计耗时
+     * @param errorMessage 出错时的日志前缀
+     * @return 响应内容，请求失败时为null
+     */
+    private CompletableFuture<String> sendAsync(HttpRequest request, Endpoint endpoint, String errorMessage) {
+        long start = System.nanoTime();
+        return asyncHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .handle((response, error) -> {
+                    metrics.record(endpoint, start, error == null);
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        plugin.log(Level.SEVERE, errorMessage + cause);
+                        return null;
+                    }
+                    return response.body();
+                });
+    }
+    
+    /**
+     * 将请求参数编码为表单格式
+     * @param params 请求参数
+     * @return 表单字符串
+     */
+    private static String encodeForm(Map<String, String> params) {
+        StringBuilder form = new StringBuilder();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (form.length() > 0) {
+                form.append('&');
+            }
+            form.append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8))
+                    .append('=')
+                    .append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+        }
+        return form.toString();
+    }
+    
+    /**
+     * 解析令牌端点的响应
+     * @param responseString 响应内容
+     * @param previousRefreshToken 响应未返回新刷新令牌时沿用的刷新令牌
+     * @param action 操作名称，用于日志
+     * @return 令牌响应，失败时返回null
+     */
+    private OAuthTokenResponse parseTokenResponse(String responseString, String previousRefreshToken, String action) {
+        if (responseString == null) {
+            return null;
+        }
         
         try {
-            httpPost.setEntity(new UrlEncodedFormEntity(params));
-            httpPost.setHeader("Accept", "application/json");
-            httpPost.setHeader("Content-Type", "application/x-www-form-urlencoded");
-            
-            // 发送请求
-            HttpResponse response = httpClient.execute(httpPost);
-            HttpEntity entity = response.getEntity();
+            JSONObject jsonResponse = new JSONObject(responseString);
             
-            if (entity != null) {
-                String responseString = EntityUtils.toString(entity);
-                JSONObject jsonResponse = new JSONObject(responseString);
+            // 解析响应
+            if (jsonResponse.has("access_token")) {
+                String accessToken = jsonResponse.getString("access_token");
+                String refreshToken = jsonResponse.optString("refresh_token", previousRefreshToken);
+                long expiresIn = jsonResponse.optLong("expires_in", 3600);
+                String tokenType = jsonResponse.optString("token_type", "Bearer");
+                String idToken = jsonResponse.optString("id_token", null);
                 
-                // 解析响应
-                if (jsonResponse.has("access_token")) {
-                    String accessToken = jsonResponse.getString("access_token");
-                    String newRefreshToken = jsonResponse.optString("refresh_token", refreshToken);
-                    long expiresIn = jsonResponse.optLong("expires_in", 3600);
-                    String tokenType = jsonResponse.optString("token_type", "Bearer");
-                    
-                    return new OAuthTokenResponse(accessToken, newRefreshToken, expiresIn, tokenType);
-                } else if (jsonResponse.has("error")) {
-                    String error = jsonResponse.getString("error");
-                    String errorDescription = jsonResponse.optString("error_description", "Unknown error");
-                    plugin.log(Level.WARNING, "刷新访问令牌失败: " + error + " - " + errorDescription);
-                }
+                return new OAuthTokenResponse(accessToken, refreshToken, expiresIn, tokenType, idToken);
+            } else if (jsonResponse.has("error")) {
+                String error = jsonResponse.getString("error");
+                String errorDescription = jsonResponse.optString("error_description", "Unknown error");
+                plugin.log(Level.WARNING, action + "失败: " + error + " - " + errorDescription);
             }
-        } catch (IOException | JSONException e) {
-            plugin.log(Level.SEVERE, "刷新访问令牌时出错: " + e.getMessage());
+        } catch (JSONException e) {
+            plugin.log(Level.SEVERE, action + "时出错: " + e.getMessage());
         }
         
         return null;
     }
+    
+    /**
+     * 解析用户信息端点的响应
+     * @param responseString 响应内容
+     * @return 用户信息JSON对象，失败时返回null
+     */
+    private JSONObject parseUserInfo(String responseString) {
+        if (responseString == null) {
+            return null;
+        }
+        
+        try {
+            return new JSONObject(responseString);
+        } catch (JSONException e) {
+            plugin.log(Level.SEVERE, "获取用户信息时出错: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (discovery != null) {
+            discovery.close();
+        }
+        if (jwksCache != null) {
+            jwksCache.close();
+        }
+        asyncExecutor.shutdown();
+    }
 }
@@ -0,0 +1,27 @@
+package com.minecraft.ssoplugin.storage;
+
+/**
+ * 绑定结果枚举
+ */
+public enum BindResult {
+    
+    /**
+     * 绑定成功
+     */
+    BOUND,
+    
+    /**
+     * 玩家已经绑定了SSO账号
+     */
+    PLAYER_ALREADY_BOUND,
+    
+    /**
+     * SSO账号已被其他玩家绑定
+     */
+    SSO_ID_ALREADY_BOUND,
+    
+    /**
+     * 数据库错误
+     */
+    ERROR
+}
@@ -0,0 +1,226 @@
+package com.minecraft.ssoplugin.storage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * 玩家绑定信息类
+ * <p>
+ * 不可变对象，可以在缓存和多个线程之间安全共享。数据库行按 {@link #COLUMNS}
+ * 中的列顺序读取，两种数据库返回的时间统一转换为 {@link Instant}。
+ */
+public class Binding {
+    
+    /**
+     * 查询绑定信息时使用的列，顺序与 {@link #fromResultSet(ResultSet)} 一致
+     */
+    public static final String COLUMNS = "id, player_uuid, player_name, sso_id, access_token, refresh_token, " +
+            "token_expires_at, user_data, created_at, updated_at";
+    
+    // SQLite的CURRENT_TIMESTAMP以UTC时间的文本形式保存
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSS]");
+    
+    private final long id;
+    private final UUID playerUuid;
+    private final String playerName;
+    private final String ssoId;
+    private final String accessToken;
+    private final String refreshToken;
+    private final Instant tokenExpiresAt;
+    private final String userData;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+    
+    /**
+     * 构造函数
+     * @param id 记录ID，尚未从数据库读取时为0
+     * @param playerUuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param ssoId SSO ID
+     * @param accessToken 访问令牌
+     * @param refreshToken 刷新令牌
+     * @param tokenExpiresAt 令牌过期时间，没有有效期时为null
+     * @param userData 用户数据（JSON字符串）
+     * @param createdAt 创建时间
+     * @param updatedAt 更新时间
+     */
+    public Binding(long id, UUID playerUuid, String playerName, String ssoId, String accessToken, String refreshToken,
+                   Instant tokenExpiresAt, String userData, Instant createdAt, Instant updatedAt) {
+        this.id = id;
+        this.playerUuid = playerUuid;
+        this.playerName = playerName;
+        this.ssoId = ssoId;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.tokenExpiresAt = tokenExpiresAt;
+        this.userData = userData;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+    
+    /**
+     * 从结果集的当前行读取绑定信息，查询必须按 {@link #COLUMNS} 选择列
+     * @param resultSet 结果集
+     * @return 绑定信息
+     * @throws SQLException 如果读取时出错
+     */
+    public static Binding fromResultSet(ResultSet resultSet) throws SQLException {
+        return new Binding(
+                resultSet.getLong(1),
+                UUID.fromString(resultSet.getString(2)),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                resultSet.getString(6),
+                readInstant(resultSet, 7),
+                resultSet.getString(8),
+                readInstant(resultSet, 9),
+                readInstant(resultSet, 10)
+        );
+    }
+    
+    /**
+     * 读取时间列
+     * <p>
+     * MySQL返回 {@link Timestamp} 或 {@link LocalDateTime}；SQLite中由驱动写入的时间
+     * 是毫秒时间戳，由CURRENT_TIMESTAMP写入的时间是UTC文本。
+     * @param resultSet 结果集
+     * @param column 列序号
+     * @return 时间，列为空或无法解析时返回null
+     * @throws SQLException 如果读取时出错
+     */
+    private static Instant readInstant(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant();
+        }
+        if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            try {
+                return LocalDateTime.parse((String) value, SQLITE_TIMESTAMP).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 创建玩家名称被更新后的副本
+     * @param playerName 新的玩家名称
+     * @param updatedAt 更新时间
+     * @return 更新后的绑定信息
+     */
+    public Binding withPlayerName(String playerName, Instant updatedAt) {
+        return new Binding(id, playerUuid, playerName, ssoId, accessToken, refreshToken,
+                tokenExpiresAt, userData, createdAt, updatedAt);
+    }
+    
+    /**
+     * 创建令牌被更新后的副本
+     * @param token 令牌更新
+     * @param updatedAt 更新时间
+     * @return 更新后的绑定信息，令牌属于其他SSO ID时返回当前绑定信息
+     */
+    public Binding withToken(TokenUpdate token, Instant updatedAt) {
+        if (!ssoId.equals(token.getSsoId())) {
+            return this;
+        }
+        Instant expiresAt = token.getExpiresAt() != null ? token.getExpiresAt().toInstant() : null;
+        return new Binding(id, playerUuid, playerName, ssoId, token.getAccessToken(), token.getRefreshToken(),
+                expiresAt, userData, createdAt, updatedAt);
+    }
+    
+    /**
+     * 获取记录ID
+     * @return 记录ID，尚未从数据库读取时为0
+     */
+    public long getId() {
+        return id;
+    }
+    
+    /**
+     * 获取玩家UUID
+     * @return 玩家UUID
+     */
+    public UUID getPlayerUuid() {
+        return playerUuid;
+    }
+    
+    /**
+     * 获取玩家名称
+     * @return 玩家名称
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+    
+    /**
+     * 获取SSO ID
+     * @return SSO ID
+     */
+    public String getSsoId() {
+        return ssoId;
+    }
+    
+    /**
+     * 获取访问令牌
+     * @return 访问令牌
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+    
+    /**
+     * 获取刷新令牌
+     * @return 刷新令牌
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    /**
+     * 获取令牌过期时间
+     * @return 令牌过期时间，没有有效期时为null
+     */
+    public Instant getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+    
+    /**
+     * 获取用户数据
+     * @return 用户数据（JSON字符串）
+     */
+    public String getUserData() {
+        return userData;
+    }
+    
+    /**
+     * 获取创建时间
+     * @return 创建时间
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    /**
+     * 获取更新时间
+     * @return 更新时间
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
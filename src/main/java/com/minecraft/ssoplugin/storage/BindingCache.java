@@ -0,0 +1,276 @@
+package com.minecraft.ssoplugin.storage;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 绑定信息缓存类，同时按玩家UUID和SSO ID索引绑定信息
+ * <p>
+ * 缓存按最近访问顺序淘汰超出容量的条目，并在条目超过存活时间后失效。
+ * 所有读写都在同一把锁内完成，保证两个索引始终一致。
+ * <p>
+ * 每次写入都会为涉及的玩家UUID和SSO ID记录写入版本，从数据库读取的绑定信息
+ * 只在同一玩家或SSO ID在读取期间没有写入时才会被缓存，其他玩家的写入不受影响。
+ */
+public class BindingCache {
+    
+    // 记录写入版本的最少键数，超出后从最早的写入开始遗忘
+    private static final int MIN_RECENT_WRITES = 1024;
+    
+    private final int maxSize;
+    private final int maxRecentWrites;
+    private final long ttlMillis;
+    private final LinkedHashMap<UUID, CacheEntry> byUuid;
+    private final Map<String, UUID> bySsoId;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<Object, Long> recentWrites;
+    private long writeVersion;
+    private long forgottenVersion;
+    
+    /**
+     * 构造函数
+     * @param maxSize 最大缓存条目数
+     * @param ttlMillis 条目存活时间（毫秒）
+     */
+    public BindingCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.byUuid = new LinkedHashMap<>(16, 0.75f, true);
+        this.bySsoId = new HashMap<>();
+        this.maxRecentWrites = Math.max(maxSize, MIN_RECENT_WRITES);
+        this.recentWrites = new LinkedHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+    
+    /**
+     * 通过玩家UUID获取缓存的绑定信息
+     * @param playerUuid 玩家UUID
+     * @return 绑定信息，未命中时返回null
+     */
+    public synchronized Binding get(UUID playerUuid) {
+        CacheEntry entry = byUuid.get(playerUuid);
+        if (entry == null || isExpired(entry)) {
+            if (entry != null) {
+                remove(playerUuid);
+            }
+            misses.increment();
+            return null;
+        }
+        
+        hits.increment();
+        return entry.binding;
+    }
+    
+    /**
+     * 通过SSO ID获取缓存的绑定信息
+     * @param ssoId SSO ID
+     * @return 绑定信息，未命中时返回null
+     */
+    public synchronized Binding getBySsoId(String ssoId) {
+        UUID playerUuid = bySsoId.get(ssoId);
+        if (playerUuid == null) {
+            misses.increment();
+            return null;
+        }
+        
+        return get(playerUuid);
+    }
+    
+    /**
+     * 获取当前写入版本，用于在数据库读取结束后判断期间是否有写入发生
+     * @return 写入版本
+     */
+    public synchronized long getWriteVersion() {
+        return writeVersion;
+    }
+    
+    /**
+     * 缓存从数据库读取的绑定信息
+     * <p>
+     * 如果读取期间同一玩家或SSO ID发生过写入，读取到的数据可能已经过期，此时放弃缓存。
+     * @param binding 绑定信息
+     * @param readVersion 读取前的写入版本
+     */
+    public synchronized void putIfUnchanged(Binding binding, long readVersion) {
+        if (isUnchanged(binding.getPlayerUuid(), readVersion) && isUnchanged(binding.getSsoId(), readVersion)) {
+            store(binding);
+        }
+    }
+    
+    /**
+     * 写入绑定信息
+     * @param binding 绑定信息
+     */
+    public synchronized void put(Binding binding) {
+        markWritten(binding.getPlayerUuid());
+        markWritten(binding.getSsoId());
+        store(binding);
+    }
+    
+    /**
+     * 更新已缓存的绑定信息，未缓存时不修改缓存
+     * <p>
+     * 未缓存时仍会记录该玩家的写入版本，使读取期间发生的更新不会被读取到的旧数据覆盖。
+     * @param playerUuid 玩家UUID
+     * @param updater 更新函数，返回更新后的绑定信息
+     */
+    public synchronized void update(UUID playerUuid, UnaryOperator<Binding> updater) {
+        markWritten(playerUuid);
+        CacheEntry entry = byUuid.get(playerUuid);
+        if (entry != null) {
+            store(updater.apply(entry.binding));
+        }
+    }
+    
+    /**
+     * 使玩家的缓存失效
+     * @param playerUuid 玩家UUID
+     */
+    public synchronized void invalidate(UUID playerUuid) {
+        markWritten(playerUuid);
+        remove(playerUuid);
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        forgottenVersion = ++writeVersion;
+        recentWrites.clear();
+        byUuid.clear();
+        bySsoId.clear();
+    }
+    
+    /**
+     * 获取缓存条目数
+     * @return 缓存条目数
+     */
+    public synchronized int size() {
+        return byUuid.size();
+    }
+    
+    /**
+     * 获取命中次数
+     * @return 命中次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * 获取未命中次数
+     * @return 未命中次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    /**
+     * 获取命中率
+     * @return 命中率（0到1之间）
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+    
+    /**
+     * 记录键的写入版本，超过记录上限时遗忘最早的写入
+     * @param key 玩家UUID或SSO ID
+     */
+    private void markWritten(Object key) {
+        long version = ++writeVersion;
+        recentWrites.remove(key);
+        recentWrites.put(key, version);
+        
+        Iterator<Map.Entry<Object, Long>> iterator = recentWrites.entrySet().iterator();
+        while (recentWrites.size() > maxRecentWrites && iterator.hasNext()) {
+            forgottenVersion = iterator.next().getValue();
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * 检查键在读取之后是否没有写入
+     * <p>
+     * 读取早于已遗忘的写入时无法判断，视为已写入。
+     * @param key 玩家UUID或SSO ID
+     * @param readVersion 读取前的写入版本
+     * @return 是否没有写入
+     */
+    private boolean isUnchanged(Object key, long readVersion) {
+        if (readVersion < forgottenVersion) {
+            return false;
+        }
+        Long version = recentWrites.get(key);
+        return version == null || version <= readVersion;
+    }
+    
+    /**
+     * 存储绑定信息并维护SSO ID索引
+     * @param binding 绑定信息
+     */
+    private void store(Binding binding) {
+        UUID playerUuid = binding.getPlayerUuid();
+        String ssoId = binding.getSsoId();
+        
+        // 移除旧的SSO ID索引，并淘汰占用了同一SSO ID的其他玩家
+        remove(playerUuid);
+        UUID previousOwner = bySsoId.get(ssoId);
+        if (previousOwner != null) {
+            remove(previousOwner);
+        }
+        
+        byUuid.put(playerUuid, new CacheEntry(binding, System.currentTimeMillis() + ttlMillis));
+        bySsoId.put(ssoId, playerUuid);
+        
+        // 淘汰最久未访问的条目
+        Iterator<Map.Entry<UUID, CacheEntry>> iterator = byUuid.entrySet().iterator();
+        while (byUuid.size() > maxSize && iterator.hasNext()) {
+            Map.Entry<UUID, CacheEntry> eldest = iterator.next();
+            bySsoId.remove(eldest.getValue().binding.getSsoId(), eldest.getKey());
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * 移除玩家的缓存条目
+     * @param playerUuid 玩家UUID
+     */
+    private void remove(UUID playerUuid) {
+        CacheEntry entry = byUuid.remove(playerUuid);
+        if (entry != null) {
+            bySsoId.remove(entry.binding.getSsoId(), playerUuid);
+        }
+    }
+    
+    /**
+     * 检查条目是否已过期
+     * @param entry 缓存条目
+     * @return 是否已过期
+     */
+    private boolean isExpired(CacheEntry entry) {
+        return System.currentTimeMillis() > entry.expiresAt;
+    }
+    
+    /**
+     * 缓存条目类
+     */
+    private static class CacheEntry {
+        private final Binding binding;
+        private final long expiresAt;
+        
+        public CacheEntry(Binding binding, long expiresAt) {
+            this.binding = binding;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
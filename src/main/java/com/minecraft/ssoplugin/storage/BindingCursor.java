@@ -0,0 +1,50 @@
+package com.minecraft.ssoplugin.storage;
+
+import java.time.Instant;
+
+/**
+ * 绑定列表游标类，记录上一页最后一条绑定的排序键
+ * <p>
+ * 绑定列表按 (created_at, id) 降序排列，下一页从游标之后继续读取，
+ * 通过索引直接定位，任意一页的查询开销都与第一页相同。
+ */
+public class BindingCursor {
+    
+    private final Instant createdAt;
+    private final long id;
+    
+    /**
+     * 构造函数
+     * @param createdAt 创建时间
+     * @param id 记录ID
+     */
+    public BindingCursor(Instant createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+    
+    /**
+     * 创建指向绑定信息之后的游标
+     * @param binding 从数据库读取的绑定信息
+     * @return 游标
+     */
+    public static BindingCursor after(Binding binding) {
+        return new BindingCursor(binding.getCreatedAt(), binding.getId());
+    }
+    
+    /**
+     * 获取创建时间
+     * @return 创建时间
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    /**
+     * 获取记录ID
+     * @return 记录ID
+     */
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,155 @@
+package com.minecraft.ssoplugin.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 绑定信息预取类，将短时间窗口内的并发查询合并为一次批量查询
+ * <p>
+ * 服务器重启后大量玩家同时重连时，每个窗口只需要一次
+ * {@code WHERE player_uuid IN (...)} 查询，而不是每个玩家各查询一次。
+ */
+public class BindingPrefetcher {
+    
+    private final Function<List<UUID>, Map<UUID, Binding>> batchLoader;
+    private final Executor dbExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Map<UUID, CompletableFuture<Binding>> inFlight;
+    private List<UUID> batch;
+    
+    /**
+     * 构造函数
+     * @param batchLoader 批量查询函数，出错时返回null
+     * @param dbExecutor 数据库执行器
+     * @param scheduler 定时执行器
+     * @param windowMillis 合并窗口（毫秒）
+     * @param maxBatchSize 单次批量查询的最大玩家数
+     */
+    public BindingPrefetcher(Function<List<UUID>, Map<UUID, Binding>> batchLoader,
+                             Executor dbExecutor, ScheduledExecutorService scheduler,
+                             long windowMillis, int maxBatchSize) {
+        this.batchLoader = batchLoader;
+        this.dbExecutor = dbExecutor;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.batch = new ArrayList<>();
+    }
+    
+    /**
+     * 请求预取玩家的绑定信息
+     * @param playerUuid 玩家UUID
+     * @return 绑定信息，未绑定时为null
+     */
+    public CompletableFuture<Binding> prefetch(UUID playerUuid) {
+        // 同一玩家的并发请求共享同一次查询
+        CompletableFuture<Binding> future = new CompletableFuture<>();
+        CompletableFuture<Binding> existing = inFlight.putIfAbsent(playerUuid, future);
+        if (existing != null) {
+            return existing;
+        }
+        
+        List<UUID> fullBatch = null;
+        boolean scheduleFlush;
+        synchronized (this) {
+            batch.add(playerUuid);
+            scheduleFlush = batch.size() == 1;
+            if (batch.size() >= maxBatchSize) {
+                fullBatch = takeBatch();
+            }
+        }
+        
+        if (fullBatch != null) {
+            submit(fullBatch);
+        } else if (scheduleFlush) {
+            try {
+                scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+        
+        return future;
+    }
+    
+    /**
+     * 立即提交当前窗口内的所有请求
+     */
+    public void flush() {
+        List<UUID> pending;
+        synchronized (this) {
+            pending = takeBatch();
+        }
+        
+        if (!pending.isEmpty()) {
+            submit(pending);
+        }
+    }
+    
+    /**
+     * 取出当前批次
+     * @return 当前批次
+     */
+    private List<UUID> takeBatch() {
+        List<UUID> pending = batch;
+        batch = new ArrayList<>();
+        return pending;
+    }
+    
+    /**
+     * 在数据库执行器上执行批量查询并完成所有等待者
+     * @param playerUuids 玩家UUID列表
+     */
+    private void submit(List<UUID> playerUuids) {
+        try {
+            dbExecutor.execute(() -> {
+                Map<UUID, Binding> bindings = null;
+                try {
+                    bindings = batchLoader.apply(playerUuids);
+                } finally {
+                    complete(playerUuids, bindings);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            for (UUID playerUuid : playerUuids) {
+                CompletableFuture<Binding> future = inFlight.remove(playerUuid);
+                if (future != null) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 完成批次中所有玩家的等待者
+     * @param playerUuids 玩家UUID列表
+     * @param bindings 查询结果，出错时为null
+     */
+    private void complete(List<UUID> playerUuids, Map<UUID, Binding> bindings) {
+        for (UUID playerUuid : playerUuids) {
+            CompletableFuture<Binding> future = inFlight.remove(playerUuid);
+            if (future == null) {
+                continue;
+            }
+            
+            if (bindings == null) {
+                future.completeExceptionally(new IllegalStateException("批量查询绑定信息失败"));
+                continue;
+            }
+            
+            future.complete(bindings.get(playerUuid));
+        }
+    }
+}
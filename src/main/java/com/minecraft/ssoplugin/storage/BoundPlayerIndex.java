@@ -0,0 +1,212 @@
+package com.minecraft.ssoplugin.storage;
+
+import java.util.UUID;
+
+/**
+ * 已绑定玩家UUID索引类
+ * <p>
+ * 使用线性探测的开放寻址哈希表保存所有已绑定玩家的UUID，每个UUID只占用两个long，
+ * 不创建任何装箱对象。数十万条绑定也只需要数MB内存，并且可以在不访问数据库的情况下
+ * 同时回答"已绑定"和"未绑定"。
+ */
+public class BoundPlayerIndex {
+    
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+    private static final int MIN_CAPACITY = 16;
+    
+    // 每个槽位占用两个long：高64位和低64位，全零表示空槽位
+    private long[] slots;
+    private int capacity;
+    private int size;
+    // 全零UUID无法放入槽位，单独记录
+    private boolean containsNil;
+    
+    /**
+     * 构造函数
+     * @param expectedSize 预计的UUID数量
+     */
+    public BoundPlayerIndex(int expectedSize) {
+        this.capacity = Math.max(MIN_CAPACITY, (int) Math.ceil(expectedSize / MAX_LOAD_FACTOR));
+        this.slots = new long[capacity * 2];
+    }
+    
+    /**
+     * 检查UUID是否存在
+     * @param uuid 玩家UUID
+     * @return 是否存在
+     */
+    public synchronized boolean contains(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            return containsNil;
+        }
+        
+        return findSlot(msb, lsb) >= 0;
+    }
+    
+    /**
+     * 添加UUID
+     * @param uuid 玩家UUID
+     * @return 是否为新添加的UUID
+     */
+    public synchronized boolean add(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            boolean added = !containsNil;
+            containsNil = true;
+            return added;
+        }
+        
+        if (findSlot(msb, lsb) >= 0) {
+            return false;
+        }
+        
+        if (size + 1 > capacity * MAX_LOAD_FACTOR) {
+            resize(capacity + (capacity >> 1));
+        }
+        
+        insert(msb, lsb);
+        size++;
+        return true;
+    }
+    
+    /**
+     * 移除UUID
+     * @param uuid 玩家UUID
+     * @return 是否移除成功
+     */
+    public synchronized boolean remove(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            boolean removed = containsNil;
+            containsNil = false;
+            return removed;
+        }
+        
+        int slot = findSlot(msb, lsb);
+        if (slot < 0) {
+            return false;
+        }
+        
+        // 后移删除：把后续探测链上的条目向前移动填补空位，不需要墓碑标记
+        int hole = slot;
+        int next = nextSlot(hole);
+        while (!isEmpty(next)) {
+            int home = homeSlot(slots[next * 2], slots[next * 2 + 1]);
+            boolean movable = hole <= next
+                    ? (home <= hole || home > next)
+                    : (home <= hole && home > next);
+            if (movable) {
+                slots[hole * 2] = slots[next * 2];
+                slots[hole * 2 + 1] = slots[next * 2 + 1];
+                hole = next;
+            }
+            next = nextSlot(next);
+        }
+        slots[hole * 2] = 0;
+        slots[hole * 2 + 1] = 0;
+        size--;
+        return true;
+    }
+    
+    /**
+     * 获取UUID数量
+     * @return UUID数量
+     */
+    public synchronized int size() {
+        return containsNil ? size + 1 : size;
+    }
+    
+    /**
+     * 获取索引占用的内存（字节）
+     * @return 占用的内存
+     */
+    public synchronized long getMemoryUsage() {
+        return (long) slots.length * Long.BYTES;
+    }
+    
+    /**
+     * 查找UUID所在的槽位
+     * @param msb 高64位
+     * @param lsb 低64位
+     * @return 槽位，不存在时返回-1
+     */
+    private int findSlot(long msb, long lsb) {
+        int slot = homeSlot(msb, lsb);
+        while (!isEmpty(slot)) {
+            if (slots[slot * 2] == msb && slots[slot * 2 + 1] == lsb) {
+                return slot;
+            }
+            slot = nextSlot(slot);
+        }
+        return -1;
+    }
+    
+    /**
+     * 将UUID插入第一个空槽位
+     * @param msb 高64位
+     * @param lsb 低64位
+     */
+    private void insert(long msb, long lsb) {
+        int slot = homeSlot(msb, lsb);
+        while (!isEmpty(slot)) {
+            slot = nextSlot(slot);
+        }
+        slots[slot * 2] = msb;
+        slots[slot * 2 + 1] = lsb;
+    }
+    
+    /**
+     * 扩容并重新插入所有UUID
+     * @param newCapacity 新容量
+     */
+    private void resize(int newCapacity) {
+        long[] oldSlots = slots;
+        capacity = newCapacity;
+        slots = new long[newCapacity * 2];
+        
+        for (int i = 0; i < oldSlots.length; i += 2) {
+            if (oldSlots[i] != 0 || oldSlots[i + 1] != 0) {
+                insert(oldSlots[i], oldSlots[i + 1]);
+            }
+        }
+    }
+    
+    /**
+     * 计算UUID的初始槽位
+     * @param msb 高64位
+     * @param lsb 低64位
+     * @return 初始槽位
+     */
+    private int homeSlot(long msb, long lsb) {
+        // 64位混合函数，然后将高32位按比例映射到 [0, capacity)，容量不必是2的幂
+        long hash = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return (int) (((hash >>> 32) * capacity) >>> 32);
+    }
+    
+    /**
+     * 获取下一个探测槽位
+     * @param slot 当前槽位
+     * @return 下一个槽位
+     */
+    private int nextSlot(int slot) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+    
+    /**
+     * 检查槽位是否为空
+     * @param slot 槽位
+     * @return 是否为空
+     */
+    private boolean isEmpty(int slot) {
+        return slots[slot * 2] == 0 && slots[slot * 2 + 1] == 0;
+    }
+}
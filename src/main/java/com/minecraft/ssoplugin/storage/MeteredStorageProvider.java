@@ -0,0 +1,299 @@
+package com.minecraft.ssoplugin.storage;
+
+import com.minecraft.ssoplugin.utils.LatencyHistogram;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 带统计的存储提供者，记录被包装的存储提供者每种操作的次数和耗时
+ * <p>
+ * 每种操作对应一个 {@link LatencyHistogram}，在构造时创建，记录时不加锁也不分配对象。
+ */
+public class MeteredStorageProvider implements StorageProvider {
+    
+    private final StorageProvider delegate;
+    private final Map<String, LatencyHistogram> latencies;
+    
+    private final LatencyHistogram saveBinding;
+    private final LatencyHistogram bindIfAbsent;
+    private final LatencyHistogram getBinding;
+    private final LatencyHistogram getBindings;
+    private final LatencyHistogram getBindingBySsoId;
+    private final LatencyHistogram deleteBinding;
+    private final LatencyHistogram getBindingsAfter;
+    private final LatencyHistogram forEachBinding;
+    private final LatencyHistogram countBindings;
+    private final LatencyHistogram forEachPlayerUuid;
+    private final LatencyHistogram isPlayerBound;
+    private final LatencyHistogram isSSoIdBound;
+    private final LatencyHistogram updateToken;
+    private final LatencyHistogram updatePlayerName;
+    private final LatencyHistogram batchUpdatePlayerNames;
+    private final LatencyHistogram batchUpdateTokens;
+    private final LatencyHistogram getRefreshFailures;
+    private final LatencyHistogram recordRefreshFailure;
+    private final LatencyHistogram clearRefreshFailure;
+    
+    /**
+     * 构造函数
+     * @param delegate 被包装的存储提供者
+     */
+    public MeteredStorageProvider(StorageProvider delegate) {
+        this.delegate = delegate;
+        this.latencies = new LinkedHashMap<>();
+        this.saveBinding = histogram("save_binding");
+        this.bindIfAbsent = histogram("bind_if_absent");
+        this.getBinding = histogram("get_binding");
+        this.getBindings = histogram("get_bindings");
+        this.getBindingBySsoId = histogram("get_binding_by_sso_id");
+        this.deleteBinding = histogram("delete_binding");
+        this.getBindingsAfter = histogram("get_bindings_after");
+        this.forEachBinding = histogram("for_each_binding");
+        this.countBindings = histogram("count_bindings");
+        this.forEachPlayerUuid = histogram("for_each_player_uuid");
+        this.isPlayerBound = histogram("is_player_bound");
+        this.isSSoIdBound = histogram("is_sso_id_bound");
+        this.updateToken = histogram("update_token");
+        this.updatePlayerName = histogram("update_player_name");
+        this.batchUpdatePlayerNames = histogram("batch_update_player_names");
+        this.batchUpdateTokens = histogram("batch_update_tokens");
+        this.getRefreshFailures = histogram("get_refresh_failures");
+        this.recordRefreshFailure = histogram("record_refresh_failure");
+        this.clearRefreshFailure = histogram("clear_refresh_failure");
+    }
+    
+    /**
+     * 创建并登记一种操作的耗时直方图
+     * @param operation 操作名称
+     * @return 耗时直方图
+     */
+    private LatencyHistogram histogram(String operation) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        latencies.put(operation, histogram);
+        return histogram;
+    }
+    
+    /**
+     * 获取被包装的存储提供者
+     * @return 存储提供者
+     */
+    public StorageProvider getDelegate() {
+        return delegate;
+    }
+    
+    /**
+     * 获取每种操作的耗时直方图
+     * @return 操作名称到耗时直方图的映射
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+    
+    @Override
+    public boolean initialize() {
+        return delegate.initialize();
+    }
+    
+    @Override
+    public void close() {
+        delegate.close();
+    }
+    
+    @Override
+    public boolean saveBinding(UUID playerUuid, String playerName, String ssoId,
+                               String accessToken, String refreshToken, long expiresIn, String userData) {
+        long start = System.nanoTime();
+        try {
+            return delegate.saveBinding(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        } finally {
+            saveBinding.recordSince(start);
+        }
+    }
+    
+    @Override
+    public BindResult bindIfAbsent(UUID playerUuid, String playerName, String ssoId,
+                                   String accessToken, String refreshToken, long expiresIn, String userData) {
+        long start = System.nanoTime();
+        try {
+            return delegate.bindIfAbsent(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        } finally {
+            bindIfAbsent.recordSince(start);
+        }
+    }
+    
+    @Override
+    public Binding getBinding(UUID playerUuid) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getBinding(playerUuid);
+        } finally {
+            getBinding.recordSince(start);
+        }
+    }
+    
+    @Override
+    public Map<UUID, Binding> getBindings(Collection<UUID> playerUuids) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getBindings(playerUuids);
+        } finally {
+            getBindings.recordSince(start);
+        }
+    }
+    
+    @Override
+    public Binding getBindingBySsoId(String ssoId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getBindingBySsoId(ssoId);
+        } finally {
+            getBindingBySsoId.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean deleteBinding(UUID playerUuid) {
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteBinding(playerUuid);
+        } finally {
+            deleteBinding.recordSince(start);
+        }
+    }
+    
+    @Override
+    public List<Binding> getBindingsAfter(BindingCursor after, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getBindingsAfter(after, limit);
+        } finally {
+            getBindingsAfter.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean forEachBinding(Consumer<Binding> consumer) {
+        long start = System.nanoTime();
+        try {
+            return delegate.forEachBinding(consumer);
+        } finally {
+            forEachBinding.recordSince(start);
+        }
+    }
+    
+    @Override
+    public int countBindings() {
+        long start = System.nanoTime();
+        try {
+            return delegate.countBindings();
+        } finally {
+            countBindings.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean forEachPlayerUuid(Consumer<UUID> consumer) {
+        long start = System.nanoTime();
+        try {
+            return delegate.forEachPlayerUuid(consumer);
+        } finally {
+            forEachPlayerUuid.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean isPlayerBound(UUID playerUuid) {
+        long start = System.nanoTime();
+        try {
+            return delegate.isPlayerBound(playerUuid);
+        } finally {
+            isPlayerBound.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean isSSoIdBound(String ssoId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.isSSoIdBound(ssoId);
+        } finally {
+            isSSoIdBound.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean updateToken(UUID playerUuid, String accessToken, String refreshToken, long expiresIn) {
+        long start = System.nanoTime();
+        try {
+            return delegate.updateToken(playerUuid, accessToken, refreshToken, expiresIn);
+        } finally {
+            updateToken.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean updatePlayerName(UUID playerUuid, String playerName) {
+        long start = System.nanoTime();
+        try {
+            return delegate.updatePlayerName(playerUuid, playerName);
+        } finally {
+            updatePlayerName.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean batchUpdatePlayerNames(Map<UUID, String> playerNames) {
+        long start = System.nanoTime();
+        try {
+            return delegate.batchUpdatePlayerNames(playerNames);
+        } finally {
+            batchUpdatePlayerNames.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean batchUpdateTokens(Map<UUID, TokenUpdate> tokens) {
+        long start = System.nanoTime();
+        try {
+            return delegate.batchUpdateTokens(tokens);
+        } finally {
+            batchUpdateTokens.recordSince(start);
+        }
+    }
+    
+    @Override
+    public Map<UUID, Integer> getRefreshFailures() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRefreshFailures();
+        } finally {
+            getRefreshFailures.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean recordRefreshFailure(UUID playerUuid, String error) {
+        long start = System.nanoTime();
+        try {
+            return delegate.recordRefreshFailure(playerUuid, error);
+        } finally {
+            recordRefreshFailure.recordSince(start);
+        }
+    }
+    
+    @Override
+    public boolean clearRefreshFailure(UUID playerUuid) {
+        long start = System.nanoTime();
+        try {
+            return delegate.clearRefreshFailure(playerUuid);
+        } finally {
+            clearRefreshFailure.recordSince(start);
+        }
+    }
+}
@@ -3,19 +3,45 @@ package com.minecraft.ssoplugin.storage;
 import com.minecraft.ssoplugin.SSOPlugin;
 import com.minecraft.ssoplugin.storage.providers.MySQLProvider;
 import com.minecraft.ssoplugin.storage.providers.SQLiteProvider;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
  * 存储管理器类，负责管理数据存储
+ * <p>
+ * 同步方法会直接阻塞调用线程执行JDBC操作，不应在服务器主线程上调用；
+ * 主线程代码应使用对应的 *Async 方法，并通过 {@link #getMainThreadExecutor()} 回到主线程处理结果。
  */
 public class StorageManager {
     
     private final SSOPlugin plugin;
+    private final Executor mainThreadExecutor;
     private StorageProvider provider;
+    private MeteredStorageProvider meteredProvider;
+    private ThreadPoolExecutor dbExecutor;
+    private BindingCache cache;
+    private BoundPlayerIndex boundIndex;
+    private ScheduledExecutorService scheduler;
+    private BindingPrefetcher prefetcher;
+    private WriteBehindQueue writeBehind;
     
     /**
      * 构造函数
@@ -23,6 +49,12 @@ public class StorageManager {
      */
     public StorageManager(SSOPlugin plugin) {
         this.plugin = plugin;
+        this.mainThreadExecutor = task -> {
+            // 插件已禁用时调度器会拒绝任务，此时直接丢弃回调
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, task);
+            }
+        };
     }
     
     /**
@@ -32,12 +64,13 @@ public class StorageManager {
     public boolean initialize() {
         String databaseType = plugin.getConfigManager().getDatabaseType();
         
-        // 根据配置选择存储提供者
+        // 根据配置选择存储提供者，外层统计每种操作的耗时
         if (databaseType.equalsIgnoreCase("mysql")) {
-            provider = new MySQLProvider(plugin);
+            meteredProvider = new MeteredStorageProvider(new MySQLProvider(plugin));
         } else {
-            provider = new SQLiteProvider(plugin);
+            meteredProvider = new MeteredStorageProvider(new SQLiteProvider(plugin));
         }
+        provider = meteredProvider;
         
         // 初始化存储提供者
         boolean success = provider.initialize();
@@ -46,6 +79,34 @@ public class StorageManager {
             return false;
         }
         
+        // 加载已绑定玩家UUID索引
+        if (plugin.getConfigManager().isUuidIndexEnabled()) {
+            boundIndex = loadBoundPlayerIndex();
+        }
+        
+        // 创建绑定信息缓存
+        cache = new BindingCache(plugin.getConfigManager().getCacheMaxSize(),
+                plugin.getConfigManager().getCacheTtl() * 1000L);
+        
+        // 创建有界的数据库执行器，避免JDBC操作占用服务器主线程
+        dbExecutor = createExecutor(plugin.getConfigManager().getDatabaseExecutorThreads(),
+                plugin.getConfigManager().getDatabaseExecutorQueueSize());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SSOPlugin-DB-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // 创建登录预取器，合并短时间内的并发查询
+        prefetcher = new BindingPrefetcher(this::loadBindings, dbExecutor, scheduler,
+                plugin.getConfigManager().getPrefetchWindow(), plugin.getConfigManager().getPrefetchMaxBatch());
+        
+        // 创建延迟写入队列，定时批量写入玩家名称和令牌更新
+        writeBehind = new WriteBehindQueue(plugin, provider, dbExecutor,
+                plugin.getConfigManager().getWriteBehindBatchSize());
+        long flushInterval = plugin.getConfigManager().getWriteBehindInterval();
+        scheduler.scheduleWithFixedDelay(writeBehind::flushAsync, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        
         return true;
     }
     
@@ -53,11 +114,190 @@ public class StorageManager {
      * 关闭存储管理器
      */
     public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        
+        if (dbExecutor != null) {
+            // 等待已提交的数据库操作完成
+            dbExecutor.shutdown();
+            try {
+                if (!dbExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    plugin.log(Level.WARNING, "等待数据库操作完成超时，剩余操作将被丢弃");
+                    dbExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                dbExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        // 写入所有尚未写入的延迟更新
+        if (writeBehind != null) {
+            writeBehind.drain();
+        }
+        
         if (provider != null) {
             provider.close();
         }
     }
     
+    /**
+     * 从数据库加载所有已绑定玩家的UUID
+     * @return 已绑定玩家UUID索引，加载失败时返回null
+     */
+    private BoundPlayerIndex loadBoundPlayerIndex() {
+        long start = System.currentTimeMillis();
+        
+        BoundPlayerIndex index = new BoundPlayerIndex(Math.max(0, provider.countBindings()));
+        if (!provider.forEachPlayerUuid(index::add)) {
+            plugin.log(Level.WARNING, "加载已绑定玩家UUID索引失败，将直接查询数据库");
+            return null;
+        }
+        
+        plugin.log(Level.INFO, "已加载 " + index.size() + " 个已绑定玩家UUID，耗时 "
+                + (System.currentTimeMillis() - start) + " 毫秒，占用内存 " + (index.getMemoryUsage() / 1024) + " KB");
+        return index;
+    }
+    
+    /**
+     * 获取已绑定玩家UUID索引
+     * @return 已绑定玩家UUID索引，未启用时返回null
+     */
+    public BoundPlayerIndex getBoundIndex() {
+        return boundIndex;
+    }
+    
+    /**
+     * 获取延迟写入队列
+     * @return 延迟写入队列
+     */
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehind;
+    }
+    
+    /**
+     * 获取带统计的存储提供者
+     * @return 带统计的存储提供者
+     */
+    public MeteredStorageProvider getMeteredProvider() {
+        return meteredProvider;
+    }
+    
+    /**
+     * 获取MySQL连接池的运行状态
+     * @return 连接池状态，未使用MySQL时返回null
+     */
+    public HikariPoolMXBean getConnectionPoolStats() {
+        StorageProvider backend = meteredProvider != null ? meteredProvider.getDelegate() : null;
+        return backend instanceof MySQLProvider ? ((MySQLProvider) backend).getPoolStats() : null;
+    }
+    
+    /**
+     * 获取绑定信息缓存
+     * @return 绑定信息缓存
+     */
+    public BindingCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * 获取已缓存的绑定信息，不会访问数据库，可以在主线程上调用
+     * @param playerUuid 玩家UUID
+     * @return 绑定信息，未缓存时返回null
+     */
+    public Binding getCachedBinding(UUID playerUuid) {
+        return cache.get(playerUuid);
+    }
+    
+    /**
+     * 预取玩家的绑定信息到缓存，通常在玩家登录前调用
+     * <p>
+     * 未绑定或已缓存的玩家不会访问数据库；其他玩家的查询会与同一时间窗口内的
+     * 其他登录合并为一次批量查询。
+     * @param playerUuid 玩家UUID
+     * @return 绑定信息，未绑定时为null
+     */
+    public CompletableFuture<Binding> prefetchBinding(UUID playerUuid) {
+        if (boundIndex != null && !boundIndex.contains(playerUuid)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        Binding cached = cache.get(playerUuid);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        return prefetcher.prefetch(playerUuid);
+    }
+    
+    /**
+     * 批量加载绑定信息并写入缓存
+     * @param playerUuids 玩家UUID列表
+     * @return 玩家UUID到绑定信息的映射，出错时返回null
+     */
+    private Map<UUID, Binding> loadBindings(List<UUID> playerUuids) {
+        long version = cache.getWriteVersion();
+        Map<UUID, Binding> bindings = writeBehind.read(() -> writeBehind.overlay(provider.getBindings(playerUuids)));
+        if (bindings != null) {
+            for (Binding binding : bindings.values()) {
+                cache.putIfUnchanged(binding, version);
+            }
+        }
+        return bindings;
+    }
+    
+    /**
+     * 使玩家的缓存绑定信息失效，通常在玩家退出时调用
+     * @param playerUuid 玩家UUID
+     */
+    public void evictCachedBinding(UUID playerUuid) {
+        cache.invalidate(playerUuid);
+    }
+    
+    /**
+     * 获取主线程执行器，提交到该执行器的任务会通过Bukkit调度器在服务器主线程上执行
+     * @return 主线程执行器
+     */
+    public Executor getMainThreadExecutor() {
+        return mainThreadExecutor;
+    }
+    
+    /**
+     * 创建数据库执行器
+     * @param threads 线程数
+     * @param queueSize 队列长度
+     * @return 数据库执行器
+     */
+    private ThreadPoolExecutor createExecutor(int threads, int queueSize) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "SSOPlugin-DB-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * 在数据库执行器上异步执行操作
+     * @param task 操作
+     * @param <T> 结果类型
+     * @return 操作结果
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, dbExecutor);
+        } catch (RejectedExecutionException e) {
+            // 队列已满或执行器已关闭，绝不退回到调用线程执行
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+    
     /**
      * 保存绑定信息
      * @param playerUuid 玩家UUID
@@ -71,7 +311,68 @@ public class StorageManager {
      */
     public boolean saveBinding(UUID playerUuid, String playerName, String ssoId, 
                               String accessToken, String refreshToken, long expiresIn, String userData) {
-        return provider.saveBinding(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        // SQLite的INSERT OR REPLACE会删除占用同一SSO ID的其他玩家记录，需要同步从索引中移除
+        Binding previous = boundIndex != null ? getBindingBySsoId(ssoId) : null;
+        
+        // 尚未写入的旧令牌不能覆盖新的绑定
+        writeBehind.discard(playerUuid);
+        
+        boolean success = provider.saveBinding(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        if (success && boundIndex != null) {
+            if (previous != null && !playerUuid.equals(previous.getPlayerUuid())) {
+                boundIndex.remove(previous.getPlayerUuid());
+            }
+            boundIndex.add(playerUuid);
+        }
+        
+        if (success) {
+            cacheSavedBinding(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        } else {
+            cache.invalidate(playerUuid);
+        }
+        return success;
+    }
+    
+    /**
+     * 在玩家和SSO ID都未绑定时保存绑定信息
+     * <p>
+     * 冲突检查和写入在一次数据库操作中原子完成，不会覆盖任何已有的绑定，
+     * 多个服务器同时绑定同一个SSO账号时只有一个会成功。
+     * @param playerUuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param ssoId SSO ID
+     * @param accessToken 访问令牌
+     * @param refreshToken 刷新令牌
+     * @param expiresIn 过期时间（秒）
+     * @param userData 用户数据（JSON字符串）
+     * @return 绑定结果
+     */
+    public BindResult bindIfAbsent(UUID playerUuid, String playerName, String ssoId,
+                                   String accessToken, String refreshToken, long expiresIn, String userData) {
+        BindResult result = provider.bindIfAbsent(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        if (result == BindResult.BOUND) {
+            cacheSavedBinding(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData);
+        }
+        
+        // 绑定可能由共享同一数据库的其他服务器写入
+        if ((result == BindResult.BOUND || result == BindResult.PLAYER_ALREADY_BOUND) && boundIndex != null) {
+            boundIndex.add(playerUuid);
+        }
+        return result;
+    }
+    
+    /**
+     * 写穿缓存，保留已缓存的记录ID和创建时间
+     */
+    private void cacheSavedBinding(UUID playerUuid, String playerName, String ssoId,
+                                   String accessToken, String refreshToken, long expiresIn, String userData) {
+        Binding cached = cache.get(playerUuid);
+        Instant now = Instant.now();
+        Timestamp expiresAt = toExpiresAt(expiresIn);
+        
+        cache.put(new Binding(cached != null ? cached.getId() : 0, playerUuid, playerName, ssoId,
+                accessToken, refreshToken, expiresAt != null ? expiresAt.toInstant() : null, userData,
+                cached != null ? cached.getCreatedAt() : now, now));
     }
     
     /**
@@ -79,8 +380,24 @@ public class StorageManager {
      * @param playerUuid 玩家UUID
      * @return 绑定信息，如果不存在则返回null
      */
-    public Map<String, Object> getBinding(UUID playerUuid) {
-        return provider.getBinding(playerUuid);
+    public Binding getBinding(UUID playerUuid) {
+        // 索引中不存在的玩家一定未绑定
+        if (boundIndex != null && !boundIndex.contains(playerUuid)) {
+            return null;
+        }
+        
+        Binding binding = cache.get(playerUuid);
+        if (binding != null) {
+            return binding;
+        }
+        
+        // 数据库中的记录可能还没有写入延迟更新，用队列中的更新覆盖
+        long version = cache.getWriteVersion();
+        binding = writeBehind.read(() -> writeBehind.overlay(provider.getBinding(playerUuid)));
+        if (binding != null) {
+            cache.putIfUnchanged(binding, version);
+        }
+        return binding;
     }
     
     /**
@@ -88,8 +405,18 @@ public class StorageManager {
      * @param ssoId SSO ID
      * @return 绑定信息，如果不存在则返回null
      */
-    public Map<String, Object> getBindingBySsoId(String ssoId) {
-        return provider.getBindingBySsoId(ssoId);
+    public Binding getBindingBySsoId(String ssoId) {
+        Binding binding = cache.getBySsoId(ssoId);
+        if (binding != null) {
+            return binding;
+        }
+        
+        long version = cache.getWriteVersion();
+        binding = writeBehind.read(() -> writeBehind.overlay(provider.getBindingBySsoId(ssoId)));
+        if (binding != null) {
+            cache.putIfUnchanged(binding, version);
+        }
+        return binding;
     }
     
     /**
@@ -98,26 +425,77 @@ public class StorageManager {
      * @return 是否删除成功
      */
     public boolean deleteBinding(UUID playerUuid) {
-        return provider.deleteBinding(playerUuid);
+        writeBehind.discard(playerUuid);
+        boolean success = provider.deleteBinding(playerUuid);
+        if (success && boundIndex != null) {
+            boundIndex.remove(playerUuid);
+        }
+        cache.invalidate(playerUuid);
+        return success;
+    }
+    
+    /**
+     * 获取所有玩家连续刷新令牌失败的次数
+     * @return 玩家UUID到连续失败次数的映射，读取失败时返回null
+     */
+    public Map<UUID, Integer> getRefreshFailures() {
+        return provider.getRefreshFailures();
+    }
+    
+    /**
+     * 记录一次令牌刷新失败
+     * @param playerUuid 玩家UUID
+     * @param error 失败原因
+     * @return 是否记录成功
+     */
+    public boolean recordRefreshFailure(UUID playerUuid, String error) {
+        return provider.recordRefreshFailure(playerUuid, error);
+    }
+    
+    /**
+     * 清除玩家的令牌刷新失败记录
+     * @param playerUuid 玩家UUID
+     * @return 是否清除成功
+     */
+    public boolean clearRefreshFailure(UUID playerUuid) {
+        return provider.clearRefreshFailure(playerUuid);
     }
     
     /**
-     * 获取所有绑定信息
-     * @param page 页码（从1开始）
-     * @param pageSize 每页大小
+     * 按创建时间从新到旧获取一页绑定信息
+     * @param after 上一页的游标，获取第一页时为null
+     * @param limit 最多返回的条数
      * @return 绑定信息列表
      */
-    public List<Map<String, Object>> getAllBindings(int page, int pageSize) {
-        return provider.getAllBindings(page, pageSize);
+    public List<Binding> getBindingsAfter(BindingCursor after, int limit) {
+        return provider.getBindingsAfter(after, limit);
+    }
+    
+    /**
+     * 流式遍历所有绑定信息，适用于导出和维护任务
+     * <p>
+     * 直接读取数据库，不经过也不填充缓存。
+     * @param consumer 绑定信息处理函数，在调用线程上执行
+     * @return 是否遍历成功
+     */
+    public boolean forEachBinding(Consumer<Binding> consumer) {
+        return provider.forEachBinding(consumer);
     }
     
     /**
      * 检查玩家是否已绑定
+     * <p>
+     * 启用UUID索引时直接由索引回答；否则加载完整绑定信息进行判断，
+     * 使随后的 {@link #getBinding(UUID)} 能直接命中缓存。
      * @param playerUuid 玩家UUID
      * @return 是否已绑定
      */
     public boolean isPlayerBound(UUID playerUuid) {
-        return provider.isPlayerBound(playerUuid);
+        if (boundIndex != null) {
+            return boundIndex.contains(playerUuid);
+        }
+        
+        return getBinding(playerUuid) != null;
     }
     
     /**
@@ -126,28 +504,193 @@ public class StorageManager {
      * @return 是否已绑定
      */
     public boolean isSSoIdBound(String ssoId) {
-        return provider.isSSoIdBound(ssoId);
+        return getBindingBySsoId(ssoId) != null;
     }
     
     /**
      * 更新访问令牌
+     * <p>
+     * 更新会立即写入缓存，并通过延迟写入队列合并后批量写入数据库；
+     * 令牌未变化时不会产生任何写入。更新只作用于SSO ID相同的绑定，
+     * 玩家在刷新期间解除绑定并重新绑定其他账号时，新绑定的令牌保持不变。
      * @param playerUuid 玩家UUID
+     * @param ssoId 令牌所属绑定的SSO ID
      * @param accessToken 新的访问令牌
      * @param refreshToken 新的刷新令牌
      * @param expiresIn 过期时间（秒）
-     * @return 是否更新成功
+     * @return 是否接受更新，玩家未绑定或当前绑定的SSO ID不同时返回false
      */
-    public boolean updateToken(UUID playerUuid, String accessToken, String refreshToken, long expiresIn) {
-        return provider.updateToken(playerUuid, accessToken, refreshToken, expiresIn);
+    public boolean updateToken(UUID playerUuid, String ssoId, String accessToken, String refreshToken, long expiresIn) {
+        if (boundIndex != null && !boundIndex.contains(playerUuid)) {
+            return false;
+        }
+        
+        Timestamp expiresAt = toExpiresAt(expiresIn);
+        Binding cached = cache.get(playerUuid);
+        if (cached != null && !ssoId.equals(cached.getSsoId())) {
+            return false;
+        }
+        if (cached != null && Objects.equals(accessToken, cached.getAccessToken())
+                && Objects.equals(refreshToken, cached.getRefreshToken())) {
+            return true;
+        }
+        
+        // 先加入队列再更新缓存，与之并发的数据库读取要么能覆盖到这次更新，要么不会被缓存
+        TokenUpdate token = new TokenUpdate(ssoId, accessToken, refreshToken, expiresAt);
+        writeBehind.enqueueToken(playerUuid, token);
+        cache.update(playerUuid, binding -> binding.withToken(token, Instant.now()));
+        return true;
     }
     
     /**
      * 更新玩家名称
+     * <p>
+     * 更新会立即写入缓存，并通过延迟写入队列合并后批量写入数据库；
+     * 名称未变化时不会产生任何写入。只更新缓存中已有绑定信息（通常由登录预取加载）的玩家，
+     * 缓存中没有时无法确定玩家是否已绑定，为未绑定的玩家排队只会产生不匹配任何行的UPDATE。
      * @param playerUuid 玩家UUID
      * @param playerName 新的玩家名称
-     * @return 是否更新成功
+     * @return 是否接受更新，缓存中没有该玩家的绑定信息时返回false
      */
     public boolean updatePlayerName(UUID playerUuid, String playerName) {
-        return provider.updatePlayerName(playerUuid, playerName);
+        if (boundIndex != null && !boundIndex.contains(playerUuid)) {
+            return false;
+        }
+        
+        Binding cached = cache.get(playerUuid);
+        if (cached == null) {
+            return false;
+        }
+        if (playerName.equals(cached.getPlayerName())) {
+            return true;
+        }
+        
+        writeBehind.enqueuePlayerName(playerUuid, playerName);
+        cache.update(playerUuid, binding -> binding.withPlayerName(playerName, Instant.now()));
+        return true;
+    }
+    
+    /**
+     * 根据有效期计算令牌过期时间
+     * @param expiresIn 过期时间（秒）
+     * @return 令牌过期时间，没有有效期时返回null
+     */
+    private Timestamp toExpiresAt(long expiresIn) {
+        return expiresIn > 0 ? new Timestamp(System.currentTimeMillis() + (expiresIn * 1000)) : null;
+    }
+    
+    /**
+     * 异步保存绑定信息
+     * @see #saveBinding(UUID, String, String, String, String, long, String)
+     */
+    public CompletableFuture<Boolean> saveBindingAsync(UUID playerUuid, String playerName, String ssoId,
+                                                      String accessToken, String refreshToken, long expiresIn, String userData) {
+        return supplyAsync(() -> saveBinding(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData));
+    }
+    
+    /**
+     * 异步在玩家和SSO ID都未绑定时保存绑定信息
+     * @see #bindIfAbsent(UUID, String, String, String, String, long, String)
+     */
+    public CompletableFuture<BindResult> bindIfAbsentAsync(UUID playerUuid, String playerName, String ssoId,
+                                                          String accessToken, String refreshToken, long expiresIn, String userData) {
+        return supplyAsync(() -> bindIfAbsent(playerUuid, playerName, ssoId, accessToken, refreshToken, expiresIn, userData));
+    }
+    
+    /**
+     * 异步获取玩家绑定信息
+     * @see #getBinding(UUID)
+     */
+    public CompletableFuture<Binding> getBindingAsync(UUID playerUuid) {
+        return supplyAsync(() -> getBinding(playerUuid));
+    }
+    
+    /**
+     * 异步获取SSO ID绑定信息
+     * @see #getBindingBySsoId(String)
+     */
+    public CompletableFuture<Binding> getBindingBySsoIdAsync(String ssoId) {
+        return supplyAsync(() -> getBindingBySsoId(ssoId));
+    }
+    
+    /**
+     * 异步删除绑定信息
+     * @see #deleteBinding(UUID)
+     */
+    public CompletableFuture<Boolean> deleteBindingAsync(UUID playerUuid) {
+        return supplyAsync(() -> deleteBinding(playerUuid));
+    }
+    
+    /**
+     * 异步获取一页绑定信息
+     * @see #getBindingsAfter(BindingCursor, int)
+     */
+    public CompletableFuture<List<Binding>> getBindingsAfterAsync(BindingCursor after, int limit) {
+        return supplyAsync(() -> getBindingsAfter(after, limit));
+    }
+    
+    /**
+     * 在数据库线程上异步遍历所有绑定信息
+     * @see #forEachBinding(Consumer)
+     */
+    public CompletableFuture<Boolean> forEachBindingAsync(Consumer<Binding> consumer) {
+        return supplyAsync(() -> forEachBinding(consumer));
+    }
+    
+    /**
+     * 异步检查玩家是否已绑定
+     * @see #isPlayerBound(UUID)
+     */
+    public CompletableFuture<Boolean> isPlayerBoundAsync(UUID playerUuid) {
+        return supplyAsync(() -> isPlayerBound(playerUuid));
+    }
+    
+    /**
+     * 异步检查SSO ID是否已绑定
+     * @see #isSSoIdBound(String)
+     */
+    public CompletableFuture<Boolean> isSSoIdBoundAsync(String ssoId) {
+        return supplyAsync(() -> isSSoIdBound(ssoId));
+    }
+    
+    /**
+     * 异步更新访问令牌，更新本身只写入缓存和延迟写入队列，不会阻塞
+     * @see #updateToken(UUID, String, String, String, long)
+     */
+    public CompletableFuture<Boolean> updateTokenAsync(UUID playerUuid, String ssoId, String accessToken,
+                                                       String refreshToken, long expiresIn) {
+        return CompletableFuture.completedFuture(updateToken(playerUuid, ssoId, accessToken, refreshToken, expiresIn));
+    }
+    
+    /**
+     * 异步更新玩家名称，更新本身只写入缓存和延迟写入队列，不会阻塞
+     * @see #updatePlayerName(UUID, String)
+     */
+    public CompletableFuture<Boolean> updatePlayerNameAsync(UUID playerUuid, String playerName) {
+        return CompletableFuture.completedFuture(updatePlayerName(playerUuid, playerName));
+    }
+    
+    /**
+     * 异步获取所有玩家连续刷新令牌失败的次数
+     * @see #getRefreshFailures()
+     */
+    public CompletableFuture<Map<UUID, Integer>> getRefreshFailuresAsync() {
+        return supplyAsync(this::getRefreshFailures);
+    }
+    
+    /**
+     * 异步记录一次令牌刷新失败
+     * @see #recordRefreshFailure(UUID, String)
+     */
+    public CompletableFuture<Boolean> recordRefreshFailureAsync(UUID playerUuid, String error) {
+        return supplyAsync(() -> recordRefreshFailure(playerUuid, error));
+    }
+    
+    /**
+     * 异步清除玩家的令牌刷新失败记录
+     * @see #clearRefreshFailure(UUID)
+     */
+    public CompletableFuture<Boolean> clearRefreshFailureAsync(UUID playerUuid) {
+        return supplyAsync(() -> clearRefreshFailure(playerUuid));
     }
 }
@@ -1,8 +1,10 @@
 package com.minecraft.ssoplugin.storage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * 存储提供者接口，定义数据存储的方法
@@ -34,19 +36,42 @@ public interface StorageProvider {
     boolean saveBinding(UUID playerUuid, String playerName, String ssoId, 
                        String accessToken, String refreshToken, long expiresIn, String userData);
     
+    /**
+     * 在玩家和SSO ID都未绑定时保存绑定信息
+     * <p>
+     * 由数据库的唯一约束在一条INSERT语句中同时检查两种冲突，不会覆盖任何已有的绑定。
+     * @param playerUuid 玩家UUID
+     * @param playerName 玩家名称
+     * @param ssoId SSO ID
+     * @param accessToken 访问令牌
+     * @param refreshToken 刷新令牌
+     * @param expiresIn 过期时间（秒）
+     * @param userData 用户数据（JSON字符串）
+     * @return 绑定结果
+     */
+    BindResult bindIfAbsent(UUID playerUuid, String playerName, String ssoId,
+                            String accessToken, String refreshToken, long expiresIn, String userData);
+    
     /**
      * 获取玩家绑定信息
      * @param playerUuid 玩家UUID
      * @return 绑定信息，如果不存在则返回null
      */
-    Map<String, Object> getBinding(UUID playerUuid);
+    Binding getBinding(UUID playerUuid);
+    
+    /**
+     * 批量获取玩家绑定信息
+     * @param playerUuids 玩家UUID集合
+     * @return 玩家UUID到绑定信息的映射，未绑定的玩家不包含在内；出错时返回null
+     */
+    Map<UUID, Binding> getBindings(Collection<UUID> playerUuids);
     
     /**
      * 获取SSO ID绑定信息
      * @param ssoId SSO ID
      * @return 绑定信息，如果不存在则返回null
      */
-    Map<String, Object> getBindingBySsoId(String ssoId);
+    Binding getBindingBySsoId(String ssoId);
     
     /**
      * 删除绑定信息
@@ -56,12 +81,32 @@ public interface StorageProvider {
     boolean deleteBinding(UUID playerUuid);
     
     /**
-     * 获取所有绑定信息
-     * @param page 页码（从1开始）
-     * @param pageSize 每页大小
+     * 按创建时间从新到旧获取一页绑定信息
+     * @param after 上一页的游标，获取第一页时为null
+     * @param limit 最多返回的条数
      * @return 绑定信息列表
      */
-    List<Map<String, Object>> getAllBindings(int page, int pageSize);
+    List<Binding> getBindingsAfter(BindingCursor after, int limit);
+    
+    /**
+     * 按固定的读取批量流式遍历所有绑定信息，不会一次性把整张表加载到内存
+     * @param consumer 绑定信息处理函数
+     * @return 是否遍历成功
+     */
+    boolean forEachBinding(Consumer<Binding> consumer);
+    
+    /**
+     * 获取绑定记录总数
+     * @return 绑定记录总数，出错时返回-1
+     */
+    int countBindings();
+    
+    /**
+     * 以流式方式遍历所有已绑定玩家的UUID
+     * @param consumer UUID处理函数
+     * @return 是否遍历成功
+     */
+    boolean forEachPlayerUuid(Consumer<UUID> consumer);
     
     /**
      * 检查玩家是否已绑定
@@ -94,4 +139,39 @@ public interface StorageProvider {
      * @return 是否更新成功
      */
     boolean updatePlayerName(UUID playerUuid, String playerName);
+    
+    /**
+     * 在同一事务中批量更新玩家名称
+     * @param playerNames 玩家UUID到新名称的映射
+     * @return 是否更新成功
+     */
+    boolean batchUpdatePlayerNames(Map<UUID, String> playerNames);
+    
+    /**
+     * 在同一事务中批量更新令牌
+     * @param tokens 玩家UUID到令牌更新的映射
+     * @return 是否更新成功
+     */
+    boolean batchUpdateTokens(Map<UUID, TokenUpdate> tokens);
+    
+    /**
+     * 获取所有玩家连续刷新令牌失败的次数
+     * @return 玩家UUID到连续失败次数的映射，读取失败时返回null
+     */
+    Map<UUID, Integer> getRefreshFailures();
+    
+    /**
+     * 记录一次令牌刷新失败，连续失败次数加一
+     * @param playerUuid 玩家UUID
+     * @param error 失败原因
+     * @return 是否记录成功
+     */
+    boolean recordRefreshFailure(UUID playerUuid, String error);
+    
+    /**
+     * 清除玩家的令牌刷新失败记录
+     * @param playerUuid 玩家UUID
+     * @return 是否清除成功
+     */
+    boolean clearRefreshFailure(UUID playerUuid);
 }
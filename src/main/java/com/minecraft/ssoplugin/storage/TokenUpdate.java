@@ -0,0 +1,62 @@
+package com.minecraft.ssoplugin.storage;
+
+import java.sql.Timestamp;
+
+/**
+ * 令牌更新类，表示一次待写入数据库的令牌变更
+ * <p>
+ * 更新只作用于SSO ID相同的绑定：玩家解除绑定并重新绑定其他账号后，旧账号的令牌不会写入新绑定。
+ */
+public class TokenUpdate {
+    
+    private final String ssoId;
+    private final String accessToken;
+    private final String refreshToken;
+    private final Timestamp expiresAt;
+    
+    /**
+     * 构造函数
+     * @param ssoId 令牌所属绑定的SSO ID
+     * @param accessToken 访问令牌
+     * @param refreshToken 刷新令牌
+     * @param expiresAt 令牌过期时间，没有有效期时为null
+     */
+    public TokenUpdate(String ssoId, String accessToken, String refreshToken, Timestamp expiresAt) {
+        this.ssoId = ssoId;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresAt = expiresAt;
+    }
+    
+    /**
+     * 获取令牌所属绑定的SSO ID
+     * @return SSO ID
+     */
+    public String getSsoId() {
+        return ssoId;
+    }
+    
+    /**
+     * 获取访问令牌
+     * @return 访问令牌
+     */
+    public String getAccessToken() {
+        return accessToken;
+    }
+    
+    /**
+     * 获取刷新令牌
+     * @return 刷新令牌
+     */
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    /**
+     * 获取令牌过期时间
+     * @return 令牌过期时间
+     */
+    public Timestamp getExpiresAt() {
+        return expiresAt;
+    }
+}
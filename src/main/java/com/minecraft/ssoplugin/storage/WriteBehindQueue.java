@@ -0,0 +1,329 @@
+package com.minecraft.ssoplugin.storage;
+
+import com.minecraft.ssoplugin.SSOPlugin;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * 延迟写入队列类，合并玩家名称和令牌更新后批量写入数据库
+ * <p>
+ * 同一玩家的多次更新只保留最新值，队列按固定间隔或达到数量阈值时
+ * 在同一事务中批量写入。
+ * <p>
+ * 从数据库读取绑定信息时应通过 {@link #read(Supplier)} 读取并用 {@link #overlay(Binding)}
+ * 覆盖尚未写入的更新；批量写入持有写锁，读取不会看到写入到一半的状态。
+ */
+public class WriteBehindQueue {
+    
+    private final SSOPlugin plugin;
+    private final StorageProvider provider;
+    private final Executor dbExecutor;
+    private final int batchSize;
+    private final Map<UUID, PendingUpdate> pending;
+    private final AtomicBoolean flushScheduled;
+    private final ReadWriteLock flushLock;
+    private final LongAdder enqueued;
+    private final LongAdder coalesced;
+    private final LongAdder written;
+    
+    /**
+     * 构造函数
+     * @param plugin 插件实例
+     * @param provider 存储提供者
+     * @param dbExecutor 数据库执行器
+     * @param batchSize 触发立即写入的待写入玩家数
+     */
+    public WriteBehindQueue(SSOPlugin plugin, StorageProvider provider, Executor dbExecutor, int batchSize) {
+        this.plugin = plugin;
+        this.provider = provider;
+        this.dbExecutor = dbExecutor;
+        this.batchSize = batchSize;
+        this.pending = new ConcurrentHashMap<>();
+        this.flushScheduled = new AtomicBoolean();
+        this.flushLock = new ReentrantReadWriteLock();
+        this.enqueued = new LongAdder();
+        this.coalesced = new LongAdder();
+        this.written = new LongAdder();
+    }
+    
+    /**
+     * 加入玩家名称更新
+     * @param playerUuid 玩家UUID
+     * @param playerName 新的玩家名称
+     */
+    public void enqueuePlayerName(UUID playerUuid, String playerName) {
+        enqueue(playerUuid, new PendingUpdate(playerName, null));
+    }
+    
+    /**
+     * 加入令牌更新
+     * @param playerUuid 玩家UUID
+     * @param token 令牌更新
+     */
+    public void enqueueToken(UUID playerUuid, TokenUpdate token) {
+        enqueue(playerUuid, new PendingUpdate(null, token));
+    }
+    
+    /**
+     * 在读锁内执行数据库读取，读取期间不会有批量写入完成
+     * <p>
+     * 读取结果应在同一个读取函数内通过 {@link #overlay(Binding)} 覆盖尚未写入的更新，
+     * 这样每个更新要么已经在数据库中，要么仍在队列中。
+     * @param reader 读取函数
+     * @param <T> 结果类型
+     * @return 读取结果
+     */
+    public <T> T read(Supplier<T> reader) {
+        flushLock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 用玩家尚未写入的更新覆盖从数据库读取的绑定信息
+     * @param binding 绑定信息，可以为null
+     * @return 覆盖后的绑定信息
+     */
+    public Binding overlay(Binding binding) {
+        if (binding == null) {
+            return null;
+        }
+        
+        PendingUpdate update = pending.get(binding.getPlayerUuid());
+        return update != null ? update.applyTo(binding) : binding;
+    }
+    
+    /**
+     * 用尚未写入的更新覆盖从数据库批量读取的绑定信息
+     * @param bindings 玩家UUID到绑定信息的映射，可以为null
+     * @return 覆盖后的映射
+     */
+    public Map<UUID, Binding> overlay(Map<UUID, Binding> bindings) {
+        if (bindings != null && !pending.isEmpty()) {
+            bindings.replaceAll((playerUuid, binding) -> overlay(binding));
+        }
+        return bindings;
+    }
+    
+    /**
+     * 丢弃玩家尚未写入的更新，在绑定被覆盖或删除时调用
+     * <p>
+     * 会等待正在进行的批量写入结束，已取出但尚未写入的更新不会在之后覆盖新的绑定，
+     * 写入失败时放回队列的更新也会一并丢弃。
+     * @param playerUuid 玩家UUID
+     */
+    public void discard(UUID playerUuid) {
+        flushLock.writeLock().lock();
+        try {
+            pending.remove(playerUuid);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 在数据库执行器上异步写入所有待写入的更新
+     */
+    public void flushAsync() {
+        if (pending.isEmpty() || !flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            dbExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // 执行器繁忙或已关闭，等待下一次定时写入或关闭时写入
+            flushScheduled.set(false);
+        }
+    }
+    
+    /**
+     * 在当前线程上写入所有待写入的更新，直到队列为空或写入失败
+     */
+    public void drain() {
+        while (!pending.isEmpty()) {
+            if (!flush()) {
+                plugin.log(Level.SEVERE, "写入延迟更新失败，" + pending.size() + " 个玩家的更新已丢失");
+                pending.clear();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 获取待写入的玩家数
+     * @return 待写入的玩家数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * 获取加入队列的更新数
+     * @return 加入队列的更新数
+     */
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+    
+    /**
+     * 获取被合并的更新数
+     * @return 被合并的更新数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+    
+    /**
+     * 获取实际写入数据库的行数
+     * @return 实际写入数据库的行数
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+    
+    /**
+     * 合并并加入更新
+     * @param playerUuid 玩家UUID
+     * @param update 更新
+     */
+    private void enqueue(UUID playerUuid, PendingUpdate update) {
+        enqueued.increment();
+        pending.merge(playerUuid, update, (previous, next) -> {
+            coalesced.increment();
+            return previous.merge(next);
+        });
+        
+        if (pending.size() >= batchSize) {
+            flushAsync();
+        }
+    }
+    
+    /**
+     * 取出当前所有待写入的更新并批量写入
+     * @return 是否写入成功
+     */
+    private boolean flush() {
+        flushLock.writeLock().lock();
+        try {
+            return flushLocked();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 在持有写锁时取出当前所有待写入的更新并批量写入
+     * @return 是否写入成功
+     */
+    private boolean flushLocked() {
+        Map<UUID, String> playerNames = new HashMap<>();
+        Map<UUID, TokenUpdate> tokens = new HashMap<>();
+        List<UUID> playerUuids = new ArrayList<>(pending.keySet());
+        Map<UUID, PendingUpdate> taken = new HashMap<>();
+        
+        for (UUID playerUuid : playerUuids) {
+            PendingUpdate update = pending.remove(playerUuid);
+            if (update == null) {
+                continue;
+            }
+            
+            taken.put(playerUuid, update);
+            if (update.playerName != null) {
+                playerNames.put(playerUuid, update.playerName);
+            }
+            if (update.token != null) {
+                tokens.put(playerUuid, update.token);
+            }
+        }
+        
+        boolean namesWritten = playerNames.isEmpty() || provider.batchUpdatePlayerNames(playerNames);
+        boolean tokensWritten = tokens.isEmpty() || provider.batchUpdateTokens(tokens);
+        if (namesWritten) {
+            written.add(playerNames.size());
+        }
+        if (tokensWritten) {
+            written.add(tokens.size());
+        }
+        
+        if (namesWritten && tokensWritten) {
+            return true;
+        }
+        
+        // 写入失败时放回队列，期间加入的更新比放回的更新更新，优先保留
+        for (Map.Entry<UUID, PendingUpdate> entry : taken.entrySet()) {
+            PendingUpdate update = entry.getValue();
+            PendingUpdate failed = new PendingUpdate(namesWritten ? null : update.playerName,
+                    tokensWritten ? null : update.token, update.updatedAt);
+            if (failed.playerName != null || failed.token != null) {
+                pending.merge(entry.getKey(), failed, (newer, older) -> older.merge(newer));
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 待写入的更新类
+     */
+    private static class PendingUpdate {
+        private final String playerName;
+        private final TokenUpdate token;
+        private final Instant updatedAt;
+        
+        public PendingUpdate(String playerName, TokenUpdate token) {
+            this(playerName, token, Instant.now());
+        }
+        
+        private PendingUpdate(String playerName, TokenUpdate token, Instant updatedAt) {
+            this.playerName = playerName;
+            this.token = token;
+            this.updatedAt = updatedAt;
+        }
+        
+        /**
+         * 用较新的更新覆盖当前更新
+         * @param next 较新的更新
+         * @return 合并后的更新
+         */
+        public PendingUpdate merge(PendingUpdate next) {
+            return new PendingUpdate(next.playerName != null ? next.playerName : playerName,
+                    next.token != null ? next.token : token, next.updatedAt);
+        }
+        
+        /**
+         * 把更新应用到绑定信息上
+         * @param binding 绑定信息
+         * @return 更新后的绑定信息
+         */
+        public Binding applyTo(Binding binding) {
+            Binding updated = binding;
+            if (playerName != null) {
+                updated = updated.withPlayerName(playerName, updatedAt);
+            }
+            if (token != null) {
+                updated = updated.withToken(token, updatedAt);
+            }
+            return updated;
+        }
+    }
+}
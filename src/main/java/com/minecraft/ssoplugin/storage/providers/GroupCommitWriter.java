@@ -0,0 +1,217 @@
+package com.minecraft.ssoplugin.storage.providers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQLite组提交写入器类
+ * <p>
+ * 所有写操作都交给同一个写线程执行。写线程每次取出队列中积压的全部写操作，
+ * 在同一个事务中执行后统一提交，无论写入频率多高，每次提交只需要一次fsync。
+ * 每个写操作在独立的保存点中执行，单个操作失败只回滚该操作本身。
+ */
+public class GroupCommitWriter {
+    
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    
+    private final Connection connection;
+    private final int maxBatchSize;
+    private final BlockingQueue<WriteTask<?>> queue;
+    private final Thread thread;
+    private boolean running;
+    
+    /**
+     * 构造函数
+     * @param connection 写连接，只能由写线程使用
+     * @param maxBatchSize 单个事务最多合并的写操作数
+     */
+    public GroupCommitWriter(Connection connection, int maxBatchSize) {
+        this.connection = connection;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new LinkedBlockingQueue<>();
+        this.thread = new Thread(this::run, "SSOPlugin-SQLite-Writer");
+        this.thread.setDaemon(true);
+    }
+    
+    /**
+     * 启动写线程
+     */
+    public synchronized void start() {
+        running = true;
+        thread.start();
+    }
+    
+    /**
+     * 提交写操作并等待其所在的事务提交
+     * @param operation 写操作
+     * @param <T> 结果类型
+     * @return 写操作的结果
+     * @throws SQLException 如果写操作或事务提交失败
+     */
+    public <T> T execute(WriteOperation<T> operation) throws SQLException {
+        WriteTask<T> task = new WriteTask<>(operation);
+        synchronized (this) {
+            if (!running) {
+                throw new SQLException("SQLite写入器已关闭");
+            }
+            queue.add(task);
+        }
+        
+        try {
+            return task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待SQLite写入时被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+    
+    /**
+     * 停止接受新的写操作，等待已提交的写操作全部完成后停止写线程
+     */
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 写线程主循环
+     */
+    private void run() {
+        List<WriteTask<?>> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            WriteTask<?> first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                first = queue.poll();
+            }
+            
+            if (first == null) {
+                if (isStopped()) {
+                    return;
+                }
+                continue;
+            }
+            
+            // 取出积压的写操作，与第一个写操作合并到同一个事务
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * 检查写入器是否已停止并且队列已清空
+     * @return 是否已停止
+     */
+    private synchronized boolean isStopped() {
+        return !running && queue.isEmpty();
+    }
+    
+    /**
+     * 在同一个事务中执行并提交一组写操作
+     * @param batch 写操作列表
+     */
+    private void commit(List<WriteTask<?>> batch) {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                for (WriteTask<?> task : batch) {
+                    task.run(connection);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // 事务整体失败，组内所有写操作都没有生效
+            for (WriteTask<?> task : batch) {
+                task.future.completeExceptionally(e);
+            }
+            return;
+        }
+        
+        for (WriteTask<?> task : batch) {
+            task.complete();
+        }
+    }
+    
+    /**
+     * 写操作函数
+     * @param <T> 结果类型
+     */
+    public interface WriteOperation<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+    
+    /**
+     * 等待执行的写操作类
+     * @param <T> 结果类型
+     */
+    private static class WriteTask<T> {
+        private final WriteOperation<T> operation;
+        private final CompletableFuture<T> future;
+        private T result;
+        private SQLException error;
+        
+        public WriteTask(WriteOperation<T> operation) {
+            this.operation = operation;
+            this.future = new CompletableFuture<>();
+        }
+        
+        /**
+         * 在独立的保存点中执行写操作，失败时只回滚到该保存点
+         * @param connection 写连接
+         * @throws SQLException 如果无法回滚到保存点
+         */
+        public void run(Connection connection) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                result = operation.execute(connection);
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                error = e;
+            }
+        }
+        
+        /**
+         * 事务提交后完成等待者
+         */
+        public void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
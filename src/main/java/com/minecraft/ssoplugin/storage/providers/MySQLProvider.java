@@ -1,12 +1,18 @@
 package com.minecraft.ssoplugin.storage.providers;
 
 import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.storage.BindResult;
+import com.minecraft.ssoplugin.storage.Binding;
+import com.minecraft.ssoplugin.storage.BindingCursor;
 import com.minecraft.ssoplugin.storage.StorageProvider;
+import com.minecraft.ssoplugin.storage.TokenUpdate;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
@@ -14,6 +20,9 @@ import java.util.logging.Level;
  */
 public class MySQLProvider implements StorageProvider {
     
+    // MySQL唯一约束冲突的错误码
+    private static final int ER_DUP_ENTRY = 1062;
+    
     private final SSOPlugin plugin;
     private final String host;
     private final int port;
@@ -84,6 +93,23 @@ public class MySQLProvider implements StorageProvider {
         }
     }
     
+    /**
+     * 获取连接池的运行状态
+     * @return 连接池状态，连接池未创建或已关闭时返回null
+     */
+    public HikariPoolMXBean getPoolStats() {
+        HikariDataSource dataSource = this.dataSource;
+        return dataSource != null && !dataSource.isClosed() ? dataSource.getHikariPoolMXBean() : null;
+    }
+    
+    /**
+     * 获取连接池的最大连接数
+     * @return 最大连接数
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+    
     /**
      * 创建数据库表
      * @throws SQLException 如果创建表时出错
@@ -109,7 +135,43 @@ public class MySQLProvider implements StorageProvider {
                             "UNIQUE KEY (sso_id)" +
                             ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4"
             );
+            
+            // 为绑定列表分页创建索引，MySQL不支持 CREATE INDEX IF NOT EXISTS，需要先检查
+            if (!indexExists(connection, "idx_player_bindings_created_at")) {
+                statement.executeUpdate(
+                        "CREATE INDEX idx_player_bindings_created_at ON player_bindings (created_at, id)"
+                );
+            }
+            
+            // 创建令牌刷新失败记录表
+            statement.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS token_refresh_failures (" +
+                            "player_uuid VARCHAR(36) PRIMARY KEY, " +
+                            "failure_count INT NOT NULL, " +
+                            "last_error TEXT, " +
+                            "last_failed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4"
+            );
+        }
+    }
+    
+    /**
+     * 检查player_bindings表上的索引是否存在
+     * @param connection 连接
+     * @param indexName 索引名称
+     * @return 是否存在
+     * @throws SQLException 如果查询时出错
+     */
+    private boolean indexExists(Connection connection, String indexName) throws SQLException {
+        try (ResultSet resultSet = connection.getMetaData().getIndexInfo(
+                connection.getCatalog(), null, "player_bindings", false, true)) {
+            while (resultSet.next()) {
+                if (indexName.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
     
     @Override
@@ -152,8 +214,58 @@ public class MySQLProvider implements StorageProvider {
     }
     
     @Override
-    public Map<String, Object> getBinding(UUID playerUuid) {
-        String sql = "SELECT * FROM player_bindings WHERE player_uuid = ?";
+    public BindResult bindIfAbsent(UUID playerUuid, String playerName, String ssoId,
+                                   String accessToken, String refreshToken, long expiresIn, String userData) {
+        String sql = "INSERT INTO player_bindings " +
+                "(player_uuid, player_name, sso_id, access_token, refresh_token, token_expires_at, user_data) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, playerUuid.toString());
+                statement.setString(2, playerName);
+                statement.setString(3, ssoId);
+                statement.setString(4, accessToken);
+                statement.setString(5, refreshToken);
+                statement.setTimestamp(6, expiresIn > 0 ? new Timestamp(System.currentTimeMillis() + (expiresIn * 1000)) : null);
+                statement.setString(7, userData);
+                
+                statement.executeUpdate();
+                return BindResult.BOUND;
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_DUP_ENTRY) {
+                    throw e;
+                }
+                
+                return classifyConflict(connection, playerUuid);
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "保存绑定信息时出错: " + e.getMessage());
+            return BindResult.ERROR;
+        }
+    }
+    
+    /**
+     * 判断绑定违反了哪个唯一约束
+     * @param connection 连接
+     * @param playerUuid 玩家UUID
+     * @return 玩家已有绑定时返回玩家冲突，否则返回SSO ID冲突
+     * @throws SQLException 如果查询时出错
+     */
+    private BindResult classifyConflict(Connection connection, UUID playerUuid) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM player_bindings WHERE player_uuid = ?")) {
+            statement.setString(1, playerUuid.toString());
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? BindResult.PLAYER_ALREADY_BOUND : BindResult.SSO_ID_ALREADY_BOUND;
+            }
+        }
+    }
+    
+    @Override
+    public Binding getBinding(UUID playerUuid) {
+        String sql = "SELECT " + Binding.COLUMNS + " FROM player_bindings WHERE player_uuid = ?";
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -162,7 +274,7 @@ public class MySQLProvider implements StorageProvider {
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return resultSetToMap(resultSet);
+                    return Binding.fromResultSet(resultSet);
                 }
             }
         } catch (SQLException e) {
@@ -173,8 +285,43 @@ public class MySQLProvider implements StorageProvider {
     }
     
     @Override
-    public Map<String, Object> getBindingBySsoId(String ssoId) {
-        String sql = "SELECT * FROM player_bindings WHERE sso_id = ?";
+    public Map<UUID, Binding> getBindings(Collection<UUID> playerUuids) {
+        Map<UUID, Binding> bindings = new HashMap<>();
+        if (playerUuids.isEmpty()) {
+            return bindings;
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT " + Binding.COLUMNS + " FROM player_bindings WHERE player_uuid IN (");
+        for (int i = 0; i < playerUuids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            
+            int index = 1;
+            for (UUID playerUuid : playerUuids) {
+                statement.setString(index++, playerUuid.toString());
+            }
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Binding binding = Binding.fromResultSet(resultSet);
+                    bindings.put(binding.getPlayerUuid(), binding);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "批量获取绑定信息时出错: " + e.getMessage());
+            return null;
+        }
+        
+        return bindings;
+    }
+    
+    @Override
+    public Binding getBindingBySsoId(String ssoId) {
+        String sql = "SELECT " + Binding.COLUMNS + " FROM player_bindings WHERE sso_id = ?";
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -183,7 +330,7 @@ public class MySQLProvider implements StorageProvider {
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return resultSetToMap(resultSet);
+                    return Binding.fromResultSet(resultSet);
                 }
             }
         } catch (SQLException e) {
@@ -203,31 +350,44 @@ public class MySQLProvider implements StorageProvider {
             statement.setString(1, playerUuid.toString());
             
             int rowsAffected = statement.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected == 0) {
+                return false;
+            }
         } catch (SQLException e) {
             plugin.log(Level.SEVERE, "删除绑定信息时出错: " + e.getMessage());
             return false;
         }
+        
+        // 重新绑定后不应沿用旧绑定的刷新失败次数
+        clearRefreshFailure(playerUuid);
+        return true;
     }
     
     @Override
-    public List<Map<String, Object>> getAllBindings(int page, int pageSize) {
-        List<Map<String, Object>> bindings = new ArrayList<>();
-        
-        // 计算偏移量
-        int offset = (page - 1) * pageSize;
+    public List<Binding> getBindingsAfter(BindingCursor after, int limit) {
+        List<Binding> bindings = new ArrayList<>();
         
-        String sql = "SELECT * FROM player_bindings ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        // 按 (created_at, id) 索引定位到游标之后，不需要跳过前面的行
+        String sql = after == null
+                ? "SELECT " + Binding.COLUMNS + " FROM player_bindings ORDER BY created_at DESC, id DESC LIMIT ?"
+                : "SELECT " + Binding.COLUMNS + " FROM player_bindings " +
+                "WHERE created_at <= ? AND (created_at < ? OR id < ?) ORDER BY created_at DESC, id DESC LIMIT ?";
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             
-            statement.setInt(1, pageSize);
-            statement.setInt(2, offset);
+            int index = 1;
+            if (after != null) {
+                Timestamp createdAt = Timestamp.from(after.getCreatedAt());
+                statement.setTimestamp(index++, createdAt);
+                statement.setTimestamp(index++, createdAt);
+                statement.setLong(index++, after.getId());
+            }
+            statement.setInt(index, limit);
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    bindings.add(resultSetToMap(resultSet));
+                    bindings.add(Binding.fromResultSet(resultSet));
                 }
             }
         } catch (SQLException e) {
@@ -237,6 +397,71 @@ public class MySQLProvider implements StorageProvider {
         return bindings;
     }
     
+    @Override
+    public boolean forEachBinding(Consumer<Binding> consumer) {
+        String sql = "SELECT " + Binding.COLUMNS + " FROM player_bindings";
+        
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // 逐行流式读取，避免一次性把整张表加载到内存
+            statement.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(Binding.fromResultSet(resultSet));
+                }
+            }
+            return true;
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.log(Level.SEVERE, "遍历绑定信息时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public int countBindings() {
+        String sql = "SELECT COUNT(*) FROM player_bindings";
+        
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "统计绑定记录数时出错: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public boolean forEachPlayerUuid(Consumer<UUID> consumer) {
+        String sql = "SELECT player_uuid FROM player_bindings";
+        
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // 逐行流式读取，避免一次性把整张表加载到内存
+            statement.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(UUID.fromString(resultSet.getString(1)));
+                }
+            }
+            return true;
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.log(Level.SEVERE, "遍历已绑定玩家UUID时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
     @Override
     public boolean isPlayerBound(UUID playerUuid) {
         String sql = "SELECT COUNT(*) FROM player_bindings WHERE player_uuid = ?";
@@ -325,24 +550,124 @@ public class MySQLProvider implements StorageProvider {
         }
     }
     
-    /**
-     * 将ResultSet转换为Map
-     * @param resultSet 结果集
-     * @return 映射
-     * @throws SQLException 如果转换时出错
-     */
-    private Map<String, Object> resultSetToMap(ResultSet resultSet) throws SQLException {
-        Map<String, Object> map = new HashMap<>();
+    @Override
+    public boolean batchUpdatePlayerNames(Map<UUID, String> playerNames) {
+        String sql = "UPDATE player_bindings SET player_name = ? WHERE player_uuid = ?";
         
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        return executeBatch(sql, "批量更新玩家名称时出错: ", statement -> {
+            for (Map.Entry<UUID, String> entry : playerNames.entrySet()) {
+                statement.setString(1, entry.getValue());
+                statement.setString(2, entry.getKey().toString());
+                statement.addBatch();
+            }
+        });
+    }
+    
+    @Override
+    public boolean batchUpdateTokens(Map<UUID, TokenUpdate> tokens) {
+        String sql = "UPDATE player_bindings SET access_token = ?, refresh_token = ?, token_expires_at = ? " +
+                "WHERE player_uuid = ? AND sso_id = ?";
+        
+        return executeBatch(sql, "批量更新令牌时出错: ", statement -> {
+            for (Map.Entry<UUID, TokenUpdate> entry : tokens.entrySet()) {
+                TokenUpdate token = entry.getValue();
+                statement.setString(1, token.getAccessToken());
+                statement.setString(2, token.getRefreshToken());
+                statement.setTimestamp(3, token.getExpiresAt());
+                statement.setString(4, entry.getKey().toString());
+                statement.setString(5, token.getSsoId());
+                statement.addBatch();
+            }
+        });
+    }
+    
+    @Override
+    public Map<UUID, Integer> getRefreshFailures() {
+        String sql = "SELECT player_uuid, failure_count FROM token_refresh_failures";
         
-        for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnName(i);
-            Object value = resultSet.getObject(i);
-            map.put(columnName, value);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            Map<UUID, Integer> failures = new HashMap<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    failures.put(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2));
+                }
+            }
+            return failures;
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.log(Level.SEVERE, "读取令牌刷新失败记录时出错: " + e.getMessage());
+            return null;
         }
+    }
+    
+    @Override
+    public boolean recordRefreshFailure(UUID playerUuid, String error) {
+        String sql = "INSERT INTO token_refresh_failures (player_uuid, failure_count, last_error, last_failed_at) " +
+                "VALUES (?, 1, ?, CURRENT_TIMESTAMP) ON DUPLICATE KEY UPDATE " +
+                "failure_count = failure_count + 1, last_error = VALUES(last_error), last_failed_at = CURRENT_TIMESTAMP";
         
-        return map;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            statement.setString(1, playerUuid.toString());
+            statement.setString(2, error);
+            
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "记录令牌刷新失败时出错: " + e.getMessage());
+            return false;
+        }
     }
+    
+    @Override
+    public boolean clearRefreshFailure(UUID playerUuid) {
+        String sql = "DELETE FROM token_refresh_failures WHERE player_uuid = ?";
+        
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            
+            statement.setString(1, playerUuid.toString());
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "清除令牌刷新失败记录时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 在同一事务中执行批量语句
+     * @param sql SQL语句
+     * @param errorMessage 出错时的日志前缀
+     * @param binder 参数绑定函数
+     * @return 是否执行成功
+     */
+    private boolean executeBatch(String sql, String errorMessage, BatchBinder binder) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                binder.bind(statement);
+                statement.executeBatch();
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, errorMessage + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 批量语句参数绑定函数
+     */
+    private interface BatchBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+    
 }
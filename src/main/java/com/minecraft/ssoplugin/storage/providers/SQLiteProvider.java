@@ -1,23 +1,45 @@
 package com.minecraft.ssoplugin.storage.providers;
 
 import com.minecraft.ssoplugin.SSOPlugin;
+import com.minecraft.ssoplugin.storage.BindResult;
+import com.minecraft.ssoplugin.storage.Binding;
+import com.minecraft.ssoplugin.storage.BindingCursor;
 import com.minecraft.ssoplugin.storage.StorageProvider;
+import com.minecraft.ssoplugin.storage.TokenUpdate;
 import org.json.JSONObject;
+import org.sqlite.SQLiteConfig;
 
 import java.io.File;
 import java.sql.*;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
  * SQLite存储提供者实现
+ * <p>
+ * 数据库以WAL模式运行：读操作从只读连接池中借用连接并发执行，
+ * 写操作交给组提交写入器，由唯一的写连接串行执行并按组提交，二者互不阻塞。
  */
 public class SQLiteProvider implements StorageProvider {
     
+    // SQLite约束冲突的错误码
+    private static final int SQLITE_CONSTRAINT = 19;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    
     private final SSOPlugin plugin;
     private final String dbFile;
-    private Connection connection;
+    private final int readPoolSize;
+    private Connection writer;
+    private GroupCommitWriter groupCommitWriter;
+    private BlockingQueue<Connection> readers;
     
     /**
      * 构造函数
@@ -26,6 +48,7 @@ public class SQLiteProvider implements StorageProvider {
     public SQLiteProvider(SSOPlugin plugin) {
         this.plugin = plugin;
         this.dbFile = plugin.getConfigManager().getSqliteFile();
+        this.readPoolSize = plugin.getConfigManager().getSqliteReadPoolSize();
     }
     
     @Override
@@ -40,14 +63,28 @@ public class SQLiteProvider implements StorageProvider {
             // 加载SQLite JDBC驱动
             Class.forName("org.sqlite.JDBC");
             
-            // 创建连接
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+            // 创建唯一的写连接，并切换到WAL模式，使读操作不会与写操作互相阻塞
+            SQLiteConfig writerConfig = createConfig();
+            writerConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            writerConfig.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(
+                    plugin.getConfigManager().getSqliteSynchronous().toUpperCase()));
+            writer = writerConfig.createConnection("jdbc:sqlite:" + dbFile);
             
             // 创建表
             createTables();
+            groupCommitWriter = new GroupCommitWriter(writer, plugin.getConfigManager().getSqliteGroupCommitMaxBatch());
+            groupCommitWriter.start();
+            
+            // 创建只读连接池
+            readers = new ArrayBlockingQueue<>(readPoolSize);
+            SQLiteConfig readerConfig = createConfig();
+            readerConfig.setReadOnly(true);
+            for (int i = 0; i < readPoolSize; i++) {
+                readers.add(readerConfig.createConnection("jdbc:sqlite:" + dbFile));
+            }
             
             return true;
-        } catch (ClassNotFoundException | SQLException e) {
+        } catch (ClassNotFoundException | SQLException | IllegalArgumentException e) {
             plugin.log(Level.SEVERE, "初始化SQLite数据库时出错: " + e.getMessage());
             e.printStackTrace();
             return false;
@@ -56,8 +93,29 @@ public class SQLiteProvider implements StorageProvider {
     
     @Override
     public void close() {
+        if (readers != null) {
+            Connection reader;
+            while ((reader = readers.poll()) != null) {
+                closeConnection(reader);
+            }
+        }
+        
+        // 等待已提交的写操作全部完成后再关闭写连接
+        if (groupCommitWriter != null) {
+            groupCommitWriter.close();
+        }
+        if (writer != null) {
+            closeConnection(writer);
+        }
+    }
+    
+    /**
+     * 关闭连接
+     * @param connection 连接
+     */
+    private void closeConnection(Connection connection) {
         try {
-            if (connection != null && !connection.isClosed()) {
+            if (!connection.isClosed()) {
                 connection.close();
             }
         } catch (SQLException e) {
@@ -65,12 +123,44 @@ public class SQLiteProvider implements StorageProvider {
         }
     }
     
+    /**
+     * 创建读写连接共用的连接配置
+     * @return 连接配置
+     */
+    private SQLiteConfig createConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(plugin.getConfigManager().getSqliteBusyTimeout());
+        // 负数表示以KB为单位
+        config.setCacheSize(-plugin.getConfigManager().getSqliteCacheSize());
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(plugin.getConfigManager().getSqliteMmapSize()));
+        return config;
+    }
+    
+    /**
+     * 从只读连接池中借出一个连接
+     * @return 连接租约，关闭时归还连接
+     * @throws SQLException 如果等待超时
+     */
+    private ConnectionLease acquireReader() throws SQLException {
+        try {
+            Connection reader = readers.poll(plugin.getConfigManager().getSqliteBusyTimeout(), TimeUnit.MILLISECONDS);
+            if (reader == null) {
+                throw new SQLException("等待SQLite只读连接超时");
+            }
+            return new ConnectionLease(reader, () -> readers.offer(reader));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待SQLite只读连接时被中断", e);
+        }
+    }
+    
     /**
      * 创建数据库表
      * @throws SQLException 如果创建表时出错
      */
     private void createTables() throws SQLException {
-        try (Statement statement = connection.createStatement()) {
+        try (Statement statement = writer.createStatement()) {
             // 创建玩家绑定表
             statement.executeUpdate(
                     "CREATE TABLE IF NOT EXISTS player_bindings (" +
@@ -88,6 +178,21 @@ public class SQLiteProvider implements StorageProvider {
                             "UNIQUE(sso_id)" +
                             ")"
             );
+            
+            // 为绑定列表分页创建索引
+            statement.executeUpdate(
+                    "CREATE INDEX IF NOT EXISTS idx_player_bindings_created_at ON player_bindings (created_at, id)"
+            );
+            
+            // 创建令牌刷新失败记录表
+            statement.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS token_refresh_failures (" +
+                            "player_uuid VARCHAR(36) PRIMARY KEY, " +
+                            "failure_count INTEGER NOT NULL, " +
+                            "last_error TEXT, " +
+                            "last_failed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")"
+            );
         }
     }
     
@@ -98,7 +203,7 @@ public class SQLiteProvider implements StorageProvider {
                 "(player_uuid, player_name, sso_id, access_token, refresh_token, token_expires_at, user_data, updated_at) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        return executeUpdate(sql, "保存绑定信息时出错: ", statement -> {
             statement.setString(1, playerUuid.toString());
             statement.setString(2, playerName);
             statement.setString(3, ssoId);
@@ -114,25 +219,76 @@ public class SQLiteProvider implements StorageProvider {
             
             statement.setString(7, userData);
             statement.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
-            
-            int rowsAffected = statement.executeUpdate();
-            return rowsAffected > 0;
+        });
+    }
+    
+    @Override
+    public BindResult bindIfAbsent(UUID playerUuid, String playerName, String ssoId,
+                                   String accessToken, String refreshToken, long expiresIn, String userData) {
+        // 不使用INSERT OR REPLACE，SSO ID冲突时它会删除其他玩家的绑定
+        String sql = "INSERT INTO player_bindings " +
+                "(player_uuid, player_name, sso_id, access_token, refresh_token, token_expires_at, user_data, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try {
+            return groupCommitWriter.execute(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, playerUuid.toString());
+                    statement.setString(2, playerName);
+                    statement.setString(3, ssoId);
+                    statement.setString(4, accessToken);
+                    statement.setString(5, refreshToken);
+                    statement.setTimestamp(6, expiresIn > 0 ? new Timestamp(System.currentTimeMillis() + (expiresIn * 1000)) : null);
+                    statement.setString(7, userData);
+                    statement.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
+                    
+                    statement.executeUpdate();
+                    return BindResult.BOUND;
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != SQLITE_CONSTRAINT) {
+                        throw e;
+                    }
+                    
+                    // 约束冲突只中止当前语句，仍可在同一事务中判断冲突原因
+                    return classifyConflict(connection, playerUuid);
+                }
+            });
         } catch (SQLException e) {
             plugin.log(Level.SEVERE, "保存绑定信息时出错: " + e.getMessage());
-            return false;
+            return BindResult.ERROR;
+        }
+    }
+    
+    /**
+     * 判断绑定违反了哪个唯一约束
+     * @param connection 连接
+     * @param playerUuid 玩家UUID
+     * @return 玩家已有绑定时返回玩家冲突，否则返回SSO ID冲突
+     * @throws SQLException 如果查询时出错
+     */
+    private BindResult classifyConflict(Connection connection, UUID playerUuid) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM player_bindings WHERE player_uuid = ?")) {
+            statement.setString(1, playerUuid.toString());
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? BindResult.PLAYER_ALREADY_BOUND : BindResult.SSO_ID_ALREADY_BOUND;
+            }
         }
     }
     
     @Override
-    public Map<String, Object> getBinding(UUID playerUuid) {
-        String sql = "SELECT * FROM player_bindings WHERE player_uuid = ?";
+    public Binding getBinding(UUID playerUuid) {
+        String sql = "SELECT " + Binding.COLUMNS + " FROM player_bindings WHERE player_uuid = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
             statement.setString(1, playerUuid.toString());
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return resultSetToMap(resultSet);
+                    return Binding.fromResultSet(resultSet);
                 }
             }
         } catch (SQLException e) {
@@ -143,15 +299,52 @@ public class SQLiteProvider implements StorageProvider {
     }
     
     @Override
-    public Map<String, Object> getBindingBySsoId(String ssoId) {
-        String sql = "SELECT * FROM player_bindings WHERE sso_id = ?";
+    public Map<UUID, Binding> getBindings(Collection<UUID> playerUuids) {
+        Map<UUID, Binding> bindings = new HashMap<>();
+        if (playerUuids.isEmpty()) {
+            return bindings;
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT " + Binding.COLUMNS + " FROM player_bindings WHERE player_uuid IN (");
+        for (int i = 0; i < playerUuids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql.toString())) {
+            
+            int index = 1;
+            for (UUID playerUuid : playerUuids) {
+                statement.setString(index++, playerUuid.toString());
+            }
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Binding binding = Binding.fromResultSet(resultSet);
+                    bindings.put(binding.getPlayerUuid(), binding);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "批量获取绑定信息时出错: " + e.getMessage());
+            return null;
+        }
+        
+        return bindings;
+    }
+    
+    @Override
+    public Binding getBindingBySsoId(String ssoId) {
+        String sql = "SELECT " + Binding.COLUMNS + " FROM player_bindings WHERE sso_id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
             statement.setString(1, ssoId);
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return resultSetToMap(resultSet);
+                    return Binding.fromResultSet(resultSet);
                 }
             }
         } catch (SQLException e) {
@@ -165,33 +358,43 @@ public class SQLiteProvider implements StorageProvider {
     public boolean deleteBinding(UUID playerUuid) {
         String sql = "DELETE FROM player_bindings WHERE player_uuid = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        boolean deleted = executeUpdate(sql, "删除绑定信息时出错: ", statement -> {
             statement.setString(1, playerUuid.toString());
-            
-            int rowsAffected = statement.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            plugin.log(Level.SEVERE, "删除绑定信息时出错: " + e.getMessage());
-            return false;
+        });
+        
+        // 重新绑定后不应沿用旧绑定的刷新失败次数
+        if (deleted) {
+            clearRefreshFailure(playerUuid);
         }
+        return deleted;
     }
     
     @Override
-    public List<Map<String, Object>> getAllBindings(int page, int pageSize) {
-        List<Map<String, Object>> bindings = new ArrayList<>();
-        
-        // 计算偏移量
-        int offset = (page - 1) * pageSize;
+    public List<Binding> getBindingsAfter(BindingCursor after, int limit) {
+        List<Binding> bindings = new ArrayList<>();
         
-        String sql = "SELECT * FROM player_bindings ORDER BY created_at DESC LIMIT ? OFFSET ?";
+        // 按 (created_at, id) 索引定位到游标之后，不需要跳过前面的行
+        String sql = after == null
+                ? "SELECT " + Binding.COLUMNS + " FROM player_bindings ORDER BY created_at DESC, id DESC LIMIT ?"
+                : "SELECT " + Binding.COLUMNS + " FROM player_bindings " +
+                "WHERE created_at <= ? AND (created_at < ? OR id < ?) ORDER BY created_at DESC, id DESC LIMIT ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, pageSize);
-            statement.setInt(2, offset);
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
+            int index = 1;
+            if (after != null) {
+                // created_at由CURRENT_TIMESTAMP以UTC文本写入，必须按相同格式比较
+                String createdAt = TIMESTAMP_FORMAT.format(after.getCreatedAt());
+                statement.setString(index++, createdAt);
+                statement.setString(index++, createdAt);
+                statement.setLong(index++, after.getId());
+            }
+            statement.setInt(index, limit);
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    bindings.add(resultSetToMap(resultSet));
+                    bindings.add(Binding.fromResultSet(resultSet));
                 }
             }
         } catch (SQLException e) {
@@ -201,11 +404,75 @@ public class SQLiteProvider implements StorageProvider {
         return bindings;
     }
     
+    @Override
+    public boolean forEachBinding(Consumer<Binding> consumer) {
+        String sql = "SELECT " + Binding.COLUMNS + " FROM player_bindings";
+        
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
+            // 分批读取，避免一次性把整张表加载到内存
+            statement.setFetchSize(1000);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(Binding.fromResultSet(resultSet));
+                }
+            }
+            return true;
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.log(Level.SEVERE, "遍历绑定信息时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public int countBindings() {
+        String sql = "SELECT COUNT(*) FROM player_bindings";
+        
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "统计绑定记录数时出错: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public boolean forEachPlayerUuid(Consumer<UUID> consumer) {
+        String sql = "SELECT player_uuid FROM player_bindings";
+        
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
+            statement.setFetchSize(1000);
+            
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(UUID.fromString(resultSet.getString(1)));
+                }
+            }
+            return true;
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.log(Level.SEVERE, "遍历已绑定玩家UUID时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
     @Override
     public boolean isPlayerBound(UUID playerUuid) {
         String sql = "SELECT COUNT(*) FROM player_bindings WHERE player_uuid = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
             statement.setString(1, playerUuid.toString());
             
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -224,7 +491,9 @@ public class SQLiteProvider implements StorageProvider {
     public boolean isSSoIdBound(String ssoId) {
         String sql = "SELECT COUNT(*) FROM player_bindings WHERE sso_id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
+            
             statement.setString(1, ssoId);
             
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -244,7 +513,7 @@ public class SQLiteProvider implements StorageProvider {
         String sql = "UPDATE player_bindings SET access_token = ?, refresh_token = ?, token_expires_at = ?, updated_at = ? " +
                 "WHERE player_uuid = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        return executeUpdate(sql, "更新令牌时出错: ", statement -> {
             statement.setString(1, accessToken);
             statement.setString(2, refreshToken);
             
@@ -257,50 +526,174 @@ public class SQLiteProvider implements StorageProvider {
             
             statement.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
             statement.setString(5, playerUuid.toString());
-            
-            int rowsAffected = statement.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            plugin.log(Level.SEVERE, "更新令牌时出错: " + e.getMessage());
-            return false;
-        }
+        });
     }
     
     @Override
     public boolean updatePlayerName(UUID playerUuid, String playerName) {
         String sql = "UPDATE player_bindings SET player_name = ?, updated_at = ? WHERE player_uuid = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        return executeUpdate(sql, "更新玩家名称时出错: ", statement -> {
             statement.setString(1, playerName);
             statement.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
             statement.setString(3, playerUuid.toString());
+        });
+    }
+    
+    @Override
+    public boolean batchUpdatePlayerNames(Map<UUID, String> playerNames) {
+        String sql = "UPDATE player_bindings SET player_name = ?, updated_at = ? WHERE player_uuid = ?";
+        
+        return executeBatch(sql, "批量更新玩家名称时出错: ", statement -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (Map.Entry<UUID, String> entry : playerNames.entrySet()) {
+                statement.setString(1, entry.getValue());
+                statement.setTimestamp(2, now);
+                statement.setString(3, entry.getKey().toString());
+                statement.addBatch();
+            }
+        });
+    }
+    
+    @Override
+    public boolean batchUpdateTokens(Map<UUID, TokenUpdate> tokens) {
+        String sql = "UPDATE player_bindings SET access_token = ?, refresh_token = ?, token_expires_at = ?, updated_at = ? " +
+                "WHERE player_uuid = ? AND sso_id = ?";
+        
+        return executeBatch(sql, "批量更新令牌时出错: ", statement -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (Map.Entry<UUID, TokenUpdate> entry : tokens.entrySet()) {
+                TokenUpdate token = entry.getValue();
+                statement.setString(1, token.getAccessToken());
+                statement.setString(2, token.getRefreshToken());
+                statement.setTimestamp(3, token.getExpiresAt());
+                statement.setTimestamp(4, now);
+                statement.setString(5, entry.getKey().toString());
+                statement.setString(6, token.getSsoId());
+                statement.addBatch();
+            }
+        });
+    }
+    
+    @Override
+    public Map<UUID, Integer> getRefreshFailures() {
+        String sql = "SELECT player_uuid, failure_count FROM token_refresh_failures";
+        
+        try (ConnectionLease lease = acquireReader();
+             PreparedStatement statement = lease.getConnection().prepareStatement(sql)) {
             
-            int rowsAffected = statement.executeUpdate();
-            return rowsAffected > 0;
+            Map<UUID, Integer> failures = new HashMap<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    failures.put(UUID.fromString(resultSet.getString(1)), resultSet.getInt(2));
+                }
+            }
+            return failures;
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.log(Level.SEVERE, "读取令牌刷新失败记录时出错: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    @Override
+    public boolean recordRefreshFailure(UUID playerUuid, String error) {
+        String sql = "INSERT INTO token_refresh_failures (player_uuid, failure_count, last_error, last_failed_at) " +
+                "VALUES (?, 1, ?, CURRENT_TIMESTAMP) ON CONFLICT(player_uuid) DO UPDATE SET " +
+                "failure_count = failure_count + 1, last_error = excluded.last_error, last_failed_at = CURRENT_TIMESTAMP";
+        
+        return executeUpdate(sql, "记录令牌刷新失败时出错: ", statement -> {
+            statement.setString(1, playerUuid.toString());
+            statement.setString(2, error);
+        });
+    }
+    
+    @Override
+    public boolean clearRefreshFailure(UUID playerUuid) {
+        String sql = "DELETE FROM token_refresh_failures WHERE player_uuid = ?";
+        
+        try {
+            return groupCommitWriter.execute(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, playerUuid.toString());
+                    statement.executeUpdate();
+                    return true;
+                }
+            });
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, "清除令牌刷新失败记录时出错: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 通过组提交写入器执行单条更新语句
+     * @param sql SQL语句
+     * @param errorMessage 出错时的日志前缀
+     * @param binder 参数绑定函数
+     * @return 是否有行被修改
+     */
+    private boolean executeUpdate(String sql, String errorMessage, StatementBinder binder) {
+        try {
+            return groupCommitWriter.execute(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    binder.bind(statement);
+                    return statement.executeUpdate() > 0;
+                }
+            });
+        } catch (SQLException e) {
+            plugin.log(Level.SEVERE, errorMessage + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 通过组提交写入器执行批量语句，整批语句在同一个保存点中生效或回滚
+     * @param sql SQL语句
+     * @param errorMessage 出错时的日志前缀
+     * @param binder 参数绑定函数
+     * @return 是否执行成功
+     */
+    private boolean executeBatch(String sql, String errorMessage, StatementBinder binder) {
+        try {
+            return groupCommitWriter.execute(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    binder.bind(statement);
+                    statement.executeBatch();
+                    return true;
+                }
+            });
         } catch (SQLException e) {
-            plugin.log(Level.SEVERE, "更新玩家名称时出错: " + e.getMessage());
+            plugin.log(Level.SEVERE, errorMessage + e.getMessage());
             return false;
         }
     }
     
     /**
-     * 将ResultSet转换为Map
-     * @param resultSet 结果集
-     * @return 映射
-     * @throws SQLException 如果转换时出错
+     * 语句参数绑定函数
      */
-    private Map<String, Object> resultSetToMap(ResultSet resultSet) throws SQLException {
-        Map<String, Object> map = new HashMap<>();
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+    
+    /**
+     * 连接租约类，关闭时归还只读连接
+     */
+    private static class ConnectionLease implements AutoCloseable {
+        private final Connection connection;
+        private final Runnable release;
         
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        public ConnectionLease(Connection connection, Runnable release) {
+            this.connection = connection;
+            this.release = release;
+        }
         
-        for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnName(i);
-            Object value = resultSet.getObject(i);
-            map.put(columnName, value);
+        public Connection getConnection() {
+            return connection;
         }
         
-        return map;
+        @Override
+        public void close() {
+            release.run();
+        }
     }
 }
@@ -0,0 +1,95 @@
+package com.minecraft.ssoplugin.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图类，按固定的桶统计操作耗时，可以按Prometheus格式导出
+ * <p>
+ * 每个桶和耗时总和都是一个 {@link LongAdder}，记录时只做一次比较查找和两次累加，
+ * 不加锁也不分配对象。各个桶分别计数，导出时再累加为Prometheus要求的累计计数。
+ */
+public class LatencyHistogram {
+    
+    // 桶的上限（秒），与Prometheus客户端的默认桶相同
+    private static final double[] BOUNDS_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+    
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+    
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos;
+    
+    /**
+     * 构造函数
+     */
+    public LatencyHistogram() {
+        // 最后一个桶对应+Inf
+        this.buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.sumNanos = new LongAdder();
+    }
+    
+    /**
+     * 记录一次从startNanos开始到现在的耗时
+     * @param startNanos 操作开始时的 {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        int index = 0;
+        while (index < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        sumNanos.add(nanos);
+    }
+    
+    /**
+     * 获取记录次数
+     * @return 记录次数
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+    
+    /**
+     * 按Prometheus文本格式输出直方图
+     * @param out 输出
+     * @param name 指标名称，不含_bucket等后缀
+     * @param labels 标签，例如 {@code provider="default"}，没有标签时为空字符串
+     */
+    public void writeTo(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"").append(BOUNDS_SECONDS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += buckets[BOUNDS_SECONDS.length].sum();
+        out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix).append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(suffix).append(cumulative).append('\n');
+    }
+}